@@ -0,0 +1,51 @@
+package minecraftbyexample.benchmarks;
+
+import minecraftbyexample.mbe04_block_dynamic_block_models.AltimeterBakedModel;
+import minecraftbyexample.mbe04_block_dynamic_block_models.BlockAltimeter;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.model.IBakedModel;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraftforge.client.model.data.ModelDataMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AltimeterBakedModel: getQuads generates the digit quads and the needle quads each time an altimeter block is rendered
+ *   (eg whenever its chunk section is rebuilt).  The digits texture is a stub sprite, and the base model and needle model are
+ *   plain cubes (see StubModels).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AltimeterModelBenchmark {
+
+  @Setup
+  public void setup() {
+    TextureAtlasSprite sprite = StubModels.createSprite(AltimeterBakedModel.digitsTextureRL);
+    IBakedModel baseModel = StubModels.createCubeModel(sprite, 16);
+    IBakedModel needleModel = StubModels.createCubeModel(sprite, 1);
+    altimeterModel = new AltimeterBakedModel(baseModel, textureRL -> sprite, modelRL -> needleModel);
+
+    modelData = AltimeterBakedModel.getEmptyIModelData();
+    modelData.setData(AltimeterBakedModel.GPS_COORDINATE, Optional.of(new BlockAltimeter.GPScoordinate(ALTITUDE, BEARING_TO_ORIGIN)));
+  }
+
+  @Benchmark
+  public List<BakedQuad> getQuads() {
+    return altimeterModel.getQuads(null, null, random, modelData);
+  }
+
+  private static final int ALTITUDE = 64;
+  private static final float BEARING_TO_ORIGIN = 30;
+
+  private AltimeterBakedModel altimeterModel;
+  private ModelDataMap modelData;
+  private final Random random = new Random(0);
+}
@@ -0,0 +1,74 @@
+package minecraftbyexample.benchmarks;
+
+import minecraftbyexample.mbe81_entity_projectile.BoomerangFlightPath;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.math.vector.Vector3d;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BoomerangFlightPath: calculating a new path when a boomerang is thrown or loaded, the per-tick position / yaw lookups,
+ *   and the NBT round trip used to save the path and send it to the client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoomerangFlightPathBenchmark {
+
+  @Setup
+  public void setup() {
+    flightPath = createFlightPath();
+    flightPathNBT = flightPath.serializeNBT();
+  }
+
+  @Benchmark
+  public BoomerangFlightPath createFlightPath() {
+    return new BoomerangFlightPath(START_POINT, APEX_YAW, APEX_PITCH, DISTANCE_TO_APEX, SIDEWAYS_DEFLECTION,
+                                   ANTICLOCKWISE, FLIGHT_SPEED);
+  }
+
+  @Benchmark
+  public Vector3d getPosition() {
+    return flightPath.getPosition(nextTime());
+  }
+
+  @Benchmark
+  public float getYaw() {
+    return flightPath.getYaw(nextTime());
+  }
+
+  @Benchmark
+  public CompoundNBT serializeNBT() {
+    return flightPath.serializeNBT();
+  }
+
+  @Benchmark
+  public BoomerangFlightPath deserializeNBT() {
+    return new BoomerangFlightPath(flightPathNBT);
+  }
+
+  // step through the flight one tick at a time, wrapping around at the end
+  private double nextTime() {
+    time += SECONDS_PER_TICK;
+    if (flightPath.hasReachedEndOfFlightPath(time)) time = 0;
+    return time;
+  }
+
+  // a typical medium-strength throw; see BoomerangItem
+  private static final Vector3d START_POINT = new Vector3d(100.5, 64, -200.5);
+  private static final float APEX_YAW = 30;
+  private static final float APEX_PITCH = -10;
+  private static final float DISTANCE_TO_APEX = 12;
+  private static final float SIDEWAYS_DEFLECTION = DISTANCE_TO_APEX * 0.2F;
+  private static final boolean ANTICLOCKWISE = false;
+  private static final float FLIGHT_SPEED = 7;
+  private static final double SECONDS_PER_TICK = 0.05;
+
+  private BoomerangFlightPath flightPath;
+  private CompoundNBT flightPathNBT;
+  private double time = 0;
+}
@@ -0,0 +1,42 @@
+package minecraftbyexample.benchmarks;
+
+import minecraftbyexample.mbe15_item_dynamic_item_model.ChessboardFinalisedModel;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.util.ResourceLocation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChessboardFinalisedModel: getQuads generates a pair of quads for every chess piece, each time the chessboard item is
+ *   rendered.  The chess piece texture is a stub sprite, and the base model is a plain cube (see StubModels).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessboardModelBenchmark {
+
+  @Param({"1", "16", "64"})
+  public int numberOfChessPieces;
+
+  @Setup
+  public void setup() {
+    TextureAtlasSprite sprite = StubModels.createSprite(new ResourceLocation("minecraft:block/diamond_block"));
+    chessboardModel = new ChessboardFinalisedModel(StubModels.createCubeModel(sprite, 16), numberOfChessPieces,
+                                                   textureRL -> sprite);
+  }
+
+  @Benchmark
+  public List<BakedQuad> getQuads() {
+    return chessboardModel.getQuads(null, null, random);
+  }
+
+  private ChessboardFinalisedModel chessboardModel;
+  private final Random random = new Random(0);
+}
@@ -0,0 +1,58 @@
+package minecraftbyexample.benchmarks;
+
+import minecraftbyexample.usefultools.CubicSpline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CubicSpline: creating a spline from its control points, and interpolating it (used every tick by each boomerang)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CubicSplineBenchmark {
+
+  @Param({"8", "64"})
+  public int numberOfControlPoints;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < numberOfControlPoints; ++i) {
+      tValues.add((float)i / (numberOfControlPoints - 1));
+      xValues.add((float)Math.sin(i * 0.5));
+    }
+    cubicSpline = CubicSpline.createCubicSpline(tValues, xValues);
+  }
+
+  @Benchmark
+  public CubicSpline createCubicSpline() {
+    return CubicSpline.createCubicSpline(tValues, xValues);
+  }
+
+  @Benchmark
+  public float interpolate() {
+    t += STEP;
+    if (t > 1) t -= 1;
+    return cubicSpline.interpolate(t);
+  }
+
+  @Benchmark
+  public float interpolateFirstDerivative() {
+    t += STEP;
+    if (t > 1) t -= 1;
+    return cubicSpline.interpolateFirstDerivative(t);
+  }
+
+  private static final float STEP = 0.0173F;  // not a neat fraction, so that t covers the whole spline
+
+  private final List<Float> tValues = new ArrayList<>();
+  private final List<Float> xValues = new ArrayList<>();
+  private CubicSpline cubicSpline;
+  private float t = 0;
+}
@@ -0,0 +1,100 @@
+package minecraftbyexample.benchmarks;
+
+import minecraftbyexample.mbe31_inventory_furnace.FurnaceStateData;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.inventory.container.IContainerListener;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.NonNullList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FurnaceStateData: while a furnace GUI is open, the container compares every element of the IIntArray with the value the
+ *   client last received, every tick (Container.detectAndSendChanges); and the furnace state is written to NBT whenever the
+ *   tile entity is saved or sent to the client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FurnaceStateDataBenchmark {
+
+  @Setup
+  public void setup() {
+    furnaceStateData.cookTimeForCompletion = 200;
+    for (int i = 0; i < FurnaceStateData.FUEL_SLOTS_COUNT; ++i) {
+      furnaceStateData.burnTimeInitialValues[i] = 1600;
+      furnaceStateData.burnTimeRemainings[i] = 800 + i;
+    }
+    container = new FurnaceStateContainer(furnaceStateData);
+    container.addListener(listener);
+    furnaceStateDataNBT = new CompoundNBT();
+    furnaceStateData.putIntoNBT(furnaceStateDataNBT);
+  }
+
+  /** One tick of furnace progress followed by the container's change detection; returns the number of values sent */
+  @Benchmark
+  public int detectAndSendChanges() {
+    furnaceStateData.cookTimeElapsed = (furnaceStateData.cookTimeElapsed + 1) % furnaceStateData.cookTimeForCompletion;
+    furnaceStateData.burnTimeRemainings[0] = Math.max(0, furnaceStateData.burnTimeRemainings[0] - 1);
+    listener.valuesSent = 0;
+    container.detectAndSendChanges();
+    return listener.valuesSent;
+  }
+
+  @Benchmark
+  public CompoundNBT putIntoNBT() {
+    CompoundNBT nbt = new CompoundNBT();
+    furnaceStateData.putIntoNBT(nbt);
+    return nbt;
+  }
+
+  @Benchmark
+  public FurnaceStateData readFromNBT() {
+    FurnaceStateData readData = new FurnaceStateData();
+    readData.readFromNBT(furnaceStateDataNBT);
+    return readData;
+  }
+
+  // The furnace state is tracked by vanilla Container.detectAndSendChanges() in the same way as in ContainerFurnace.
+  //   ContainerFurnace itself can't be used here, because its slots need a player inventory, which needs a world.
+  private static class FurnaceStateContainer extends Container {
+    FurnaceStateContainer(FurnaceStateData furnaceStateData) {
+      super(null, 0);
+      trackIntArray(furnaceStateData);
+    }
+
+    @Override
+    public boolean canInteractWith(PlayerEntity playerEntity) {
+      return true;
+    }
+  }
+
+  // counts the values which the container would have sent to the client
+  private static class CountingListener implements IContainerListener {
+    @Override
+    public void sendAllContents(Container container, NonNullList<ItemStack> itemsList) {
+    }
+
+    @Override
+    public void sendSlotContents(Container container, int slotIndex, ItemStack stack) {
+    }
+
+    @Override
+    public void sendWindowProperty(Container container, int varToUpdate, int newValue) {
+      ++valuesSent;
+    }
+
+    int valuesSent = 0;
+  }
+
+  private final FurnaceStateData furnaceStateData = new FurnaceStateData();
+  private final CountingListener listener = new CountingListener();
+  private FurnaceStateContainer container;
+  private CompoundNBT furnaceStateDataNBT;
+}
@@ -0,0 +1,44 @@
+package minecraftbyexample.benchmarks;
+
+import minecraftbyexample.mbe06_redstone.input_and_output.SmoothNeedleMovement;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SmoothNeedleMovement: the needle position is calculated every frame for every visible redstone meter, and the target
+ *   changes whenever the redstone signal does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SmoothNeedleMovementBenchmark {
+
+  @Setup
+  public void setup() {
+    smoothNeedleMovement = new SmoothNeedleMovement(NEEDLE_ACCELERATION, NEEDLE_MAX_SPEED);
+    smoothNeedleMovement.setTargetNeedlePosition(0.5, false);
+  }
+
+  @Benchmark
+  public double getSmoothedNeedlePosition() {
+    return smoothNeedleMovement.getSmoothedNeedlePosition();
+  }
+
+  @Benchmark
+  public double setTargetThenGetPosition() {
+    signalStrength = (signalStrength + 1) % 16;
+    smoothNeedleMovement.setTargetNeedlePosition(signalStrength / 15.0, false);
+    return smoothNeedleMovement.getSmoothedNeedlePosition();
+  }
+
+  // the same as TileEntityRedstoneMeter
+  private static final double NEEDLE_ACCELERATION = 0.4;
+  private static final double NEEDLE_MAX_SPEED = 0.4;
+
+  private SmoothNeedleMovement smoothNeedleMovement;
+  private int signalStrength = 0;
+}
@@ -0,0 +1,113 @@
+package minecraftbyexample.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.renderer.model.*;
+import net.minecraft.client.renderer.texture.AtlasTexture;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.data.AnimationMetadataSection;
+import net.minecraft.util.Direction;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.vector.Vector3f;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Random;
+
+import static net.minecraftforge.client.model.SimpleModelTransform.IDENTITY;
+
+/**
+ * Stand-ins for the sprites and models which the baked models normally look up in the block texture atlas and the model
+ *   manager, which only exist in a running client.  They are passed to the models' constructors in place of the real lookups.
+ */
+class StubModels {
+
+  /**
+   * A 16x16 sprite in the corner of a 256x256 atlas.
+   * The sprite has no AtlasTexture: constructing one queries the maximum texture size from OpenGL, which doesn't exist in a
+   *   benchmark, and baking and getQuads() never use the sprite's atlas.
+   */
+  static TextureAtlasSprite createSprite(ResourceLocation textureRL) {
+    final int SPRITE_SIZE = 16;
+    final int ATLAS_SIZE = 256;
+    final int NO_MIPMAPS = 0;
+    TextureAtlasSprite.Info info = new TextureAtlasSprite.Info(textureRL, SPRITE_SIZE, SPRITE_SIZE, AnimationMetadataSection.EMPTY);
+    NativeImage image = new NativeImage(SPRITE_SIZE, SPRITE_SIZE, false);
+    final AtlasTexture NO_ATLAS = null;
+    return new StubSprite(NO_ATLAS, info, NO_MIPMAPS, ATLAS_SIZE, ATLAS_SIZE, 0, 0, image);
+  }
+
+  /** A cube with one quad on each face, all of which are returned for side == null */
+  static IBakedModel createCubeModel(TextureAtlasSprite sprite, float size) {
+    FaceBakery faceBakery = new FaceBakery();
+    Vector3f from = new Vector3f(0, 0, 0);
+    Vector3f to = new Vector3f(size, size, size);
+    final int ROTATION_NONE = 0;
+    final int TINT_INDEX_NONE = -1;
+    final ResourceLocation DUMMY_RL = new ResourceLocation("dummy_name");
+    BlockPartFace blockPartFace = new BlockPartFace(null, TINT_INDEX_NONE, "", new BlockFaceUV(new float[] {0, 0, 16, 16}, ROTATION_NONE));
+    ImmutableList.Builder<BakedQuad> quads = new ImmutableList.Builder<>();
+    for (Direction face : Direction.values()) {
+      quads.add(faceBakery.bakeQuad(from, to, blockPartFace, sprite, face, IDENTITY, null, true, DUMMY_RL));
+    }
+    return new StubModel(quads.build(), sprite);
+  }
+
+  private static class StubSprite extends TextureAtlasSprite {
+    StubSprite(@Nullable AtlasTexture atlasTexture, TextureAtlasSprite.Info info, int mipmapLevels,
+               int atlasWidth, int atlasHeight, int x, int y, NativeImage image) {
+      super(atlasTexture, info, mipmapLevels, atlasWidth, atlasHeight, x, y, image);
+    }
+  }
+
+  private static class StubModel implements IBakedModel {
+    StubModel(List<BakedQuad> quads, TextureAtlasSprite sprite) {
+      this.quads = quads;
+      this.sprite = sprite;
+    }
+
+    @Override
+    public List<BakedQuad> getQuads(@Nullable BlockState state, @Nullable Direction side, Random rand) {
+      return (side == null) ? quads : ImmutableList.of();
+    }
+
+    @Override
+    public boolean isAmbientOcclusion() {
+      return true;
+    }
+
+    @Override
+    public boolean isGui3d() {
+      return false;
+    }
+
+    @Override
+    public boolean isSideLit() {
+      return true;
+    }
+
+    @Override
+    public boolean isBuiltInRenderer() {
+      return false;
+    }
+
+    @Override
+    public TextureAtlasSprite getParticleTexture() {
+      return sprite;
+    }
+
+    @Override
+    public ItemCameraTransforms getItemCameraTransforms() {
+      return ItemCameraTransforms.DEFAULT;
+    }
+
+    @Override
+    public ItemOverrideList getOverrides() {
+      return ItemOverrideList.EMPTY;
+    }
+
+    private final List<BakedQuad> quads;
+    private final TextureAtlasSprite sprite;
+  }
+}
@@ -108,6 +108,9 @@ public class MinecraftByExample {
     //   See the comments in DistExecutor class for more context.
     //  This is the reason that the ClientOnlyEvents are split into a completely-separate class.
 
+    // config files must be registered during construction, not in one of the startup events
+    minecraftbyexample.mbe70_configuration.StartupCommon.registerConfigs();
+
     registerCommonEvents(modEventBus);
     DistExecutor.safeRunWhenOn(Dist.CLIENT, () -> clientSideOnlyModEventRegistrar::registerClientOnlyEvents);
   }
@@ -138,6 +141,7 @@ public class MinecraftByExample {
     eventBus.register(minecraftbyexample.mbe50_particle.StartupCommon.class);
     eventBus.register(minecraftbyexample.mbe60_network_messages.StartupCommon.class);
     eventBus.register(minecraftbyexample.mbe65_capability.StartupCommon.class);
+    eventBus.register(minecraftbyexample.mbe70_configuration.MBETunables.class);  // (re)loads the config file
     eventBus.register(minecraftbyexample.mbe75_testing_framework.StartupCommon.class);
     eventBus.register(minecraftbyexample.mbe80_model_renderer.StartupCommon.class);
     eventBus.register(minecraftbyexample.mbe81_entity_projectile.StartupCommon.class);
@@ -28,6 +28,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.function.Function;
 
 import static net.minecraftforge.client.model.SimpleModelTransform.IDENTITY;
 
@@ -47,8 +48,21 @@ import static net.minecraftforge.client.model.SimpleModelTransform.IDENTITY;
 public class AltimeterBakedModel implements IBakedModel {
 
   public AltimeterBakedModel(IBakedModel baseModel)
+  {
+    this(baseModel, AltimeterBakedModel::getBlockAtlasSprite, AltimeterBakedModel::getRegisteredModel);
+  }
+
+  /**
+   * The block texture atlas and the model manager only exist in a running client, so a benchmark can supply its own lookups
+   * @param spriteGetter looks up the texture for the digits
+   * @param modelGetter looks up the model for the needle
+   */
+  public AltimeterBakedModel(IBakedModel baseModel, Function<ResourceLocation, TextureAtlasSprite> spriteGetter,
+                             Function<ResourceLocation, IBakedModel> modelGetter)
   {
     this.baseModel = baseModel;
+    this.spriteGetter = spriteGetter;
+    this.modelGetter = modelGetter;
   }
 
   public static ModelProperty<Optional<BlockAltimeter.GPScoordinate>> GPS_COORDINATE = new ModelProperty<>();
@@ -222,8 +236,7 @@ public class AltimeterBakedModel implements IBakedModel {
     BlockPartFace blockPartFace = new BlockPartFace(NO_FACE_CULLING, TINT_INDEX_NONE, DUMMY_TEXTURE_NAME,  blockFaceUV);
 
     // we have previously registered digitsTexture in StartupClientOnly::onTextureStitchEvent
-    AtlasTexture blocksStitchedTextures = ModelLoader.instance().getSpriteMap().getAtlasTexture(AtlasTexture.LOCATION_BLOCKS_TEXTURE);
-    TextureAtlasSprite digitsTextures = blocksStitchedTextures.getSprite(digitsTextureRL);
+    TextureAtlasSprite digitsTextures = spriteGetter.apply(digitsTextureRL);
 
     final IModelTransform NO_TRANSFORMATION = IDENTITY;
     final BlockPartRotation DEFAULT_ROTATION = null;   // rotate based on the face direction
@@ -268,9 +281,7 @@ public class AltimeterBakedModel implements IBakedModel {
     // the needle is made up of a central cube plus further cubes radiating out to a 6 texel radius
 
     // retrieve the needle model which we previously manually added to the model registry in StartupClientOnly::onModelRegistryEvent
-    Minecraft mc = Minecraft.getInstance();
-    BlockRendererDispatcher blockRendererDispatcher = mc.getBlockRendererDispatcher();
-    IBakedModel needleModel = blockRendererDispatcher.getBlockModelShapes().getModelManager().getModel(needleModelRL);
+    IBakedModel needleModel = modelGetter.apply(needleModelRL);
 
     // our needle model has its minX, minY, minZ at [0,0,0] and its size is [1,1,1], so to put it at the centre of the top
     //  of our altimeter, we need to translate it to [7.5F, 10F, 7.5F] in modelspace coordinates
@@ -359,7 +370,20 @@ public class AltimeterBakedModel implements IBakedModel {
     return translatedCopy;
   }
 
+  private static TextureAtlasSprite getBlockAtlasSprite(ResourceLocation textureRL) {
+    AtlasTexture blocksStitchedTextures = ModelLoader.instance().getSpriteMap().getAtlasTexture(AtlasTexture.LOCATION_BLOCKS_TEXTURE);
+    return blocksStitchedTextures.getSprite(textureRL);
+  }
+
+  private static IBakedModel getRegisteredModel(ResourceLocation modelRL) {
+    Minecraft mc = Minecraft.getInstance();
+    BlockRendererDispatcher blockRendererDispatcher = mc.getBlockRendererDispatcher();
+    return blockRendererDispatcher.getBlockModelShapes().getModelManager().getModel(modelRL);
+  }
+
   private IBakedModel baseModel;
+  private final Function<ResourceLocation, TextureAtlasSprite> spriteGetter;
+  private final Function<ResourceLocation, IBakedModel> modelGetter;
   private FaceBakery faceBakery = new FaceBakery();
 
   public static ResourceLocation needleTextureRL = new ResourceLocation("minecraftbyexample:block/mbe04b_altimeter_needle");
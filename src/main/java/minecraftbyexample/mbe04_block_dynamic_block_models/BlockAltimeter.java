@@ -36,19 +36,20 @@ public class BlockAltimeter extends Block {
 
   // Return the GPS coordinates of this block
   public static Optional<GPScoordinate> getGPScoordinate(@Nonnull IBlockDisplayReader world, @Nonnull BlockPos blockPos) {
-    GPScoordinate gpsCoordinate = new GPScoordinate();
-    gpsCoordinate.altitude = blockPos.getY();
-
     // use some high school trigonometry to calculate the angle pointing towards the origin [x=0, z=0]
     double rawAngleRadians = MathHelper.atan2(blockPos.getX(), -blockPos.getZ());
     double rawAngleDegrees = Math.toDegrees(rawAngleRadians);
     double bearing = 180 + rawAngleDegrees;
     double wrappedBearing = MathHelper.wrapDegrees(bearing);
-    gpsCoordinate.bearingToOrigin = (float)wrappedBearing;
-    return Optional.of(gpsCoordinate);
+    return Optional.of(new GPScoordinate(blockPos.getY(), (float)wrappedBearing));
   }
 
   public static class GPScoordinate {
+    public GPScoordinate(int altitude, float bearingToOrigin) {
+      this.altitude = altitude;
+      this.bearingToOrigin = bearingToOrigin;
+    }
+
     int altitude;            // altitude in metres
     float bearingToOrigin;   // points towards the origin [x=0, z=0]- in degrees clockwise from north
   }
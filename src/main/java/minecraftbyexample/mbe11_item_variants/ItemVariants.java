@@ -1,6 +1,7 @@
 package minecraftbyexample.mbe11_item_variants;
 
 import minecraftbyexample.mbe21_tileentityrenderer.TileEntityMBE21;
+import minecraftbyexample.usefultools.ItemStackDerivedStateCache;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.entity.player.PlayerEntity;
@@ -47,8 +48,7 @@ public class ItemVariants extends Item
    */
   public static EnumBottleFlavour getFlavour(ItemStack stack)
   {
-    CompoundNBT compoundNBT = stack.getOrCreateTag();
-    return EnumBottleFlavour.fromNBT(compoundNBT, NBT_TAG_NAME_FLAVOUR);
+    return bottleContentsCache.get(stack).flavour;
   }
 
   /**
@@ -58,8 +58,7 @@ public class ItemVariants extends Item
    */
   public static EnumBottleFullness getFullness(ItemStack stack)
   {
-    CompoundNBT compoundNBT = stack.getOrCreateTag();
-    return EnumBottleFullness.fromNBT(compoundNBT, NBT_TAG_NAME_FULLNESS);
+    return bottleContentsCache.get(stack).fullness;
   }
 
   /**
@@ -88,6 +87,7 @@ public class ItemVariants extends Item
     enumBottleFlavour.putIntoNBT(compoundNBT, NBT_TAG_NAME_FLAVOUR
 
     );
+    bottleContentsCache.invalidate(stack);
   }
 
   /**
@@ -100,6 +100,7 @@ public class ItemVariants extends Item
   {
     CompoundNBT compoundNBT = stack.getOrCreateTag();
     enumBottleFullness.putIntoNBT(compoundNBT, NBT_TAG_NAME_FULLNESS);
+    bottleContentsCache.invalidate(stack);
   }
 
   // add a subitem for each item that we want to appear in the creative tab
@@ -151,7 +152,7 @@ public class ItemVariants extends Item
   {
     EnumBottleFullness fullness = getFullness(stack);
     fullness = fullness.decreaseFullnessByOneStep();
-    fullness.putIntoNBT(stack.getTag(), NBT_TAG_NAME_FULLNESS);
+    setFullness(stack, fullness);
     return stack;
   }
 
@@ -177,6 +178,19 @@ public class ItemVariants extends Item
   public static final String NBT_TAG_NAME_FLAVOUR = "colour";
   public static final String NBT_TAG_NAME_FULLNESS = "fullness";
 
+  // The flavour and fullness are needed every frame for every bottle that is rendered (property override, colour, name), so
+  //  we parse them from the NBT once and cache them until the tag changes.  See ItemStackDerivedStateCache.
+  // Any code which changes the tag must call bottleContentsCache.invalidate() - see setFlavour() and setFullness()
+  private static class BottleContents {
+    BottleContents(@Nullable CompoundNBT compoundNBT) {
+      flavour = EnumBottleFlavour.fromNBT(compoundNBT, NBT_TAG_NAME_FLAVOUR);
+      fullness = EnumBottleFullness.fromNBT(compoundNBT, NBT_TAG_NAME_FULLNESS);
+    }
+    final EnumBottleFlavour flavour;
+    final EnumBottleFullness fullness;
+  }
+  private static final ItemStackDerivedStateCache<BottleContents> bottleContentsCache = new ItemStackDerivedStateCache<>(BottleContents::new);
+
   // create a new enum for the fullness of our liquid contents, with some supporting methods to convert to & from NBT, and to get
   //  human-readable names for a description.
   public enum EnumBottleFullness implements IStringSerializable
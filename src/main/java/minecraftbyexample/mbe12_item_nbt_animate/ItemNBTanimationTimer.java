@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe12_item_nbt_animate;
 
+import com.google.common.collect.MapMaker;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.item.IItemPropertyGetter;
@@ -9,6 +10,7 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
 import javax.annotation.Nullable;
+import java.util.Map;
 
 /**
  * The item has a number of animation frames depending on what the player is doing.
@@ -76,16 +78,12 @@ public class ItemNBTanimationTimer implements IItemPropertyGetter {
 
       if (entityIn == null || worldIn == null) return IDLE_FRAME_INDEX;
       if (!entityIn.isHandActive()) {  // player isn't holding down the right mouse button, i.e. not charging
-        animationHasStarted = false;
+        startingTicks.remove(stack);
         return IDLE_FRAME_INDEX;
       }
 
       long worldTicks = world.getGameTime();
-      if (!animationHasStarted) {
-        startingTick = worldTicks;
-        animationHasStarted = true;
-      }
-      final long ticksInUse = worldTicks - startingTick;
+      final long ticksInUse = worldTicks - startingTicks.computeIfAbsent(stack, s -> worldTicks);
       if (ticksInUse <= ItemNBTAnimate.CHARGE_UP_INITIAL_PAUSE_TICKS) {
         return IDLE_FRAME_INDEX;
       }
@@ -98,7 +96,9 @@ public class ItemNBTanimationTimer implements IItemPropertyGetter {
       return (float)fractionCharged*FULLY_CHARGED_INDEX;
   }
 
-  private long startingTick = -1;
-  private boolean animationHasStarted = false;
+  // The tick at which each stack started charging.  There is only one ItemNBTanimationTimer for all the stacks, so the
+  //   timer needs to be kept for each stack separately; otherwise every gem being rendered would share (and reset) the same timer.
+  // The keys are weak, so stacks which are no longer rendered are forgotten automatically.
+  private final Map<ItemStack, Long> startingTicks = new MapMaker().weakKeys().makeMap();  // weakKeys() compares keys by identity
 
 }
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.function.Function;
 
 import static net.minecraft.client.renderer.texture.AtlasTexture.LOCATION_BLOCKS_TEXTURE;
 
@@ -41,9 +42,20 @@ import static net.minecraft.client.renderer.texture.AtlasTexture.LOCATION_BLOCKS
 public class ChessboardFinalisedModel implements IBakedModel {
 
   public ChessboardFinalisedModel(IBakedModel i_parentModel, int i_numberOfChessPieces)
+  {
+    this(i_parentModel, i_numberOfChessPieces, ChessboardFinalisedModel::getBlockAtlasSprite);
+  }
+
+  /**
+   * @param i_spriteGetter looks up the texture for the chess pieces.  The block texture atlas only exists in a running client,
+   *                       so a benchmark can supply its own instead.
+   */
+  public ChessboardFinalisedModel(IBakedModel i_parentModel, int i_numberOfChessPieces,
+                                  Function<ResourceLocation, TextureAtlasSprite> i_spriteGetter)
   {
     parentModel = i_parentModel;
     numberOfChessPieces = i_numberOfChessPieces;
+    spriteGetter = i_spriteGetter;
   }
 
   /**
@@ -106,6 +118,11 @@ public class ChessboardFinalisedModel implements IBakedModel {
     throw new UnsupportedOperationException("The finalised model does not have an override list.");
   }
 
+  private static TextureAtlasSprite getBlockAtlasSprite(ResourceLocation textureRL) {
+    AtlasTexture blocksStitchedTextures = ModelLoader.instance().getSpriteMap().getAtlasTexture(AtlasTexture.LOCATION_BLOCKS_TEXTURE);
+    return blocksStitchedTextures.getSprite(textureRL);
+  }
+
   // return a list of BakedQuads for drawing the chess pieces
   private List<BakedQuad> getChessPiecesQuads(int numberOfPieces)
   {
@@ -115,8 +132,7 @@ public class ChessboardFinalisedModel implements IBakedModel {
     final int MAX_NUMBER_OF_PIECES = PIECES_PER_ROW * NUMBER_OF_ROWS;
 
     ResourceLocation chessPieceTextureRL = new ResourceLocation("minecraft:block/diamond_block");
-    AtlasTexture blocksStitchedTextures = ModelLoader.instance().getSpriteMap().getAtlasTexture(AtlasTexture.LOCATION_BLOCKS_TEXTURE);
-    TextureAtlasSprite chessPieceTexture = blocksStitchedTextures.getSprite(chessPieceTextureRL);
+    TextureAtlasSprite chessPieceTexture = spriteGetter.apply(chessPieceTextureRL);
 
     // if you want to use your own texture, you can add it to the texture map using code similar to this in your ClientProxy:
 //    @SubscribeEvent
@@ -370,4 +386,5 @@ public class ChessboardFinalisedModel implements IBakedModel {
 
   private int numberOfChessPieces;
   private IBakedModel parentModel;
+  private final Function<ResourceLocation, TextureAtlasSprite> spriteGetter;
 }
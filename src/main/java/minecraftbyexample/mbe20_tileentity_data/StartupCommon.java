@@ -1,10 +1,12 @@
 package minecraftbyexample.mbe20_tileentity_data;
 
+import minecraftbyexample.usefultools.ExpiryScheduler;
 import net.minecraft.block.Block;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.tileentity.TileEntityType;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
@@ -54,6 +56,7 @@ public class StartupCommon
 
   @SubscribeEvent
   public static void onCommonSetupEvent(FMLCommonSetupEvent event) {
-    // not actually required for this example....
+    // calls TileEntityData back when its timer expires, so that it doesn't need to tick
+    MinecraftForge.EVENT_BUS.register(ExpiryScheduler.class);
   }
 }
@@ -1,6 +1,9 @@
 package minecraftbyexample.mbe20_tileentity_data;
 
+import minecraftbyexample.usefultools.ExpiryScheduler;
 import minecraftbyexample.usefultools.NBTtypesMBE;
+import minecraftbyexample.usefultools.PackedNBT;
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.block.*;
 import net.minecraft.block.SaplingBlock;
 import net.minecraft.block.TNTBlock;
@@ -10,10 +13,8 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.*;
 import net.minecraft.network.NetworkManager;
 import net.minecraft.network.play.server.SUpdateTileEntityPacket;
-import net.minecraft.tileentity.ITickableTileEntity;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.World;
 import net.minecraft.world.server.ServerWorld;
 
 import javax.annotation.Nullable;
@@ -26,20 +27,46 @@ import java.util.Random;
  *
  * This is a simple tile entity which stores some data
  * When placed, it waits for 10 seconds then replaces itself with a random block
+ * It doesn't need to tick to count down: it stores the world time at which it should disappear, and the ExpiryScheduler
+ *   calls onExpired() when that time is reached.
  */
-public class TileEntityData extends TileEntity implements ITickableTileEntity {
+public class TileEntityData extends TileEntity implements ExpiryScheduler.IExpiringTileEntity {
 
   public TileEntityData() {
     super(StartupCommon.tileEntityDataTypeMBE20);
   }
 
   private final int INVALID_VALUE = -1;
-	private int ticksLeftTillDisappear = INVALID_VALUE;  // the time (in ticks) left until the block disappears
+	private long disappearGameTime = ExpiryScheduler.NO_EXPIRY;  // the world time (in ticks) at which the block disappears
+	private int legacyTicksLeft = INVALID_VALUE;  // from a save made before we stored disappearGameTime; converted in onLoad()
 
 	// set by the block upon creation
 	public void setTicksLeftTillDisappear(int ticks)
 	{
-		ticksLeftTillDisappear = ticks;
+		if (!this.hasWorld()) return;
+		disappearGameTime = world.getGameTime() + ticks;
+		markDirty();
+		if (!world.isRemote) {
+			ExpiryScheduler.schedule((ServerWorld)world, pos, disappearGameTime);
+		}
+	}
+
+	// Called when the tile entity is added to the world: either when the block is placed, or when the chunk is loaded.
+	// The scheduler doesn't save anything, so we need to reschedule ourselves every time we're loaded.
+	@Override
+	public void onLoad() {
+		super.onLoad();
+		if (world.isRemote) return;
+		if (legacyTicksLeft != INVALID_VALUE) {
+			disappearGameTime = world.getGameTime() + legacyTicksLeft;
+			legacyTicksLeft = INVALID_VALUE;
+		}
+		ExpiryScheduler.schedule((ServerWorld)world, pos, disappearGameTime);
+	}
+
+	@Override
+	public long getExpiryGameTime() {
+		return disappearGameTime;
 	}
 
 	// When the world loads from disk, the server needs to send the TileEntity information to the client
@@ -91,8 +118,9 @@ public class TileEntityData extends TileEntity implements ITickableTileEntity {
 	{
 		super.write(parentNBTTagCompound); // The super call is required to save the tile's location
 
-		parentNBTTagCompound.putInt("ticksLeft", ticksLeftTillDisappear);
-		// alternatively - could use parentNBTTagCompound.setTag("ticksLeft", IntNBT.valueOf(ticksLeftTillDisappear));
+		parentNBTTagCompound.putLong("disappearGameTime", disappearGameTime);
+		// alternatively - could use parentNBTTagCompound.setTag("disappearGameTime", LongNBT.valueOf(disappearGameTime));
+		// We store the absolute world time rather than the ticks remaining, so that we don't need to count down every tick
 
 		// some examples of other NBT tags - browse NBTTagCompound or search for the subclasses of INBT for more examples
 
@@ -114,26 +142,15 @@ public class TileEntityData extends TileEntity implements ITickableTileEntity {
 		// IntArray
 		parentNBTTagCompound.putIntArray("testIntArray", testIntArray);
 
-    // List of Doubles
-		ListNBT doubleArrayNBT = new ListNBT();                     // a ListNBT is similar to a Java ArrayList
-		for (double value : testDoubleArray) {
-			doubleArrayNBT.add(DoubleNBT.valueOf(value));
-		}
-		parentNBTTagCompound.put("testDoubleArray", doubleArrayNBT);
-
-		// List of (integer, double) pairs
-
-		ListNBT doubleArrayWithNullsNBT = new ListNBT();
-		for (int i = 0; i < testDoubleArrayWithNulls.length; ++i) {
-			Double value = testDoubleArrayWithNulls[i];
-			if (value != null) {
-				CompoundNBT dataForThisSlot = new CompoundNBT();
-				dataForThisSlot.putInt("i", i + 1);   // avoid using 0, so that the default when reading a missing value (0) is obviously invalid
-				dataForThisSlot.putDouble("v", value);
-				doubleArrayWithNullsNBT.add(dataForThisSlot);
-			}
-		}
-		parentNBTTagCompound.put("testDoubleArrayWithNulls", doubleArrayWithNullsNBT);
+    // Array of doubles
+		// A ListNBT of DoubleNBT (similar to a Java ArrayList<Double>) works, but stores an object per entry.  PackedNBT stores the
+		//   whole array as a single LongArrayNBT instead, which is much smaller and faster for arrays of any size.
+		parentNBTTagCompound.put("testDoubleArray", PackedNBT.writeDoubleArray(testDoubleArray));
+
+		// Array of doubles with some null entries
+		// This used to be stored as a ListNBT of (integer index, double value) pairs; PackedNBT stores a bitmask of which entries are
+		//   present, followed by the present values.
+		parentNBTTagCompound.put("testDoubleArrayWithNulls", PackedNBT.writeSparseDoubleArray(testDoubleArrayWithNulls));
     return parentNBTTagCompound;
 	}
 
@@ -146,12 +163,16 @@ public class TileEntityData extends TileEntity implements ITickableTileEntity {
 		// important rule: never trust the data you read from NBT, make sure it can't cause a crash
 
 		final int NBT_INT_ID = NBTtypesMBE.INT_NBT_ID;
-		int readTicks = INVALID_VALUE;
-		if (parentNBTTagCompound.contains("ticksLeft", NBT_INT_ID)) {  // check if the key exists and is an Int. You can omit this if a default value of 0 is ok.
-			readTicks = parentNBTTagCompound.getInt("ticksLeft");
-			if (readTicks < 0) readTicks = INVALID_VALUE;
+		final int NBT_LONG_ID = NBTtypesMBE.LONG_NBT_ID;
+		disappearGameTime = ExpiryScheduler.NO_EXPIRY;
+		legacyTicksLeft = INVALID_VALUE;
+		if (parentNBTTagCompound.contains("disappearGameTime", NBT_LONG_ID)) {  // check if the key exists and is a Long. You can omit this if a default value of 0 is ok.
+			long readTime = parentNBTTagCompound.getLong("disappearGameTime");
+			if (readTime >= 0) disappearGameTime = readTime;
+		} else if (parentNBTTagCompound.contains("ticksLeft", NBT_INT_ID)) {  // older saves stored the ticks remaining instead
+			int readTicks = parentNBTTagCompound.getInt("ticksLeft");
+			if (readTicks >= 0) legacyTicksLeft = readTicks;
 		}
-		ticksLeftTillDisappear = readTicks;
 
 		// some examples of other NBT tags - browse CompoundNBT or search for the subclasses of INBT for more
 
@@ -188,57 +209,41 @@ public class TileEntityData extends TileEntity implements ITickableTileEntity {
 			System.err.println("testIntArray mismatch:" + readIntArray);
 		}
 
-    // List of Doubles
-		final int NBT_DOUBLE_ID = NBTtypesMBE.DOUBLE_NBT_ID;
-		ListNBT doubleArrayNBT = parentNBTTagCompound.getList("testDoubleArray", NBT_DOUBLE_ID);
-		int numberOfEntries = Math.min(doubleArrayNBT.size(), testDoubleArray.length);
-		double [] readDoubleArray = new double[numberOfEntries];
-		for (int i = 0; i < numberOfEntries; ++i) {
-			 readDoubleArray[i] = doubleArrayNBT.getDouble(i);
-		}
-		if (doubleArrayNBT.size() != numberOfEntries || !Arrays.equals(readDoubleArray, testDoubleArray)) {
-			System.err.println("testDoubleArray mismatch:" + readDoubleArray);
+    // Array of doubles - PackedNBT also understands the older ListNBT format, so tile entities saved before the change still load
+		double [] readDoubleArray = PackedNBT.readDoubleArray(parentNBTTagCompound.get("testDoubleArray"));
+		if (!Arrays.equals(readDoubleArray, testDoubleArray)) {
+			System.err.println("testDoubleArray mismatch:" + Arrays.toString(readDoubleArray));
 		}
 
-    // List of (integer, double) pairs
-		final int NBT_COMPOUND_ID = NBTtypesMBE.COMPOUND_NBT_ID;
-		ListNBT doubleNullArrayNBT = parentNBTTagCompound.getList("testDoubleArrayWithNulls", NBT_COMPOUND_ID);
-		numberOfEntries = Math.min(doubleArrayNBT.size(), testDoubleArrayWithNulls.length);
-		Double [] readDoubleNullArray = new Double[numberOfEntries];
-		for (int i = 0; i < doubleNullArrayNBT.size(); ++i)	{
-			CompoundNBT nbtEntry = doubleNullArrayNBT.getCompound(i);
-			int idx = nbtEntry.getInt("i") - 1;
-			if (nbtEntry.contains("v", NBT_DOUBLE_ID) && idx >= 0 && idx < numberOfEntries) {
-				readDoubleNullArray[idx] = nbtEntry.getDouble("v");
-			}
-		}
+    // Array of doubles with some null entries
+		Double [] readDoubleNullArray = PackedNBT.readSparseDoubleArray(parentNBTTagCompound.get("testDoubleArrayWithNulls"));
 		if (!Arrays.equals(testDoubleArrayWithNulls, readDoubleNullArray)) {
-			System.err.println("testDoubleArrayWithNulls mismatch:" + readDoubleNullArray);
+			System.err.println("testDoubleArrayWithNulls mismatch:" + Arrays.toString(readDoubleNullArray));
 		}
 	}
 
-	// Since our TileEntity implements ITickableTileEntity, we get an update method which is called once per tick (20 times / second)
-	// When the timer elapses, replace our block with a random one.
+	// Called by the ExpiryScheduler on the server when disappearGameTime is reached: replace our block with a random one.
 	@Override
-	public void tick() {
-		if (!this.hasWorld()) return;  // prevent crash
-		World world = this.getWorld();
-		if (world.isRemote) return;   // don't bother doing anything on the client side.
-    ServerWorld serverWorld = (ServerWorld)world;  // we can now be sure world is a ServerWorld
-		if (ticksLeftTillDisappear == INVALID_VALUE) return;  // do nothing until the time is valid
-		--ticksLeftTillDisappear;
-//		this.markDirty();            // if you update a tileentity variable on the server and this should be communicated to the client,
-// 																		you need to markDirty() to force a resend.  In this case, the client doesn't need to know because
-                                   // nothing happens on the client until the timer expires
-		if (ticksLeftTillDisappear > 0) return;   // not ready yet
+	public void onExpired(ServerWorld serverWorld) {
+		long profileStartTime = EXPIRY_PROFILE.start();
+		try {
+			replaceWithRandomBlock(serverWorld);
+		} finally {
+			EXPIRY_PROFILE.stop(profileStartTime);
+		}
+	}
+
+	private static final TickProfiler.Section EXPIRY_PROFILE = TickProfiler.section(TileEntityData.class, "onExpired");
 
+	private void replaceWithRandomBlock(ServerWorld serverWorld) {
+		disappearGameTime = ExpiryScheduler.NO_EXPIRY;
 		Block [] blockChoices = {Blocks.DIAMOND_BLOCK, Blocks.OBSIDIAN, Blocks.AIR, Blocks.TNT, Blocks.CORNFLOWER, Blocks.OAK_SAPLING, Blocks.WATER};
 		Random random = new Random();
 		Block chosenBlock = blockChoices[random.nextInt(blockChoices.length)];
-	  world.setBlockState(this.pos, chosenBlock.getDefaultState());
+	  serverWorld.setBlockState(this.pos, chosenBlock.getDefaultState());
 		if (chosenBlock == Blocks.TNT) {
-			Blocks.TNT.catchFire(Blocks.TNT.getDefaultState().with(TNTBlock.UNSTABLE, true), world, pos, null, null);
-			world.removeBlock(pos, false);
+			Blocks.TNT.catchFire(Blocks.TNT.getDefaultState().with(TNTBlock.UNSTABLE, true), serverWorld, pos, null, null);
+			serverWorld.removeBlock(pos, false);
 		} else if (chosenBlock == Blocks.OAK_SAPLING) {
 			SaplingBlock blockSapling = (SaplingBlock)Blocks.OAK_SAPLING;
       blockSapling.placeTree(serverWorld, this.pos, blockSapling.getDefaultState(), random);
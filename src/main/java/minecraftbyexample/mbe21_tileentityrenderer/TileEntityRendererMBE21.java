@@ -1,6 +1,7 @@
 package minecraftbyexample.mbe21_tileentityrenderer;
 
 import com.mojang.blaze3d.matrix.MatrixStack;
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.client.renderer.*;
 import net.minecraft.client.renderer.tileentity.TileEntityRenderer;
 import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher;
@@ -59,6 +60,18 @@ public class TileEntityRendererMBE21 extends TileEntityRenderer<TileEntityMBE21>
   @Override
   public void render(TileEntityMBE21 tileEntityMBE21, float partialTicks, MatrixStack matrixStack, IRenderTypeBuffer renderBuffers,
                      int combinedLight, int combinedOverlay) {
+    long profileStartTime = RENDER_PROFILE.start();
+    try {
+      doRender(tileEntityMBE21, partialTicks, matrixStack, renderBuffers, combinedLight, combinedOverlay);
+    } finally {
+      RENDER_PROFILE.stop(profileStartTime);
+    }
+  }
+
+  private static final TickProfiler.Section RENDER_PROFILE = TickProfiler.section(TileEntityRendererMBE21.class, "render");
+
+  private void doRender(TileEntityMBE21 tileEntityMBE21, float partialTicks, MatrixStack matrixStack, IRenderTypeBuffer renderBuffers,
+                        int combinedLight, int combinedOverlay) {
     TileEntityMBE21.EnumRenderStyle objectRenderStyle = tileEntityMBE21.getArtifactRenderStyle();
 
     switch (objectRenderStyle) {
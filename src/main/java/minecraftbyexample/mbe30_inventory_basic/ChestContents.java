@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe30_inventory_basic;
 
+import minecraftbyexample.usefultools.IncrementalNBTItemStackHandler;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.Item;
@@ -7,7 +8,6 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraftforge.common.util.Constants;
-import net.minecraftforge.items.ItemStackHandler;
 
 import java.util.Set;
 import java.util.function.Predicate;
@@ -72,7 +72,7 @@ public class ChestContents implements IInventory {
    * @return the tag containing the contents
    */
   public CompoundNBT serializeNBT()  {
-    return chestContents.serializeNBT();
+    return chestContents.serializeNBT();  // only the slots which have changed since the last call are re-encoded
   }
 
   /**
@@ -83,6 +83,24 @@ public class ChestContents implements IInventory {
     chestContents.deserializeNBT(nbt);
   }
 
+  /**
+   * Writes only the slots which have changed since the last update packet - see
+   *   IncrementalNBTItemStackHandler.serializeChangedSlotsForUpdatePacket
+   * @param gameTime the current world.getGameTime()
+   * @return the tag containing the changed slots
+   */
+  public CompoundNBT serializeChangedSlotsForUpdatePacket(long gameTime) {
+    return chestContents.serializeChangedSlotsForUpdatePacket(gameTime);
+  }
+
+  /**
+   * Applies the changed slots written by serializeChangedSlotsForUpdatePacket()
+   * @param nbt
+   */
+  public void deserializeChangedSlots(CompoundNBT nbt) {
+    chestContents.deserializeChangedSlots(nbt);
+  }
+
   //  ------------- linking methods  -------------
   //  The following group of methods are used to establish a link between the parent TileEntity and the chest contents,
   //    so that the container can communicate with the parent TileEntity without having to talk to it directly.
@@ -151,6 +169,16 @@ public class ChestContents implements IInventory {
 
   @Override
   public void markDirty() {
+    chestContents.onStacksChangedInPlace();  // the stacks may have been changed in place, bypassing the ItemStackHandler
+    markDirtyNotificationLambda.invoke();
+  }
+
+  /**
+   * The same as markDirty(), for when you know which slot has changed: only that slot needs to be checked for changes.
+   * Our container's slots call this instead of markDirty() - see Slot.onSlotChanged()
+   */
+  public void markSlotDirty(int index) {
+    chestContents.onStackChangedInPlace(index);  // the container may have changed the stack in place, bypassing the ItemStackHandler
     markDirtyNotificationLambda.invoke();
   }
 
@@ -173,10 +201,7 @@ public class ChestContents implements IInventory {
 
   @Override
   public boolean isEmpty() {
-    for (int i = 0; i < chestContents.getSlots(); ++i) {
-      if (!chestContents.getStackInSlot(i).isEmpty()) return false;
-    }
-    return true;
+    return chestContents.isEmpty();  // the handler keeps track of the occupied slots, so we don't need to check each one
   }
 
   @Override
@@ -207,14 +232,31 @@ public class ChestContents implements IInventory {
     }
   }
 
+  //--------- queries which are cheap because the occupied slots are tracked
+
+  /** @return the lowest numbered empty slot, or -1 if none */
+  public int getFirstEmptySlot() {
+    return chestContents.getFirstEmptySlot();
+  }
+
+  /** @return the lowest numbered slot holding the given item, or -1 if none */
+  public int getFirstSlotHolding(Item item) {
+    return chestContents.getFirstSlotHolding(item);
+  }
+
+  /** @return 0.0 (all slots empty) -> 1.0 (all slots occupied) */
+  public float getFullness() {
+    return chestContents.getFullness();
+  }
+
   // ---------
 
   private ChestContents(int size) {
-    this.chestContents = new ItemStackHandler(size);
+    this.chestContents = new IncrementalNBTItemStackHandler(size);
   }
 
   private ChestContents(int size, Predicate<PlayerEntity> canPlayerAccessInventoryLambda, Notify markDirtyNotificationLambda) {
-    this.chestContents = new ItemStackHandler(size);
+    this.chestContents = new IncrementalNBTItemStackHandler(size);
     this.canPlayerAccessInventoryLambda = canPlayerAccessInventoryLambda;
     this.markDirtyNotificationLambda = markDirtyNotificationLambda;
   }
@@ -239,5 +281,5 @@ public class ChestContents implements IInventory {
   // default is "do nothing"
   private Notify closeInventoryNotificationLambda = ()->{};
 
-  private final ItemStackHandler chestContents;
+  private final IncrementalNBTItemStackHandler chestContents;
 }
@@ -1,15 +1,23 @@
 package minecraftbyexample.mbe30_inventory_basic;
 
+import minecraftbyexample.usefultools.SlotMergeIndex;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.container.ClickType;
 import net.minecraft.inventory.container.Container;
+import net.minecraft.inventory.container.IContainerListener;
 import net.minecraft.inventory.container.Slot;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.NonNullList;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.items.SlotItemHandler;
 import net.minecraftforge.items.wrapper.PlayerInvWrapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.List;
+
 /**
  * User: brandon3055
  * Date: 06/01/2015
@@ -107,8 +115,10 @@ public class ContainerBasic extends Container {
 		// Add the tile inventory container to the gui
 		for (int x = 0; x < TE_INVENTORY_SLOT_COUNT; x++) {
 			int slotNumber = x;
-			addSlot(new Slot(chestContents, slotNumber, TILE_INVENTORY_XPOS + SLOT_X_SPACING * x, TILE_INVENTORY_YPOS));
+			addSlot(new SlotChestContents(chestContents, slotNumber, TILE_INVENTORY_XPOS + SLOT_X_SPACING * x, TILE_INVENTORY_YPOS));
 		}
+
+		addListener(mergeIndexUpdater);  // keeps the shift-click merge indices up to date - see below
 	}
 
 	// Vanilla calls this method every tick to make sure the player is still able to access the inventory, and if not closes the gui
@@ -129,6 +139,8 @@ public class ContainerBasic extends Container {
 	}
 
 	// This is where you specify what happens when a player shift clicks a slot in the gui
+	//  We use a SlotMergeIndex for each group of slots instead of Container.mergeItemStack, so that we don't have to scan
+	//  every slot in the destination for each shift-click.
 	//  (when you shift click a slot in the TileEntity Inventory, it moves it to the first available position in the hotbar and/or
 	//    player inventory.  When you you shift-click a hotbar or player inventory item, it moves it to the first available
 	//    position in the TileEntity inventory)
@@ -146,12 +158,12 @@ public class ContainerBasic extends Container {
 		// Check if the slot clicked is one of the vanilla container slots
 		if (sourceSlotIndex >= VANILLA_FIRST_SLOT_INDEX && sourceSlotIndex < VANILLA_FIRST_SLOT_INDEX + VANILLA_SLOT_COUNT) {
 			// This is a vanilla container slot so merge the stack into the tile inventory
-			if (!mergeItemStack(sourceStack, TE_INVENTORY_FIRST_SLOT_INDEX, TE_INVENTORY_FIRST_SLOT_INDEX + TE_INVENTORY_SLOT_COUNT, false)){
+			if (!teInventoryMergeIndex.mergeItemStack(sourceStack, false)){
 				return ItemStack.EMPTY;  // EMPTY_ITEM
 			}
 		} else if (sourceSlotIndex >= TE_INVENTORY_FIRST_SLOT_INDEX && sourceSlotIndex < TE_INVENTORY_FIRST_SLOT_INDEX + TE_INVENTORY_SLOT_COUNT) {
 			// This is a TE slot so merge the stack into the players inventory
-			if (!mergeItemStack(sourceStack, VANILLA_FIRST_SLOT_INDEX, VANILLA_FIRST_SLOT_INDEX + VANILLA_SLOT_COUNT, false)) {
+			if (!vanillaMergeIndex.mergeItemStack(sourceStack, false)) {
 				return ItemStack.EMPTY;
 			}
 		} else {
@@ -165,11 +177,81 @@ public class ContainerBasic extends Container {
 		} else {
 			sourceSlot.onSlotChanged();
 		}
+		onSlotChangedUpdateMergeIndices(sourceSlotIndex);
 
 		sourceSlot.onTake(playerEntity, sourceStack);
 		return copyOfSourceStack;
 	}
 
+	// ------ keep the shift-click merge indices in step with the slots
+	//  The indices are updated by our own shift-click merges, and kept valid from one tick to the next:
+	//  1) on the server, vanilla's detectAndSendChanges() compares every slot with the copy it sent to the client last time, and
+	//     tells the container's listeners which slots have changed (eg normal clicks, or the tile entity changing its contents
+	//     during the tick).  mergeIndexUpdater listens for these changes and updates just those slots in the indices.
+	//  2) on the client, the server's slot updates arrive through putStackInSlot() and setAll().  Normal clicks on the client
+	//     aren't followed by detectAndSendChanges(), so they invalidate the indices, which are rebuilt on the next shift-click.
+
+	@Override
+	public ItemStack slotClick(int slotId, int dragType, ClickType clickType, PlayerEntity player) {
+		// QUICK_MOVE (shift-click) calls transferStackInSlot, which keeps the indices up to date itself
+		if (clickType != ClickType.QUICK_MOVE && player.world.isRemote) invalidateMergeIndices();
+		return super.slotClick(slotId, dragType, clickType, player);
+	}
+
+	@Override
+	public void putStackInSlot(int slotID, ItemStack stack) {
+		super.putStackInSlot(slotID, stack);
+		onSlotChangedUpdateMergeIndices(slotID);
+	}
+
+	@OnlyIn(Dist.CLIENT)
+	@Override
+	public void setAll(List<ItemStack> stacks) {
+		super.setAll(stacks);
+		invalidateMergeIndices();
+	}
+
+	private final IContainerListener mergeIndexUpdater = new IContainerListener() {
+		@Override
+		public void sendAllContents(Container container, NonNullList<ItemStack> itemsList) {
+			invalidateMergeIndices();
+		}
+
+		@Override
+		public void sendSlotContents(Container container, int slotIndex, ItemStack stack) {
+			onSlotChangedUpdateMergeIndices(slotIndex);
+		}
+
+		@Override
+		public void sendWindowProperty(Container container, int varToUpdate, int newValue) {
+		}
+	};
+
+	private void onSlotChangedUpdateMergeIndices(int slotIndex) {
+		vanillaMergeIndex.onSlotChanged(slotIndex);
+		teInventoryMergeIndex.onSlotChanged(slotIndex);
+	}
+
+	private void invalidateMergeIndices() {
+		vanillaMergeIndex.invalidate();
+		teInventoryMergeIndex.invalidate();
+	}
+
+	// SlotChestContents tells the ChestContents which slot has changed, so that it doesn't have to check all of them
+	private static class SlotChestContents extends Slot {
+		public SlotChestContents(ChestContents chestContents, int index, int xPosition, int yPosition) {
+			super(chestContents, index, xPosition, yPosition);
+			this.chestContents = chestContents;
+		}
+
+		@Override
+		public void onSlotChanged() {
+			chestContents.markSlotDirty(getSlotIndex());
+		}
+
+		private final ChestContents chestContents;
+	}
+
 	// pass the close container message to the parent inventory (not strictly needed for this example)
 	//  see ContainerChest and TileEntityChest - used to animate the lid when no players are accessing the chest any more
 	@Override
@@ -179,5 +261,9 @@ public class ContainerBasic extends Container {
 	}
 
 	private ChestContents chestContents;
+	private final SlotMergeIndex vanillaMergeIndex =
+					new SlotMergeIndex(inventorySlots, VANILLA_FIRST_SLOT_INDEX, VANILLA_FIRST_SLOT_INDEX + VANILLA_SLOT_COUNT);
+	private final SlotMergeIndex teInventoryMergeIndex =
+					new SlotMergeIndex(inventorySlots, TE_INVENTORY_FIRST_SLOT_INDEX, TE_INVENTORY_FIRST_SLOT_INDEX + TE_INVENTORY_SLOT_COUNT);
   private static final Logger LOGGER = LogManager.getLogger();
 }
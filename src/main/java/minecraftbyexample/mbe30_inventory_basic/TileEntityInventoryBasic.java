@@ -77,22 +77,30 @@ public class TileEntityInventoryBasic extends TileEntity implements INamedContai
   //  Your container may still appear to work even if you forget to implement these methods, because when you open the
   //    container using the GUI it takes the information from the server, but anything on the client
   //   side that looks inside the tileEntity (for example: to change the rendering) won't see anything.
+  //  The update packet is only sent to clients which already have the TileEntity, so it only needs to contain the slots
+  //    which have changed since the last update packet.  getUpdateTag() sends everything.
   @Override
   @Nullable
   public SUpdateTileEntityPacket getUpdatePacket()
   {
     CompoundNBT nbtTagCompound = new CompoundNBT();
-    write(nbtTagCompound);
-    int tileEntityType = 42;  // arbitrary number; only used for vanilla TileEntities.  You can use it, or not, as you want.
+    nbtTagCompound.put(CHESTCONTENTS_INVENTORY_TAG, chestContents.serializeChangedSlotsForUpdatePacket(world.getGameTime()));
+    int tileEntityType = DELTA_UPDATE_TILE_ENTITY_TYPE;  // arbitrary number; only used for vanilla TileEntities.  We use it to mark a delta update.
     return new SUpdateTileEntityPacket(this.pos, tileEntityType, nbtTagCompound);
   }
 
   @Override
   public void onDataPacket(NetworkManager net, SUpdateTileEntityPacket pkt) {
-    BlockState blockState = world.getBlockState(pos);
-    read(blockState, pkt.getNbtCompound());
+    if (pkt.getTileEntityType() == DELTA_UPDATE_TILE_ENTITY_TYPE) {
+      chestContents.deserializeChangedSlots(pkt.getNbtCompound().getCompound(CHESTCONTENTS_INVENTORY_TAG));
+    } else {
+      BlockState blockState = world.getBlockState(pos);
+      read(blockState, pkt.getNbtCompound());
+    }
   }
 
+  private static final int DELTA_UPDATE_TILE_ENTITY_TYPE = 43;
+
   /* Creates a tag containing all of the TileEntity information, used by vanilla to transmit from server to client
    */
   @Override
@@ -1,17 +1,25 @@
 package minecraftbyexample.mbe31_inventory_furnace;
 
+import minecraftbyexample.usefultools.SlotMergeIndex;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
-import net.minecraft.inventory.IInventory;
+import net.minecraft.inventory.container.ClickType;
 import net.minecraft.inventory.container.Slot;
 import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.IContainerListener;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.NonNullList;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * User: brandon3055
  * Date: 06/01/2015
@@ -145,6 +153,8 @@ public class ContainerFurnace extends Container {
 			int slotNumber = y;
 			addSlot(new SlotOutput(outputZoneContents, slotNumber, OUTPUT_SLOTS_XPOS, OUTPUT_SLOTS_YPOS + SLOT_Y_SPACING * y));
 		}
+
+		addListener(mergeIndexUpdater);  // keeps the shift-click merge indices up to date - see below
 	}
 
 	// Checks each tick to make sure the player is still able to access the inventory and if not closes the gui
@@ -222,6 +232,8 @@ public class ContainerFurnace extends Container {
 			sourceSlot.onSlotChanged();
 		}
 
+		onSlotChangedUpdateMergeIndices(sourceSlotIndex);
+
 		// if source stack is still the same as before the merge, the transfer failed somehow?  not expected.
     if (sourceItemStack.getCount() == sourceStackBeforeMerge.getCount()) {
       return ItemStack.EMPTY;
@@ -238,9 +250,69 @@ public class ContainerFurnace extends Container {
    * @return true if a successful transfer occurred
    */
 	private boolean mergeInto(SlotZone destinationZone, ItemStack sourceItemStack, boolean fillFromEnd) {
-	  return mergeItemStack(sourceItemStack, destinationZone.firstIndex, destinationZone.lastIndexPlus1, fillFromEnd);
+	  // the same as mergeItemStack(sourceItemStack, destinationZone.firstIndex, destinationZone.lastIndexPlus1, fillFromEnd)
+	  //   except that it only looks at the slots in the zone which can accept the item
+	  SlotMergeIndex mergeIndex =
+            mergeIndices.computeIfAbsent(destinationZone, zone -> new SlotMergeIndex(inventorySlots, zone.firstIndex, zone.lastIndexPlus1));
+	  return mergeIndex.mergeItemStack(sourceItemStack, fillFromEnd);
   }
 
+	// ------ keep the shift-click merge indices in step with the slots
+	//  The indices are updated by our own shift-click merges, and kept valid from one tick to the next:
+	//  1) on the server, vanilla's detectAndSendChanges() compares every slot with the copy it sent to the client last time, and
+	//     tells the container's listeners which slots have changed (eg normal clicks, or the tile entity changing its contents
+	//     during the tick).  mergeIndexUpdater listens for these changes and updates just those slots in the indices.
+	//  2) on the client, the server's slot updates arrive through putStackInSlot() and setAll().  Normal clicks on the client
+	//     aren't followed by detectAndSendChanges(), so they invalidate the indices, which are rebuilt on the next shift-click.
+
+	@Override
+	public ItemStack slotClick(int slotId, int dragType, ClickType clickType, PlayerEntity player) {
+		// QUICK_MOVE (shift-click) calls transferStackInSlot, which keeps the indices up to date itself
+		if (clickType != ClickType.QUICK_MOVE && player.world.isRemote) invalidateMergeIndices();
+		return super.slotClick(slotId, dragType, clickType, player);
+	}
+
+	@Override
+	public void putStackInSlot(int slotID, ItemStack stack) {
+		super.putStackInSlot(slotID, stack);
+		onSlotChangedUpdateMergeIndices(slotID);
+	}
+
+	@OnlyIn(Dist.CLIENT)
+	@Override
+	public void setAll(List<ItemStack> stacks) {
+		super.setAll(stacks);
+		invalidateMergeIndices();
+	}
+
+	private final IContainerListener mergeIndexUpdater = new IContainerListener() {
+		@Override
+		public void sendAllContents(Container container, NonNullList<ItemStack> itemsList) {
+			invalidateMergeIndices();
+		}
+
+		@Override
+		public void sendSlotContents(Container container, int slotIndex, ItemStack stack) {
+			onSlotChangedUpdateMergeIndices(slotIndex);
+		}
+
+		@Override
+		public void sendWindowProperty(Container container, int varToUpdate, int newValue) {
+		}
+	};
+
+	private void onSlotChangedUpdateMergeIndices(int slotIndex) {
+		for (SlotMergeIndex mergeIndex : mergeIndices.values()) {
+			mergeIndex.onSlotChanged(slotIndex);
+		}
+	}
+
+	private void invalidateMergeIndices() {
+		for (SlotMergeIndex mergeIndex : mergeIndices.values()) {
+			mergeIndex.invalidate();
+		}
+	}
+
   // -------- methods used by the ContainerScreen to render parts of the display
 
   /**
@@ -277,9 +349,24 @@ public class ContainerFurnace extends Container {
   // --------- Customise the different slots (in particular - what items they will accept)
 
 
+	// SlotFurnaceZone tells the FurnaceZoneContents which slot has changed, so that it doesn't have to check all of them
+	public static class SlotFurnaceZone extends Slot {
+		public SlotFurnaceZone(FurnaceZoneContents zoneContents, int index, int xPosition, int yPosition) {
+			super(zoneContents, index, xPosition, yPosition);
+			this.zoneContents = zoneContents;
+		}
+
+		@Override
+		public void onSlotChanged() {
+			zoneContents.markSlotDirty(getSlotIndex());
+		}
+
+		private final FurnaceZoneContents zoneContents;
+	}
+
 	// SlotFuel is a slot for fuel items
-	public class SlotFuel extends Slot {
-		public SlotFuel(IInventory inventoryIn, int index, int xPosition, int yPosition) {
+	public class SlotFuel extends SlotFurnaceZone {
+		public SlotFuel(FurnaceZoneContents inventoryIn, int index, int xPosition, int yPosition) {
 			super(inventoryIn, index, xPosition, yPosition);
 		}
 
@@ -291,8 +378,8 @@ public class ContainerFurnace extends Container {
 	}
 
 	// SlotSmeltableInput is a slot for input item
-	public class SlotSmeltableInput extends Slot {
-		public SlotSmeltableInput(IInventory inventoryIn, int index, int xPosition, int yPosition) {
+	public class SlotSmeltableInput extends SlotFurnaceZone {
+		public SlotSmeltableInput(FurnaceZoneContents inventoryIn, int index, int xPosition, int yPosition) {
 			super(inventoryIn, index, xPosition, yPosition);
 		}
 
@@ -304,8 +391,8 @@ public class ContainerFurnace extends Container {
 	}
 
 	// SlotOutput is a slot that will not accept any item
-	public class SlotOutput extends Slot {
-		public SlotOutput(IInventory inventoryIn, int index, int xPosition, int yPosition) {
+	public class SlotOutput extends SlotFurnaceZone {
+		public SlotOutput(FurnaceZoneContents inventoryIn, int index, int xPosition, int yPosition) {
 			super(inventoryIn, index, xPosition, yPosition);
 		}
 
@@ -322,6 +409,7 @@ public class ContainerFurnace extends Container {
   private FurnaceStateData furnaceStateData;
 
   private World world; //needed for some helper methods
+  private final Map<SlotZone, SlotMergeIndex> mergeIndices = new EnumMap<>(SlotZone.class);  // created the first time each zone is merged into
   private static final Logger LOGGER = LogManager.getLogger();
 
   /**
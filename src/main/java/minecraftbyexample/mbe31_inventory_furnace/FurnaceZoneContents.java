@@ -1,10 +1,11 @@
 package minecraftbyexample.mbe31_inventory_furnace;
 
+import minecraftbyexample.usefultools.IncrementalNBTItemStackHandler;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.IInventory;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraftforge.items.ItemStackHandler;
 
 import java.util.function.Predicate;
 
@@ -67,7 +68,7 @@ public class FurnaceZoneContents implements IInventory {
    * @return the tag containing the contents
    */
   public CompoundNBT serializeNBT()  {
-    return furnaceComponentContents.serializeNBT();
+    return furnaceComponentContents.serializeNBT();  // only the slots which have changed since the last call are re-encoded
   }
 
   /**
@@ -78,6 +79,24 @@ public class FurnaceZoneContents implements IInventory {
     furnaceComponentContents.deserializeNBT(nbt);
   }
 
+  /**
+   * Writes only the slots which have changed since the last update packet - see
+   *   IncrementalNBTItemStackHandler.serializeChangedSlotsForUpdatePacket
+   * @param gameTime the current world.getGameTime()
+   * @return the tag containing the changed slots
+   */
+  public CompoundNBT serializeChangedSlotsForUpdatePacket(long gameTime) {
+    return furnaceComponentContents.serializeChangedSlotsForUpdatePacket(gameTime);
+  }
+
+  /**
+   * Applies the changed slots written by serializeChangedSlotsForUpdatePacket()
+   * @param nbt
+   */
+  public void deserializeChangedSlots(CompoundNBT nbt) {
+    furnaceComponentContents.deserializeChangedSlots(nbt);
+  }
+
   //  ------------- linking methods  -------------
   //  The following group of methods are used to establish a link between the parent TileEntity and the chest contents,
   //    so that the container can communicate with the parent TileEntity without having to talk to it directly.
@@ -146,6 +165,16 @@ public class FurnaceZoneContents implements IInventory {
 
   @Override
   public void markDirty() {
+    furnaceComponentContents.onStacksChangedInPlace();  // the stacks may have been changed in place, bypassing the ItemStackHandler
+    markDirtyNotificationLambda.invoke();
+  }
+
+  /**
+   * The same as markDirty(), for when you know which slot has changed: only that slot needs to be checked for changes.
+   * Our container's slots call this instead of markDirty() - see Slot.onSlotChanged()
+   */
+  public void markSlotDirty(int index) {
+    furnaceComponentContents.onStackChangedInPlace(index);  // the container may have changed the stack in place, bypassing the ItemStackHandler
     markDirtyNotificationLambda.invoke();
   }
 
@@ -168,10 +197,7 @@ public class FurnaceZoneContents implements IInventory {
 
   @Override
   public boolean isEmpty() {
-    for (int i = 0; i < furnaceComponentContents.getSlots(); ++i) {
-      if (!furnaceComponentContents.getStackInSlot(i).isEmpty()) return false;
-    }
-    return true;
+    return furnaceComponentContents.isEmpty();  // the handler keeps track of the occupied slots, so we don't need to check each one
   }
 
   @Override
@@ -229,14 +255,31 @@ public class FurnaceZoneContents implements IInventory {
     return leftoverItemStack.isEmpty();
   }
 
+  //--------- queries which are cheap because the occupied slots are tracked
+
+  /** @return the lowest numbered empty slot, or -1 if none */
+  public int getFirstEmptySlot() {
+    return furnaceComponentContents.getFirstEmptySlot();
+  }
+
+  /** @return the lowest numbered slot holding the given item, or -1 if none */
+  public int getFirstSlotHolding(Item item) {
+    return furnaceComponentContents.getFirstSlotHolding(item);
+  }
+
+  /** @return 0.0 (all slots empty) -> 1.0 (all slots occupied) */
+  public float getFullness() {
+    return furnaceComponentContents.getFullness();
+  }
+
   // ---------
 
   private FurnaceZoneContents(int size) {
-    this.furnaceComponentContents = new ItemStackHandler(size);
+    this.furnaceComponentContents = new IncrementalNBTItemStackHandler(size);
   }
 
   private FurnaceZoneContents(int size, Predicate<PlayerEntity> canPlayerAccessInventoryLambda, Notify markDirtyNotificationLambda) {
-    this.furnaceComponentContents = new ItemStackHandler(size);
+    this.furnaceComponentContents = new IncrementalNBTItemStackHandler(size);
     this.canPlayerAccessInventoryLambda = canPlayerAccessInventoryLambda;
     this.markDirtyNotificationLambda = markDirtyNotificationLambda;
   }
@@ -261,5 +304,5 @@ public class FurnaceZoneContents implements IInventory {
   // default is "do nothing"
   private Notify closeInventoryNotificationLambda = ()->{};
 
-  private final ItemStackHandler furnaceComponentContents;
+  private final IncrementalNBTItemStackHandler furnaceComponentContents;
 }
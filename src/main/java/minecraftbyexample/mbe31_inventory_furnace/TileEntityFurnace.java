@@ -1,7 +1,9 @@
 package minecraftbyexample.mbe31_inventory_furnace;
 
 import minecraftbyexample.mbe30_inventory_basic.ContainerBasic;
+import minecraftbyexample.mbe70_configuration.MBETunables;
 import minecraftbyexample.usefultools.SetBlockStateFlag;
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.block.AbstractFurnaceBlock;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.renderer.texture.ITickable;
@@ -73,14 +75,15 @@ public class TileEntityFurnace extends TileEntity implements INamedContainerProv
 
   // Return true if the given player is able to use this block. In this case it checks that
   // 1) the world tileentity hasn't been replaced in the meantime, and
-  // 2) the player isn't too far away from the centre of the block
+  // 2) the player isn't too far away from the centre of the block (furnace.maxPlayerDistance in the config file)
   public boolean canPlayerAccessInventory(PlayerEntity player) {
     if (this.world.getTileEntity(this.pos) != this) return false;
     final double X_CENTRE_OFFSET = 0.5;
     final double Y_CENTRE_OFFSET = 0.5;
     final double Z_CENTRE_OFFSET = 0.5;
-    final double MAXIMUM_DISTANCE_SQ = 8.0 * 8.0;
-    return player.getDistanceSq(pos.getX() + X_CENTRE_OFFSET, pos.getY() + Y_CENTRE_OFFSET, pos.getZ() + Z_CENTRE_OFFSET) < MAXIMUM_DISTANCE_SQ;
+    double maximumDistance = MBETunables.get().furnaceMaxPlayerDistance;
+    return player.getDistanceSq(pos.getX() + X_CENTRE_OFFSET, pos.getY() + Y_CENTRE_OFFSET, pos.getZ() + Z_CENTRE_OFFSET)
+            < maximumDistance * maximumDistance;
   }
 
 	/**
@@ -102,6 +105,17 @@ public class TileEntityFurnace extends TileEntity implements INamedContainerProv
 	// It runs both on the server and the client but we only need to do updates on the server side.
 	@Override
 	public void tick() {
+		long profileStartTime = TICK_PROFILE.start();
+		try {
+			doTick();
+		} finally {
+			TICK_PROFILE.stop(profileStartTime);
+		}
+	}
+
+	private static final TickProfiler.Section TICK_PROFILE = TickProfiler.section(TileEntityFurnace.class, "tick");
+
+	private void doTick() {
 	  if (world.isRemote) return; // do nothing on client.
     ItemStack currentlySmeltingItem = getCurrentlySmeltingInputItem();
 
@@ -368,20 +382,35 @@ public class TileEntityFurnace extends TileEntity implements INamedContainerProv
 
 //	// When the world loads from disk, the server needs to send the TileEntity information to the client
 //	//  it uses getUpdatePacket(), getUpdateTag(), onDataPacket(), and handleUpdateTag() to do this
+//  The update packet is only sent to clients which already have the TileEntity (they received it with the chunk, using
+//    getUpdateTag), so it only needs to contain the slots which have changed since the last update packet.
+  private static final int DELTA_UPDATE_METADATA = 43; // arbitrary; just needs to be different from any other packets we send
+
   @Override
   @Nullable
   public SUpdateTileEntityPacket getUpdatePacket()
   {
-    CompoundNBT updateTagDescribingTileEntityState = getUpdateTag();
-    final int METADATA = 42; // arbitrary.
-    return new SUpdateTileEntityPacket(this.pos, METADATA, updateTagDescribingTileEntityState);
+    CompoundNBT deltaNBT = new CompoundNBT();
+    furnaceStateData.putIntoNBT(deltaNBT);
+    long gameTime = world.getGameTime();
+    deltaNBT.put(FUEL_SLOTS_NBT, fuelZoneContents.serializeChangedSlotsForUpdatePacket(gameTime));
+    deltaNBT.put(INPUT_SLOTS_NBT, inputZoneContents.serializeChangedSlotsForUpdatePacket(gameTime));
+    deltaNBT.put(OUTPUT_SLOTS_NBT, outputZoneContents.serializeChangedSlotsForUpdatePacket(gameTime));
+    return new SUpdateTileEntityPacket(this.pos, DELTA_UPDATE_METADATA, deltaNBT);
   }
 
   @Override
   public void onDataPacket(NetworkManager net, SUpdateTileEntityPacket pkt) {
     CompoundNBT updateTagDescribingTileEntityState = pkt.getNbtCompound();
-    BlockState blockState = world.getBlockState(pos);
-    handleUpdateTag(blockState, updateTagDescribingTileEntityState);
+    if (pkt.getTileEntityType() != DELTA_UPDATE_METADATA) {  // not one of ours - treat it as a full update
+      BlockState blockState = world.getBlockState(pos);
+      handleUpdateTag(blockState, updateTagDescribingTileEntityState);
+      return;
+    }
+    furnaceStateData.readFromNBT(updateTagDescribingTileEntityState);
+    fuelZoneContents.deserializeChangedSlots(updateTagDescribingTileEntityState.getCompound(FUEL_SLOTS_NBT));
+    inputZoneContents.deserializeChangedSlots(updateTagDescribingTileEntityState.getCompound(INPUT_SLOTS_NBT));
+    outputZoneContents.deserializeChangedSlots(updateTagDescribingTileEntityState.getCompound(OUTPUT_SLOTS_NBT));
   }
 
   /* Creates a tag containing the TileEntity information, used by vanilla to transmit from server to client
@@ -149,7 +149,7 @@ public class ContainerFlowerBag extends Container {
       int bagCol = bagSlot % BAG_SLOTS_PER_ROW;
       int xpos = BAG_INVENTORY_XPOS + SLOT_X_SPACING * bagCol;
       int ypos = BAG_INVENTORY_YPOS + SLOT_Y_SPACING * bagRow;
-      addSlot(new SlotItemHandler(itemStackHandlerFlowerBag, slotNumber, xpos, ypos));
+      addSlot(new SlotFlowerBag(itemStackHandlerFlowerBag, slotNumber, xpos, ypos));
     }
 	}
 
@@ -231,6 +231,22 @@ public class ContainerFlowerBag extends Container {
     super.detectAndSendChanges();
   }
 
+  // SlotFlowerBag tells the bag which slot has changed, because vanilla slotClick sometimes grows or shrinks the stacks in place
+  //  (the Slot.onSlotChanged of a plain SlotItemHandler does nothing)
+  private static class SlotFlowerBag extends SlotItemHandler {
+    public SlotFlowerBag(ItemStackHandlerFlowerBag itemStackHandlerFlowerBag, int index, int xPosition, int yPosition) {
+      super(itemStackHandlerFlowerBag, index, xPosition, yPosition);
+      this.itemStackHandlerFlowerBag = itemStackHandlerFlowerBag;
+    }
+
+    @Override
+    public void onSlotChanged() {
+      itemStackHandlerFlowerBag.onStackChangedInPlace(getSlotIndex());
+    }
+
+    private final ItemStackHandlerFlowerBag itemStackHandlerFlowerBag;
+  }
+
   private static final Logger LOGGER = LogManager.getLogger();
 
 }
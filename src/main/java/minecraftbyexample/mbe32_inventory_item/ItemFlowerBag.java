@@ -223,6 +223,7 @@ public class ItemFlowerBag extends Item {
   public CompoundNBT getShareTag(ItemStack stack) {
     CompoundNBT baseTag = stack.getTag();
     ItemStackHandlerFlowerBag itemStackHandlerFlowerBag = getItemStackHandlerFlowerBag(stack);
+    // The whole bag is still sent every time; serializeNBT just avoids re-encoding the slots which haven't changed
     CompoundNBT capabilityTag = itemStackHandlerFlowerBag.serializeNBT();
     CompoundNBT combinedTag = new CompoundNBT();
     if (baseTag != null) {
@@ -264,8 +265,7 @@ public class ItemFlowerBag extends Item {
    */
   public static float getFullnessPropertyOverride(ItemStack itemStack, @Nullable World world, @Nullable LivingEntity livingEntity) {
     ItemStackHandlerFlowerBag flowerBag = getItemStackHandlerFlowerBag(itemStack);
-    float fractionEmpty = flowerBag.getNumberOfEmptySlots() / (float)flowerBag.getSlots();
-    return 1.0F - fractionEmpty;
+    return flowerBag.getFullness();
   }
 
   private static final Logger LOGGER = LogManager.getLogger();
@@ -1,11 +1,11 @@
 package minecraftbyexample.mbe32_inventory_item;
 
+import minecraftbyexample.usefultools.IncrementalNBTItemStackHandler;
 import net.minecraft.block.Block;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tags.ItemTags;
 import net.minecraft.util.math.MathHelper;
-import net.minecraftforge.items.ItemStackHandler;
 
 import javax.annotation.Nonnull;
 import java.util.Optional;
@@ -14,9 +14,12 @@ import java.util.Optional;
  * Created by TGG on 7/06/2020.
  *
  * Used to store Flower ItemStacks.  Will only accept SMALL_FLOWERS and TALL_FLOWERS
+ * Keeps track of which slots are occupied, because the number of empty slots is queried every time the bag is rendered, and
+ *   which slots have changed, because the contents are serialised every time the bag is sent to the client (see
+ *   IncrementalNBTItemStackHandler and ItemFlowerBag.getShareTag)
  *
  */
-public class ItemStackHandlerFlowerBag extends ItemStackHandler {
+public class ItemStackHandlerFlowerBag extends IncrementalNBTItemStackHandler {
 
   public static final int MIN_FLOWER_SLOTS = 1;
   public static final int MAX_FLOWER_SLOTS = 16;
@@ -39,21 +42,6 @@ public class ItemStackHandlerFlowerBag extends ItemStackHandler {
     return false;
   }
 
-  /**Count how many empty slots are in the bag
-   * @return the number of empty slots
-   */
-  public int getNumberOfEmptySlots() {
-    final int NUMBER_OF_SLOTS = getSlots();
-
-    int emptySlotCount = 0;
-    for (int i = 0; i < NUMBER_OF_SLOTS; ++i) {
-      if (getStackInSlot(i) == ItemStack.EMPTY) {
-        ++emptySlotCount;
-      }
-    }
-    return emptySlotCount;
-  }
-
   /** returns true if the contents have changed since the last call.
    * Resets to false after each call.
    * @return true if changed since the last call
@@ -64,13 +52,15 @@ public class ItemStackHandlerFlowerBag extends ItemStackHandler {
     return currentState;
   }
 
-  /** Called whenever the contents of the bag have changed.
+  /** Called whenever the contents of the bag have changed (including stacks changed in place - see onStackChangedInPlace).
    *   We need to do this manually in order to make sure that the server sends a synchronisation packet to the client for the parent ItemStack
    *   The reason is because capability information is not stored in the ItemStack nbt tag, so vanilla does not notice when
    *   the flowerbag's capability has changed.
    * @param slot
    */
+  @Override
   protected void onContentsChanged(int slot) {
+    super.onContentsChanged(slot);  // keep the occupied slots up to date
     // A problem - the ItemStack and the ItemStackHandler don't know which player is holding the flower bag.  Or in fact whether
     //   the bag is being held by any player at all.
     // We have a few choices -
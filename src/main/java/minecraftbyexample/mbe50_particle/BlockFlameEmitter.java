@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe50_particle;
 
+import minecraftbyexample.mbe70_configuration.MBETunables;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.material.Material;
@@ -94,7 +95,7 @@ public class BlockFlameEmitter extends Block
       final double PERCENT_CHANCE_OF_LAVA_SPAWN = 10;  // only spawn Lava particles occasionally (visually distracting if too many)
 
       if (rand.nextDouble() < PERCENT_CHANCE_OF_LAVA_SPAWN / 100.0) {
-        worldIn.addParticle(ParticleTypes.LAVA, IGNORE_RANGE_CHECK,
+        ParticleBudget.addParticle(worldIn, ParticleBudget.Priority.LOW, ParticleTypes.LAVA, IGNORE_RANGE_CHECK,
                 xpos, ypos, zpos, velocityX, velocityY, velocityZ);
       }
 
@@ -142,8 +143,9 @@ public class BlockFlameEmitter extends Block
       Color tint = getTint(pos);
       double diameter = getDiameter(pos);
 
+      // the particles go through the ParticleBudget so that a room full of flame emitters doesn't drop the frame rate
       FlameParticleData flameParticleData = new FlameParticleData(tint, diameter);
-      worldIn.addParticle(flameParticleData, IGNORE_RANGE_CHECK,
+      ParticleBudget.addParticle(worldIn, ParticleBudget.Priority.NORMAL, flameParticleData, IGNORE_RANGE_CHECK,
               xpos, ypos, zpos, velocityX, velocityY, velocityZ);
     }
   }
@@ -184,7 +186,7 @@ public class BlockFlameEmitter extends Block
    * @return the nearest mob, or null if none within range.
    */
   private MonsterEntity getNearestTargetableMob(World world, double xpos, double ypos, double zpos) {
-    final double TARGETING_DISTANCE = 16;
+    final double TARGETING_DISTANCE = MBETunables.get().flameEmitterTargetingDistance;  // can be changed in the config file
     AxisAlignedBB targetRange = new AxisAlignedBB(xpos - TARGETING_DISTANCE,
                                                   ypos,
                                                   zpos - TARGETING_DISTANCE,
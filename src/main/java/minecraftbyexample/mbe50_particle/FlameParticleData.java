@@ -4,6 +4,7 @@ import com.mojang.brigadier.StringReader;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import minecraftbyexample.usefultools.PacketCodecs;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.particles.IParticleData;
 import net.minecraft.particles.ParticleType;
@@ -51,12 +52,11 @@ public class FlameParticleData implements IParticleData {
   }
 
   // write the particle information to a PacketBuffer, ready for transmission to a client
+  // The colour is packed into three bytes and the diameter is quantised into two bytes (instead of three ints and a double)
   @Override
   public void write(PacketBuffer buf) {
-    buf.writeInt(tint.getRed());
-    buf.writeInt(tint.getGreen());
-    buf.writeInt(tint.getBlue());
-    buf.writeDouble(diameter);
+    PacketCodecs.writeRGB(buf, tint);
+    PacketCodecs.writeQuantisedDouble(buf, diameter, MIN_DIAMETER, MAX_DIAMETER);
   }
 
   // used for debugging I think; prints the data in human-readable format
@@ -67,9 +67,10 @@ public class FlameParticleData implements IParticleData {
             this.getType().getRegistryName(), diameter, tint.getRed(), tint.getGreen(), tint.getBlue());
   }
 
+  private static final double MIN_DIAMETER = 0.05;
+  private static final double MAX_DIAMETER = 1.0;
+
   private static double constrainDiameterToValidRange(double diameter) {
-    final double MIN_DIAMETER = 0.05;
-    final double MAX_DIAMETER = 1.0;
     return MathHelper.clamp(diameter, MIN_DIAMETER, MAX_DIAMETER);
   }
 
@@ -126,15 +127,10 @@ public class FlameParticleData implements IParticleData {
     @Override
     public FlameParticleData read(@Nonnull ParticleType<FlameParticleData> type, PacketBuffer buf) {
       // warning! never trust the data read in from a packet buffer.
+      // (in this case, the colour can only be 0 - 255 and the diameter is always within the valid range)
 
-      final int MIN_COLOUR = 0;
-      final int MAX_COLOUR = 255;
-      int red = MathHelper.clamp(buf.readInt(), MIN_COLOUR, MAX_COLOUR);
-      int green = MathHelper.clamp(buf.readInt(), MIN_COLOUR, MAX_COLOUR);
-      int blue = MathHelper.clamp(buf.readInt(), MIN_COLOUR, MAX_COLOUR);
-      Color color = new Color(red, green, blue);
-
-      double diameter = constrainDiameterToValidRange(buf.readDouble());
+      Color color = PacketCodecs.readRGB(buf);
+      double diameter = constrainDiameterToValidRange(PacketCodecs.readQuantisedDouble(buf, MIN_DIAMETER, MAX_DIAMETER));
 
       return new FlameParticleData(color, diameter);
     }
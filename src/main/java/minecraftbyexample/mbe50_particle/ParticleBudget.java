@@ -0,0 +1,154 @@
+package minecraftbyexample.mbe50_particle;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import minecraftbyexample.mbe70_configuration.MBETunables;
+import net.minecraft.particles.IParticleData;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+
+/**
+ * Client-side budget for the particles spawned by the MBE examples.
+ * If a lot of effects happen at once (eg a dozen airstrikes, or a room full of flame emitters), the client can easily
+ *   spawn thousands of particles in a single frame, which causes the frame rate to stutter on slow machines.
+ *
+ * Instead of calling world.addParticle() directly, the examples call ParticleBudget.addParticle() with a priority:
+ * 1) Each frame has a maximum number of particles, and each chunk has a (smaller) maximum number of particles per frame.
+ *    These can be changed in the config file (see mbe70_configuration).
+ * 2) Each priority is only allowed to use a fraction of the frame budget: LOW priority effects are the first to be
+ *    dropped, HIGH priority effects are only dropped once the entire budget is used up.
+ * 3) Particles which are far away from the camera are demoted by one priority level, because the player is less likely
+ *    to notice them.
+ * 4) Once a priority has used up half of its share of the budget, its particles are "thinned" (only every second one is
+ *    spawned) so that the effect still appears, just less dense.
+ *
+ * The number of spawned and suppressed particles is counted so that the effect of the budget can be checked.
+ *
+ * The budget is reset every frame by ParticleBudgetFrameUpdater (client only), which also supplies the camera position.
+ * It is safe to call addParticle() from common code; on the server side it passes straight through to the world.
+ *   This class must not refer to any client-only classes (eg Minecraft), otherwise it will crash a dedicated server.
+ */
+public class ParticleBudget {
+
+  public enum Priority {
+    LOW(0.5), NORMAL(0.75), HIGH(1.0);
+
+    /** the fraction of the per-frame budget which this priority is allowed to use */
+    public double getBudgetFraction() {return budgetFraction;}
+
+    public Priority demote() {
+      return (this == LOW) ? LOW : values()[ordinal() - 1];
+    }
+
+    Priority(double budgetFraction) {
+      this.budgetFraction = budgetFraction;
+    }
+    private final double budgetFraction;
+  }
+
+  /**
+   * Spawn a particle, if the budget allows it.
+   * The parameters are the same as World.addParticle, plus the priority of the effect
+   * @return true if the particle was spawned, false if it was suppressed
+   */
+  public static boolean addParticle(World world, Priority priority, IParticleData particleData, boolean ignoreRange,
+                                    double x, double y, double z, double xSpeed, double ySpeed, double zSpeed) {
+    if (!world.isRemote) {  // does nothing on the server anyway, but just in case
+      world.addParticle(particleData, ignoreRange, x, y, z, xSpeed, ySpeed, zSpeed);
+      return true;
+    }
+    if (!tryAcquire(priority, x, y, z)) return false;
+    world.addParticle(particleData, ignoreRange, x, y, z, xSpeed, ySpeed, zSpeed);
+    return true;
+  }
+
+  public static boolean addParticle(World world, Priority priority, IParticleData particleData,
+                                    double x, double y, double z, double xSpeed, double ySpeed, double zSpeed) {
+    return addParticle(world, priority, particleData, false, x, y, z, xSpeed, ySpeed, zSpeed);
+  }
+
+  /**
+   * Check whether a particle at the given location is within budget, and if so, count it as spawned
+   * Useful if you want to spawn a particle some other way (eg ParticleManager.addEffect)
+   * @return true if the caller should spawn the particle; false if it should be suppressed
+   */
+  public static boolean tryAcquire(Priority priority, double x, double y, double z) {
+    MBETunables.Snapshot tunables = MBETunables.get();
+    Priority effectivePriority = priority;
+    // particles far from the camera are demoted one priority level
+    double demotionDistance = tunables.particleDemotionDistance;
+    if (cameraPosition != null
+        && cameraPosition.squareDistanceTo(x, y, z) > demotionDistance * demotionDistance) {
+      effectivePriority = priority.demote();
+    }
+
+    int priorityBudget = (int)(tunables.maxParticlesPerFrame * effectivePriority.getBudgetFraction());
+    if (particlesThisFrame >= priorityBudget) {
+      return suppress(priority);
+    }
+
+    if (particlesThisFrame >= priorityBudget / 2) {  // thin out the effect once we're past half the budget
+      ++thinningCounter;
+      if ((thinningCounter & 1) != 0) return suppress(priority);
+    }
+
+    long chunkKey = ChunkPos.asLong((int)Math.floor(x) >> 4, (int)Math.floor(z) >> 4);
+    int particlesInChunk = particlesPerChunkThisFrame.get(chunkKey);
+    if (particlesInChunk >= tunables.maxParticlesPerChunkPerFrame) {
+      return suppress(priority);
+    }
+
+    particlesPerChunkThisFrame.put(chunkKey, particlesInChunk + 1);
+    ++particlesThisFrame;
+    ++spawnedCount[priority.ordinal()];
+    return true;
+  }
+
+  public static long getSpawnedCount(Priority priority) {return spawnedCount[priority.ordinal()];}
+  public static long getSuppressedCount(Priority priority) {return suppressedCount[priority.ordinal()];}
+
+  public static long getTotalSpawnedCount() {
+    long total = 0;
+    for (long count : spawnedCount) total += count;
+    return total;
+  }
+
+  public static long getTotalSuppressedCount() {
+    long total = 0;
+    for (long count : suppressedCount) total += count;
+    return total;
+  }
+
+  public static void resetCounters() {
+    for (Priority priority : Priority.values()) {
+      spawnedCount[priority.ordinal()] = 0;
+      suppressedCount[priority.ordinal()] = 0;
+    }
+  }
+
+  /**
+   * Reset the budget for a new frame.  Called on the client by ParticleBudgetFrameUpdater
+   * @param newCameraPosition the position of the camera this frame, or null if there isn't one
+   */
+  public static void startFrame(@Nullable Vector3d newCameraPosition) {
+    cameraPosition = newCameraPosition;
+    particlesThisFrame = 0;
+    thinningCounter = 0;
+    if (!particlesPerChunkThisFrame.isEmpty()) particlesPerChunkThisFrame.clear();
+  }
+
+  private static boolean suppress(Priority priority) {
+    ++suppressedCount[priority.ordinal()];
+    return false;
+  }
+
+  private static @Nullable Vector3d cameraPosition = null;
+  private static int particlesThisFrame = 0;
+  private static int thinningCounter = 0;
+  private static final Long2IntOpenHashMap particlesPerChunkThisFrame = new Long2IntOpenHashMap();
+
+  private static final long [] spawnedCount = new long[Priority.values().length];
+  private static final long [] suppressedCount = new long[Priority.values().length];
+}
@@ -0,0 +1,29 @@
+package minecraftbyexample.mbe50_particle;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.ActiveRenderInfo;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+import javax.annotation.Nullable;
+
+/**
+ * Resets the ParticleBudget at the start of every frame, and tells it where the camera is.
+ * This is kept separate from ParticleBudget because ParticleBudget is called from common code, and this class uses
+ *   client-only classes.
+ * Must be registered on the MinecraftForge.EVENT_BUS on the client side only.
+ */
+public class ParticleBudgetFrameUpdater {
+  @SubscribeEvent
+  public static void onRenderTick(TickEvent.RenderTickEvent event) {
+    if (event.phase != TickEvent.Phase.START) return;
+    ParticleBudget.startFrame(getCameraPosition());
+  }
+
+  private static @Nullable Vector3d getCameraPosition() {
+    ActiveRenderInfo activeRenderInfo = Minecraft.getInstance().gameRenderer.getActiveRenderInfo();
+    if (activeRenderInfo == null || !activeRenderInfo.isValid()) return null;
+    return activeRenderInfo.getProjectedView();
+  }
+}
@@ -4,6 +4,7 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.RenderTypeLookup;
 import net.minecraftforge.client.event.ParticleFactoryRegisterEvent;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 
@@ -23,6 +24,7 @@ public class StartupClientOnly
   @SubscribeEvent
   public static void onClientSetupEvent(FMLClientSetupEvent event) {
     RenderTypeLookup.setRenderLayer(StartupCommon.blockFlameEmitter, RenderType.getSolid());
+    MinecraftForge.EVENT_BUS.register(ParticleBudgetFrameUpdater.class);  // resets the particle budget every frame
   }
 
   // Register the factory that will spawn our Particle from ParticleData
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe60_network_messages;
 
+import minecraftbyexample.usefultools.PacketCodecs;
 import net.minecraft.entity.EntityType;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.math.vector.Vector3d;
@@ -62,10 +63,7 @@ public class AirstrikeMessageToServer
     AirstrikeMessageToServer retval = new AirstrikeMessageToServer();
     try {
       retval.projectile = Projectile.fromPacketBuffer(buf);
-      double x = buf.readDouble();
-      double y = buf.readDouble();
-      double z = buf.readDouble();
-      retval.targetCoordinates = new Vector3d(x, y, z);
+      retval.targetCoordinates = PacketCodecs.readQuantisedPosition(buf);
 
       // these methods may also be of use for your code:
       // for Itemstacks - ByteBufUtils.readItemStack()
@@ -89,9 +87,7 @@ public class AirstrikeMessageToServer
   {
     if (!messageIsValid) return;
     projectile.toPacketBuffer(buf);
-    buf.writeDouble(targetCoordinates.x);
-    buf.writeDouble(targetCoordinates.y);
-    buf.writeDouble(targetCoordinates.z);
+    PacketCodecs.writeQuantisedPosition(buf, targetCoordinates);  // about 11 bytes instead of 24 for three doubles
 
     // these methods may also be of use for your code:
     // for Itemstacks - ByteBufUtils.writeItemStack()
@@ -100,26 +96,28 @@ public class AirstrikeMessageToServer
     // NB that PacketBuffer is a derived class of ByteBuf
   }
 
+  // The codec used by StartupCommon to register this message
+  public static final MessageCodec<AirstrikeMessageToServer> CODEC =
+          MessageCodec.of(AirstrikeMessageToServer::encode, AirstrikeMessageToServer::decode);
+
+  // The projectile is sent as its ordinal packed into a single byte.  If you change the order of the values, you should
+  //   also change the MESSAGE_PROTOCOL_VERSION, so that old clients aren't accepted by the server
   public enum Projectile {
-    PIG(1, "PIG", EntityType.PIG),
-    SNOWBALL(2, "SNOWBALL", EntityType.SNOWBALL),
-    TNT(3, "TNT", EntityType.TNT),
-    SNOWMAN(4, "SNOWMAN", EntityType.SNOW_GOLEM),
-    EGG(5, "EGG", EntityType.EGG),
-    FIREBALL(6, "FIREBALL", EntityType.FIREBALL);
+    PIG("PIG", EntityType.PIG),
+    SNOWBALL("SNOWBALL", EntityType.SNOWBALL),
+    TNT("TNT", EntityType.TNT),
+    SNOWMAN("SNOWMAN", EntityType.SNOW_GOLEM),
+    EGG("EGG", EntityType.EGG),
+    FIREBALL("FIREBALL", EntityType.FIREBALL);
 
     public void toPacketBuffer(PacketBuffer buffer) {
-      buffer.writeByte(projectileID);
+      PacketCodecs.writeEnumOrdinal(buffer, this);
     }
 
     public EntityType getEntityType() {return entityType;}
 
     public static Projectile fromPacketBuffer(PacketBuffer buffer) throws IllegalArgumentException {
-      byte ID = buffer.readByte();
-      for (Projectile projectile : Projectile.values()) {
-        if (ID == projectile.projectileID) return projectile;
-      }
-      throw new IllegalArgumentException("Unrecognised Projectile ID:" + ID);
+      return PacketCodecs.readEnumOrdinal(buffer, Projectile.values());
     }
 
     public static Projectile getRandom() {
@@ -131,13 +129,11 @@ public class AirstrikeMessageToServer
     @Override
     public String toString() {return name;}
 
-    private Projectile(int i_projectileID, String i_name, EntityType i_entityType) {
-      projectileID = (byte)i_projectileID;
+    private Projectile(String i_name, EntityType i_entityType) {
       name = i_name;
       entityType = i_entityType;
     }
 
-    private final byte projectileID;
     private final String name;
     private final EntityType entityType;
   }
@@ -0,0 +1,151 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import minecraftbyexample.mbe70_configuration.MBETunables;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Protects the server against clients which send a flood of AirstrikeMessageToServer (eg from a macro):
+ * 1) Each player has a token bucket: every message uses up one token, and the tokens are refilled at a steady rate up to
+ *    a maximum (airstrike.airstrikesPerSecond and airstrike.burstSize in the config file).  If the bucket is empty, the
+ *    message is dropped.  This check is made on the network thread, so that dropped messages never reach the server
+ *    thread.
+ * 2) Airstrikes which are accepted are collected during the tick, and at the end of the tick any airstrikes from the same
+ *    player, with the same projectile, aimed at nearly the same location (in the same dimension) are merged into a single
+ *    strike.  Strikes from different players are never merged.
+ * 3) The number of dropped and merged messages is counted for each player, until the player logs out.
+ *
+ * Typical usage:
+ *   on the network thread:  if (!AirstrikeRateLimiter.tryAcquire(player)) return;
+ *   on the server thread:   AirstrikeRateLimiter.submit(message, player);
+ *
+ * Must be registered on the MinecraftForge.EVENT_BUS.
+ */
+public class AirstrikeRateLimiter {
+
+  public static final double COALESCE_DISTANCE = 4.0;        // strikes closer than this within one tick are merged
+
+  /**
+   * Called on the network thread when an airstrike message arrives.
+   * @return true if the message should be processed, false if the player has exceeded their rate limit
+   */
+  public static boolean tryAcquire(ServerPlayerEntity player) {
+    PlayerAirstrikeStatistics statistics = getStatistics(player.getUniqueID());
+    boolean accepted = statistics.tryConsumeToken(System.nanoTime());
+    if (!accepted) statistics.droppedCount.incrementAndGet();
+    return accepted;
+  }
+
+  /**
+   * Called on the server thread; the airstrike will be carried out at the end of this tick unless it is merged with
+   *  another airstrike from the same player, with the same projectile, aimed at nearly the same location.
+   */
+  public static void submit(AirstrikeMessageToServer message, ServerPlayerEntity sendingPlayer) {
+    RegistryKey<World> dimension = sendingPlayer.func_241141_L_();  // func_241141_L_ is getPlayerDimension
+    Vector3d target = message.getTargetCoordinates();
+    for (PendingAirstrike pendingAirstrike : pendingAirstrikes) {
+      if (pendingAirstrike.sendingPlayer == sendingPlayer
+          && pendingAirstrike.message.getProjectile() == message.getProjectile()
+          && pendingAirstrike.dimension.equals(dimension)
+          && pendingAirstrike.message.getTargetCoordinates().squareDistanceTo(target) < COALESCE_DISTANCE * COALESCE_DISTANCE) {
+        getStatistics(sendingPlayer.getUniqueID()).mergedCount.incrementAndGet();
+        return;
+      }
+    }
+    pendingAirstrikes.add(new PendingAirstrike(message, sendingPlayer, dimension));
+  }
+
+  public static long getDroppedCount(UUID playerID) {
+    PlayerAirstrikeStatistics statistics = playerStatistics.get(playerID);
+    return (statistics == null) ? 0 : statistics.droppedCount.get();
+  }
+
+  public static long getMergedCount(UUID playerID) {
+    PlayerAirstrikeStatistics statistics = playerStatistics.get(playerID);
+    return (statistics == null) ? 0 : statistics.mergedCount.get();
+  }
+
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.ServerTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    if (pendingAirstrikes.isEmpty()) return;
+    for (PendingAirstrike pendingAirstrike : pendingAirstrikes) {
+      MessageHandlerOnServer.processMessage(pendingAirstrike.message, pendingAirstrike.sendingPlayer);
+    }
+    pendingAirstrikes.clear();
+    TargetEffectDistributor.sendQueuedEffects();  // the effects queued by processMessage
+  }
+
+  // discard the pending strikes and the statistics of players who log out, so that they don't accumulate
+  @SubscribeEvent
+  public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+    pendingAirstrikes.removeIf(pendingAirstrike -> pendingAirstrike.sendingPlayer == event.getPlayer());
+    playerStatistics.remove(event.getPlayer().getUniqueID());
+  }
+
+  @SubscribeEvent
+  public static void onServerStopped(FMLServerStoppedEvent event) {
+    pendingAirstrikes.clear();
+    playerStatistics.clear();
+  }
+
+  private static PlayerAirstrikeStatistics getStatistics(UUID playerID) {
+    return playerStatistics.computeIfAbsent(playerID, id -> new PlayerAirstrikeStatistics());
+  }
+
+  private static class PlayerAirstrikeStatistics {
+    public synchronized boolean tryConsumeToken(long nanoTimeNow) {
+      final double NANOSECONDS_PER_SECOND = 1.0E9;
+      MBETunables.Snapshot tunables = MBETunables.get();
+      if (lastRefillNanoTime == NEVER_REFILLED) {
+        tokens = tunables.airstrikeBurstSize;
+      } else {
+        double elapsedSeconds = (nanoTimeNow - lastRefillNanoTime) / NANOSECONDS_PER_SECOND;
+        tokens = Math.min(tunables.airstrikeBurstSize, tokens + elapsedSeconds * tunables.airstrikesPerSecond);
+      }
+      lastRefillNanoTime = nanoTimeNow;
+      if (tokens < 1.0) return false;
+      tokens -= 1.0;
+      return true;
+    }
+
+    private static final long NEVER_REFILLED = Long.MIN_VALUE;
+    private double tokens;
+    private long lastRefillNanoTime = NEVER_REFILLED;
+
+    public final AtomicLong droppedCount = new AtomicLong();
+    public final AtomicLong mergedCount = new AtomicLong();
+  }
+
+  private static class PendingAirstrike {
+    public PendingAirstrike(AirstrikeMessageToServer message, ServerPlayerEntity sendingPlayer, RegistryKey<World> dimension) {
+      this.message = message;
+      this.sendingPlayer = sendingPlayer;
+      this.dimension = dimension;
+    }
+
+    public final AirstrikeMessageToServer message;
+    public final ServerPlayerEntity sendingPlayer;
+    public final RegistryKey<World> dimension;
+  }
+
+  // accessed from the network threads as well as the server thread
+  private static final Map<UUID, PlayerAirstrikeStatistics> playerStatistics = new ConcurrentHashMap<>();
+
+  // only accessed from the server thread
+  private static final List<PendingAirstrike> pendingAirstrikes = new ArrayList<>();
+}
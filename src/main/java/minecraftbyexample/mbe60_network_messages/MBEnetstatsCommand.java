@@ -0,0 +1,55 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+
+import java.util.List;
+
+/**
+ * Adds a command to view the network metrics gathered by NetworkMetrics:
+ *
+ * 1) mbenetstats
+ *    show the number of messages and bytes sent and received, and the handler times, for each message type and each player
+ * 2) mbenetstats dump
+ *    write the metrics to the datalog file immediately instead of waiting for the periodic dump
+ * 3) mbenetstats reset
+ *    reset all the metrics to zero
+ *
+ * Only available to ops (permission level 2)
+ */
+public class MBEnetstatsCommand {
+  public static void register(CommandDispatcher<CommandSource> dispatcher) {
+    LiteralArgumentBuilder<CommandSource> mbenetstatsCommand
+            = Commands.literal("mbenetstats")
+                .requires((commandSource) -> commandSource.hasPermissionLevel(2))
+                .executes(context -> {
+                  List<String> summary = NetworkMetrics.getSummary();
+                  if (summary.isEmpty()) {
+                    context.getSource().sendFeedback(new StringTextComponent("No network messages recorded yet"), false);
+                  }
+                  for (String line : summary) {
+                    context.getSource().sendFeedback(new StringTextComponent(line), false);
+                  }
+                  return summary.size();
+                })
+                .then(Commands.literal("dump")
+                        .executes(context -> {
+                          NetworkMetrics.dumpCSV();
+                          context.getSource().sendFeedback(new StringTextComponent("Network metrics written to "
+                                  + NetworkMetrics.DATALOG_NAME), true);
+                          return 1;
+                        })
+                )
+                .then(Commands.literal("reset")
+                        .executes(context -> {
+                          NetworkMetrics.reset();
+                          context.getSource().sendFeedback(new StringTextComponent("Network metrics reset"), true);
+                          return 1;
+                        })
+                );
+    dispatcher.register(mbenetstatsCommand);
+  }
+}
@@ -0,0 +1,36 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.network.PacketBuffer;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The encoder and decoder for one type of network message.
+ * Each message class declares its codec as a static CODEC field, and StartupCommon registers every message with the
+ *   SimpleChannel using its codec, so that all the messages are converted to and from bytes in the same way.
+ * The messages use the compact encodings in PacketCodecs (varints, quantised positions, packed enum ordinals) to keep
+ *   the number of bytes sent over the network small.
+ */
+public interface MessageCodec<MSG>
+{
+  /** Write the contents of the message into the PacketBuffer, ready for transmission over the network */
+  void encode(MSG message, PacketBuffer buf);
+
+  /** Recreate the message from the bytes in the PacketBuffer */
+  MSG decode(PacketBuffer buf);
+
+  static <MSG> MessageCodec<MSG> of(BiConsumer<MSG, PacketBuffer> encoder, Function<PacketBuffer, MSG> decoder) {
+    return new MessageCodec<MSG>() {
+      @Override
+      public void encode(MSG message, PacketBuffer buf) {
+        encoder.accept(message, buf);
+      }
+
+      @Override
+      public MSG decode(PacketBuffer buf) {
+        return decoder.apply(buf);
+      }
+    };
+  }
+}
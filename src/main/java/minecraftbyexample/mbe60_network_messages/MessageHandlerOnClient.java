@@ -1,6 +1,8 @@
 package minecraftbyexample.mbe60_network_messages;
 
+import minecraftbyexample.mbe50_particle.ParticleBudget;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.particles.ParticleTypes;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraftforge.fml.LogicalSide;
@@ -53,22 +55,28 @@ public class MessageHandlerOnClient {
 
     // This code creates a new task which will be executed by the client during the next tick
     //  In this case, the task is to call messageHandlerOnClient.processMessage(worldclient, message)
-    ctx.enqueueWork(() -> processMessage(clientWorld.get(), message));
+    //  (NetworkMetrics.timeHandler records how long the task takes)
+    ServerPlayerEntity NO_SENDING_PLAYER = null;
+    ctx.enqueueWork(NetworkMetrics.timeHandler(TargetEffectMessageToClient.class, NO_SENDING_PLAYER,
+                                               () -> processMessage(clientWorld.get(), message)));
   }
 
   // This message is called from the Client thread.
-  //   It spawns a number of Particle particles at the target location within a short range around the target location
+  //   It spawns a number of Particle particles at each target location within a short range around the target location
+  //   If lots of airstrikes arrive at once, the ParticleBudget will thin out the particles to keep the frame rate steady
   private static void processMessage(ClientWorld worldClient, TargetEffectMessageToClient message)
   {
     Random random = new Random();
     final int NUMBER_OF_PARTICLES = 100;
     final double HORIZONTAL_SPREAD = 1.5;
-    for (int i = 0; i < NUMBER_OF_PARTICLES; ++i) {
-      Vector3d targetCoordinates = message.getTargetCoordinates();
-      double spawnXpos = targetCoordinates.x + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
-      double spawnYpos = targetCoordinates.y;
-      double spawnZpos = targetCoordinates.z + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
-      worldClient.addParticle(ParticleTypes.INSTANT_EFFECT, spawnXpos, spawnYpos, spawnZpos, 0, 0, 0);
+    for (Vector3d targetCoordinates : message.getTargetCoordinates()) {
+      for (int i = 0; i < NUMBER_OF_PARTICLES; ++i) {
+        double spawnXpos = targetCoordinates.x + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
+        double spawnYpos = targetCoordinates.y;
+        double spawnZpos = targetCoordinates.z + (2*random.nextDouble() - 1) * HORIZONTAL_SPREAD;
+        ParticleBudget.addParticle(worldClient, ParticleBudget.Priority.HIGH, ParticleTypes.INSTANT_EFFECT,
+                                   spawnXpos, spawnYpos, spawnZpos, 0, 0, 0);
+      }
     }
     return;
   }
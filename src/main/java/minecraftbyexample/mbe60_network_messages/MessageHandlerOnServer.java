@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe60_network_messages;
 
+import minecraftbyexample.mbe70_configuration.MBETunables;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.SpawnReason;
@@ -7,21 +8,19 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.entity.projectile.FireballEntity;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.util.RegistryKey;
 import net.minecraft.util.SoundEvents;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.util.text.ITextComponent;
-import net.minecraft.world.DimensionType;
-import net.minecraft.world.World;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.network.NetworkEvent;
-import net.minecraftforge.fml.network.PacketDistributor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.function.Supplier;
 
@@ -62,19 +61,31 @@ public class MessageHandlerOnServer {
     final ServerPlayerEntity sendingPlayer = ctx.getSender();
     if (sendingPlayer == null) {
       LOGGER.warn("EntityPlayerMP was null when AirstrikeMessageToServer was received");
+      return;
+    }
+
+    // Limit the rate at which each player can call airstrikes.  Excess messages are dropped here on the network thread,
+    //   so a client spamming messages can't flood the server thread with work.
+    if (!AirstrikeRateLimiter.tryAcquire(sendingPlayer)) {
+      return;
     }
 
     // This code creates a new task which will be executed by the server during the next tick,
-    //  In this case, the task is to call messageHandlerOnServer.processMessage(message, sendingPlayer)
-    ctx.enqueueWork(() -> processMessage(message, sendingPlayer));
+    //  In this case, the task is to give the message to the AirstrikeRateLimiter, which merges airstrikes aimed at the same
+    //  place and then calls messageHandlerOnServer.processMessage(message, sendingPlayer) at the end of the tick
+    //  (NetworkMetrics.timeHandler records how long the task takes)
+    ctx.enqueueWork(NetworkMetrics.timeHandler(AirstrikeMessageToServer.class, sendingPlayer,
+                                               () -> AirstrikeRateLimiter.submit(message, sendingPlayer)));
   }
 
   // This message is called from the Server thread.
   //   It spawns a random number of the given projectile at a position above the target location
   static void processMessage(AirstrikeMessageToServer message, ServerPlayerEntity sendingPlayer)
   {
-    // 1) First send a message to all other clients who are in the same dimension, to tell them to render a "target"
-    //      effect on the ground
+    // 1) First send a message to the clients near the target, to tell them to render a "target" effect on the ground.
+    //    The TargetEffectDistributor sends the message only to players who are tracking the target chunk or who are within view
+    //      distance, and batches all the targets for each player into one message per tick.
+    //    It uses PacketDistributor.PLAYER to send to each player.
     // There are a number of other PacketDistributor types defined for other cases, for example
     // Sending to one player
     //    simpleChannel.send(PacketDistributor.PLAYER.with(playerMP), new MyMessage());
@@ -84,65 +95,74 @@ public class MessageHandlerOnServer {
     //
     // Sending to all connected players
     //    simpleChannel.send(PacketDistributor.ALL.noArg(), new MyMessage());
+    //
+    // Sending to all players in the same dimension
+    //    simpleChannel.send(PacketDistributor.DIMENSION.with(() -> playerDimension), new MyMessage());
 
-    TargetEffectMessageToClient msg = new TargetEffectMessageToClient(message.getTargetCoordinates());
-    RegistryKey<World> playerDimension = sendingPlayer.func_241141_L_();  // func_241141_L_ is getPlayerDimension
-    StartupCommon.simpleChannel.send(PacketDistributor.DIMENSION.with(() -> playerDimension), msg);
+    TargetEffectDistributor.queueTargetEffect(sendingPlayer.getServerWorld(), message.getTargetCoordinates());
 
-    // 2) Next: spawn the projectiles on the server
+    // 2) Next: choose the release points for the projectiles.  The projectiles aren't spawned immediately; they are
+    //    spread out over the next few ticks by the ProjectileSpawnScheduler, so that a burst of airstrikes doesn't cause
+    //    a lag spike on the server.
+    //    The number of projectiles can be changed in the config file (see mbe70_configuration)
     Random random = new Random();
-    final int MAX_NUMBER_OF_PROJECTILES = 20;
-    final int MIN_NUMBER_OF_PROJECTILES = 2;
-    int numberOfProjectiles = MIN_NUMBER_OF_PROJECTILES + random.nextInt(MAX_NUMBER_OF_PROJECTILES - MIN_NUMBER_OF_PROJECTILES + 1);
+    MBETunables.Snapshot tunables = MBETunables.get();
+    int numberOfProjectiles = tunables.airstrikeMinProjectiles
+            + random.nextInt(tunables.airstrikeMaxProjectiles - tunables.airstrikeMinProjectiles + 1);
+    List<Vector3d> releasePoints = new ArrayList<>(numberOfProjectiles);
     for (int i = 0; i < numberOfProjectiles; ++i) {
-      ServerWorld world = sendingPlayer.getServerWorld();
-
       final double MAX_HORIZONTAL_SPREAD = 4.0;
       final double MAX_VERTICAL_SPREAD = 20.0;
       final double RELEASE_HEIGHT_ABOVE_TARGET = 40;
       double xOffset = (random.nextDouble() * 2 - 1) * MAX_HORIZONTAL_SPREAD;
       double zOffset = (random.nextDouble() * 2 - 1) * MAX_HORIZONTAL_SPREAD;
       double yOffset = RELEASE_HEIGHT_ABOVE_TARGET + (random.nextDouble() * 2 - 1) * MAX_VERTICAL_SPREAD;
-      Vector3d releasePoint = message.getTargetCoordinates().add(xOffset, yOffset, zOffset);
-
-      EntityType entityType = message.getProjectile().getEntityType();
-
-      CompoundNBT spawnNBT = null;
-      ITextComponent customName = null;
-      PlayerEntity spawningPlayer = null;
-      BlockPos spawnLocation = new BlockPos(releasePoint);
-      boolean SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false;  // not 100% sure of what this does...
-      boolean SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false; // not 100% sure of what this does...
-      Entity spawnedEntity = entityType.spawn(world, spawnNBT, customName, spawningPlayer, spawnLocation,
-              SpawnReason.SPAWN_EGG,
-              SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION, SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION);
-
-      // special cases handled by switch() - clumsy method for purposes of simplicity only...
-      switch (message.getProjectile()) {
-        case FIREBALL: {
-          FireballEntity fireballEntity = (FireballEntity)spawnedEntity;
-          final double Y_ACCELERATION = -0.5;
-          fireballEntity.accelerationX = 0.0;
-          fireballEntity.accelerationY = Y_ACCELERATION;
-          fireballEntity.accelerationZ = 0.0;
-          break;
-        }
-        default: {
-          break;
-        }
-      }
-
-
-      // 3: Play a thunder sound using the server method (sends to all clients, so all clients hear it)
-      final float VOLUME = 10000.0F;
-      final float PITCH = 0.8F + random.nextFloat() * 0.2F;
-      PlayerEntity playerCausingSound = null;
-      world.playSound(playerCausingSound, releasePoint.x, releasePoint.y, releasePoint.z,
-                      SoundEvents.ENTITY_LIGHTNING_BOLT_THUNDER, SoundCategory.WEATHER, VOLUME, PITCH);
+      releasePoints.add(message.getTargetCoordinates().add(xOffset, yOffset, zOffset));
     }
+    ProjectileSpawnScheduler.scheduleBurst(sendingPlayer.getServerWorld(), message.getProjectile(), releasePoints);
     return;
   }
 
+  // Spawn a single projectile at the given release point.
+  // Called from the Server thread by the ProjectileSpawnScheduler
+  static void spawnProjectile(ServerWorld world, AirstrikeMessageToServer.Projectile projectile, Vector3d releasePoint)
+  {
+    EntityType entityType = projectile.getEntityType();
+
+    CompoundNBT spawnNBT = null;
+    ITextComponent customName = null;
+    PlayerEntity spawningPlayer = null;
+    BlockPos spawnLocation = new BlockPos(releasePoint);
+    boolean SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false;  // not 100% sure of what this does...
+    boolean SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION = false; // not 100% sure of what this does...
+    Entity spawnedEntity = entityType.spawn(world, spawnNBT, customName, spawningPlayer, spawnLocation,
+            SpawnReason.SPAWN_EGG,
+            SPAWN_ON_TOP_OF_GIVEN_BLOCK_LOCATION, SEARCH_DOWN_WHEN_PLACED_ON_TOP_OF_GIVEN_BLOCK_LOCATION);
+
+    // special cases handled by switch() - clumsy method for purposes of simplicity only...
+    switch (projectile) {
+      case FIREBALL: {
+        if (!(spawnedEntity instanceof FireballEntity)) break;  // spawn can fail, eg if the chunk was unloaded in the meantime
+        FireballEntity fireballEntity = (FireballEntity)spawnedEntity;
+        final double Y_ACCELERATION = -0.5;
+        fireballEntity.accelerationX = 0.0;
+        fireballEntity.accelerationY = Y_ACCELERATION;
+        fireballEntity.accelerationZ = 0.0;
+        break;
+      }
+      default: {
+        break;
+      }
+    }
+
+    // 3: Play a thunder sound using the server method (sends to all clients, so all clients hear it)
+    //   Thunder from several projectiles released at nearly the same place and time is merged into a single sound
+    final float VOLUME = 10000.0F;
+    final float PITCH = 0.8F + world.rand.nextFloat() * 0.2F;
+    ProjectileSpawnScheduler.schedulePlaySound(world, releasePoint,
+                                               SoundEvents.ENTITY_LIGHTNING_BOLT_THUNDER, SoundCategory.WEATHER, VOLUME, PITCH);
+  }
+
   public static boolean isThisProtocolAcceptedByServer(String protocolVersion) {
     return StartupCommon.MESSAGE_PROTOCOL_VERSION.equals(protocolVersion);
   }
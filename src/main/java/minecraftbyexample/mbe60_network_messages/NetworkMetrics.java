@@ -0,0 +1,211 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import minecraftbyexample.usefultools.debugging.DataLogger;
+import minecraftbyexample.usefultools.debugging.LatencyHistogram;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Counts the network messages sent and received on our SimpleChannel:
+ * 1) for each message type: number sent, bytes sent, number received, bytes received, and a histogram of the time taken by the
+ *    handler (the work queued with enqueueWork)
+ * 2) for each player who sends messages to the server: the same information for the messages received from that player.
+ *    These are only kept while the player is logged in: when the player logs out, their lines are written to the DataLogger
+ *    and then discarded, so that a long-running server doesn't remember every player who has ever connected.
+ *
+ * The metrics are gathered by wrapping the MessageCodec and handler when the message is registered (see
+ *   StartupCommon.registerMessage), and by the message handlers wrapping their queued work with NetworkMetrics.timeHandler().
+ * They can be viewed using the /mbenetstats command, and are written to the "mbe60_network_metrics" DataLogger every
+ *   CSV_DUMP_INTERVAL_TICKS ticks, one line per message type and per player:
+ *   time, messagetype, player, sentcount, sentbytes, receivedcount, receivedbytes, handlercount, handlermeanNS, handlerp99NS
+ *
+ * All the methods are thread safe (they are called from the network threads as well as the client/server threads)
+ */
+public class NetworkMetrics {
+
+  public static final int CSV_DUMP_INTERVAL_TICKS = 20 * 60;  // once per minute
+  public static final String DATALOG_NAME = "mbe60_network_metrics";
+
+  /** Wrap the codec so that every message encoded or decoded is counted */
+  public static <MSG> MessageCodec<MSG> instrument(Class<MSG> messageClass, MessageCodec<MSG> codec) {
+    String messageType = messageClass.getSimpleName();
+    return new MessageCodec<MSG>() {
+      @Override
+      public void encode(MSG message, PacketBuffer buf) {
+        int startIndex = buf.writerIndex();
+        codec.encode(message, buf);
+        recordSent(messageType, buf.writerIndex() - startIndex);
+      }
+
+      @Override
+      public MSG decode(PacketBuffer buf) {
+        int startIndex = buf.readerIndex();
+        MSG message = codec.decode(buf);
+        lastDecodedSize.set(buf.readerIndex() - startIndex);
+        return message;
+      }
+    };
+  }
+
+  /** Wrap the handler so that every message received is counted against its message type and sending player */
+  public static <MSG> BiConsumer<MSG, Supplier<NetworkEvent.Context>> instrument(Class<MSG> messageClass,
+                                                                             BiConsumer<MSG, Supplier<NetworkEvent.Context>> handler) {
+    String messageType = messageClass.getSimpleName();
+    return (message, ctxSupplier) -> {
+      // the handler is called on the same network thread immediately after the message is decoded
+      int bytes = lastDecodedSize.get();
+      recordReceived(messageType, ctxSupplier.get().getSender(), bytes);
+      handler.accept(message, ctxSupplier);
+    };
+  }
+
+  /**
+   * Wrap the work that a message handler queues using enqueueWork, so that the time it takes is recorded.
+   * @param sendingPlayer the player who sent the message, or null if received on the client
+   */
+  public static Runnable timeHandler(Class<?> messageClass, @Nullable ServerPlayerEntity sendingPlayer, Runnable work) {
+    String messageType = messageClass.getSimpleName();
+    return () -> {
+      long startTime = System.nanoTime();
+      try {
+        work.run();
+      } finally {
+        long duration = System.nanoTime() - startTime;
+        getMessageTypeMetrics(messageType).handlerTime.record(duration);
+        if (sendingPlayer != null && !sendingPlayer.hasDisconnected()) {
+          getPlayerMetrics(sendingPlayer, messageType).handlerTime.record(duration);
+        }
+      }
+    };
+  }
+
+  public static void reset() {
+    messageTypeMetrics.clear();
+    playerMetrics.clear();
+    playerNames.clear();
+  }
+
+  /**
+   * Produce a human-readable summary of the metrics, one line per message type and per player
+   */
+  public static List<String> getSummary() {
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<String, MessageMetrics> entry : messageTypeMetrics.entrySet()) {
+      lines.add(entry.getKey() + ": " + entry.getValue().toString());
+    }
+    for (Map.Entry<UUID, Map<String, MessageMetrics>> playerEntry : playerMetrics.entrySet()) {
+      String playerName = playerNames.getOrDefault(playerEntry.getKey(), playerEntry.getKey().toString());
+      for (Map.Entry<String, MessageMetrics> entry : playerEntry.getValue().entrySet()) {
+        lines.add("  " + playerName + " " + entry.getKey() + ": " + entry.getValue().toString());
+      }
+    }
+    return lines;
+  }
+
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.ServerTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    if (++ticksSinceLastDump < CSV_DUMP_INTERVAL_TICKS) return;
+    ticksSinceLastDump = 0;
+    dumpCSV();
+  }
+
+  /**
+   * Write the current metrics to the DataLogger, one comma-separated line per message type and per player
+   */
+  public static void dumpCSV() {
+    for (Map.Entry<String, MessageMetrics> entry : messageTypeMetrics.entrySet()) {
+      DataLogger.logData(DATALOG_NAME, entry.getKey() + ", *, " + entry.getValue().toCSV());
+    }
+    for (Map.Entry<UUID, Map<String, MessageMetrics>> playerEntry : playerMetrics.entrySet()) {
+      dumpPlayerCSV(playerEntry.getKey(), playerEntry.getValue());
+    }
+  }
+
+  // write the player's final metrics, then forget them
+  @SubscribeEvent
+  public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+    UUID playerID = event.getPlayer().getUniqueID();
+    Map<String, MessageMetrics> thisPlayerMetrics = playerMetrics.remove(playerID);
+    if (thisPlayerMetrics != null) {
+      dumpPlayerCSV(playerID, thisPlayerMetrics);
+    }
+    playerNames.remove(playerID);
+  }
+
+  private static void dumpPlayerCSV(UUID playerID, Map<String, MessageMetrics> thisPlayerMetrics) {
+    String playerName = playerNames.getOrDefault(playerID, playerID.toString());
+    for (Map.Entry<String, MessageMetrics> entry : thisPlayerMetrics.entrySet()) {
+      DataLogger.logData(DATALOG_NAME, entry.getKey() + ", " + playerName + ", " + entry.getValue().toCSV());
+    }
+  }
+
+  private static void recordSent(String messageType, int bytes) {
+    MessageMetrics metrics = getMessageTypeMetrics(messageType);
+    metrics.sentCount.incrementAndGet();
+    metrics.sentBytes.addAndGet(bytes);
+  }
+
+  private static void recordReceived(String messageType, @Nullable ServerPlayerEntity sendingPlayer, int bytes) {
+    MessageMetrics metrics = getMessageTypeMetrics(messageType);
+    metrics.receivedCount.incrementAndGet();
+    metrics.receivedBytes.addAndGet(bytes);
+    if (sendingPlayer != null && !sendingPlayer.hasDisconnected()) {
+      MessageMetrics thisPlayerMetrics = getPlayerMetrics(sendingPlayer, messageType);
+      thisPlayerMetrics.receivedCount.incrementAndGet();
+      thisPlayerMetrics.receivedBytes.addAndGet(bytes);
+    }
+  }
+
+  private static MessageMetrics getMessageTypeMetrics(String messageType) {
+    return messageTypeMetrics.computeIfAbsent(messageType, type -> new MessageMetrics());
+  }
+
+  private static MessageMetrics getPlayerMetrics(ServerPlayerEntity player, String messageType) {
+    UUID playerID = player.getUniqueID();
+    playerNames.putIfAbsent(playerID, player.getGameProfile().getName());
+    return playerMetrics.computeIfAbsent(playerID, id -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(messageType, type -> new MessageMetrics());
+  }
+
+  private static class MessageMetrics {
+    public final AtomicLong sentCount = new AtomicLong();
+    public final AtomicLong sentBytes = new AtomicLong();
+    public final AtomicLong receivedCount = new AtomicLong();
+    public final AtomicLong receivedBytes = new AtomicLong();
+    public final LatencyHistogram handlerTime = new LatencyHistogram();
+
+    @Override
+    public String toString() {
+      return "sent=" + sentCount.get() + " (" + sentBytes.get() + " bytes)"
+              + " received=" + receivedCount.get() + " (" + receivedBytes.get() + " bytes)"
+              + " handler: " + handlerTime.toString();
+    }
+
+    public String toCSV() {
+      return sentCount.get() + ", " + sentBytes.get() + ", " + receivedCount.get() + ", " + receivedBytes.get() + ", "
+              + handlerTime.getCount() + ", " + Math.round(handlerTime.getMeanNS()) + ", " + handlerTime.getPercentileNS(99);
+    }
+  }
+
+  private static final Map<String, MessageMetrics> messageTypeMetrics = new ConcurrentHashMap<>();
+  private static final Map<UUID, Map<String, MessageMetrics>> playerMetrics = new ConcurrentHashMap<>();
+  private static final Map<UUID, String> playerNames = new ConcurrentHashMap<>();
+  private static final ThreadLocal<Integer> lastDecodedSize = ThreadLocal.withInitial(() -> 0);
+  private static int ticksSinceLastDump = 0;
+}
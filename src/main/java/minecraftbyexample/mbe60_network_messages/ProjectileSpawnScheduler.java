@@ -0,0 +1,146 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import minecraftbyexample.mbe70_configuration.MBETunables;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.SoundEvent;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Spreads the spawning of airstrike projectiles over several server ticks.
+ * If the server spawns all the projectiles for an airstrike in the same tick that the message arrives, several players
+ *   calling airstrikes at the same time cause a big spike in the tick time.  Instead:
+ * 1) Each burst of projectiles is spread out over several ticks (airstrike.spreadOverTicks in the config file)
+ * 2) No more than airstrike.maxSpawnsPerTick projectiles are spawned in any one tick; any extra projectiles are carried
+ *    over to the following tick(s)
+ * 3) Identical sounds which are played in the same tick at (nearly) the same location are merged into a single sound
+ *
+ * Typical usage:
+ *   ProjectileSpawnScheduler.scheduleBurst(world, projectile, listOfReleasePoints);
+ *   ProjectileSpawnScheduler.schedulePlaySound(world, position, sound, category, volume, pitch);
+ *
+ * Must be registered on the MinecraftForge.EVENT_BUS.  Only used on the server thread.
+ */
+public class ProjectileSpawnScheduler {
+
+  public static final double SOUND_MERGE_DISTANCE = 4.0;  // identical sounds closer than this (in the same tick) are merged
+
+  /**
+   * Schedule a burst of projectiles, one at each of the given release points.  They will be spread out over the next
+   *   airstrikeSpreadOverTicks ticks, subject to the per-tick spawn budget.
+   */
+  public static void scheduleBurst(ServerWorld world, AirstrikeMessageToServer.Projectile projectile, List<Vector3d> releasePoints) {
+    int spreadOverTicks = MBETunables.get().airstrikeSpreadOverTicks;
+    int numberOfProjectiles = releasePoints.size();
+    for (int i = 0; i < numberOfProjectiles; ++i) {
+      long dueTick = tickCount + (long)i * spreadOverTicks / numberOfProjectiles;
+      pendingSpawns.add(new PendingSpawn(world, projectile, releasePoints.get(i), dueTick, nextSequenceNumber++));
+    }
+  }
+
+  /**
+   * Play a sound during the next server tick.  If an identical sound has already been scheduled at nearly the same location,
+   *   the new sound is discarded.
+   */
+  public static void schedulePlaySound(ServerWorld world, Vector3d position, SoundEvent soundEvent, SoundCategory soundCategory,
+                                       float volume, float pitch) {
+    for (PendingSound pendingSound : pendingSounds) {
+      if (pendingSound.world == world && pendingSound.soundEvent == soundEvent && pendingSound.soundCategory == soundCategory
+          && pendingSound.position.squareDistanceTo(position) < SOUND_MERGE_DISTANCE * SOUND_MERGE_DISTANCE) {
+        ++mergedSoundCount;
+        return;
+      }
+    }
+    pendingSounds.add(new PendingSound(world, position, soundEvent, soundCategory, volume, pitch));
+  }
+
+  public static int getNumberOfPendingSpawns() {return pendingSpawns.size();}
+  public static long getMergedSoundCount() {return mergedSoundCount;}
+
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.ServerTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+
+    int maxSpawnsPerTick = MBETunables.get().airstrikeMaxSpawnsPerTick;
+    int spawnedThisTick = 0;
+    while (spawnedThisTick < maxSpawnsPerTick && !pendingSpawns.isEmpty()
+           && pendingSpawns.peek().dueTick <= tickCount) {
+      PendingSpawn pendingSpawn = pendingSpawns.poll();
+      MessageHandlerOnServer.spawnProjectile(pendingSpawn.world, pendingSpawn.projectile, pendingSpawn.releasePoint);
+      ++spawnedThisTick;
+    }
+
+    for (PendingSound pendingSound : pendingSounds) {
+      PlayerEntity playerCausingSound = null;
+      pendingSound.world.playSound(playerCausingSound, pendingSound.position.x, pendingSound.position.y, pendingSound.position.z,
+                                   pendingSound.soundEvent, pendingSound.soundCategory, pendingSound.volume, pendingSound.pitch);
+    }
+    pendingSounds.clear();
+    ++tickCount;
+  }
+
+  // don't hang on to the worlds after the server has stopped
+  @SubscribeEvent
+  public static void onServerStopped(FMLServerStoppedEvent event) {
+    pendingSpawns.clear();
+    pendingSounds.clear();
+  }
+
+  private static class PendingSpawn implements Comparable<PendingSpawn> {
+    public PendingSpawn(ServerWorld world, AirstrikeMessageToServer.Projectile projectile, Vector3d releasePoint,
+                        long dueTick, long sequenceNumber) {
+      this.world = world;
+      this.projectile = projectile;
+      this.releasePoint = releasePoint;
+      this.dueTick = dueTick;
+      this.sequenceNumber = sequenceNumber;
+    }
+
+    // earliest due first; if equal, first-come first-served
+    @Override
+    public int compareTo(PendingSpawn other) {
+      if (dueTick != other.dueTick) return Long.compare(dueTick, other.dueTick);
+      return Long.compare(sequenceNumber, other.sequenceNumber);
+    }
+
+    public final ServerWorld world;
+    public final AirstrikeMessageToServer.Projectile projectile;
+    public final Vector3d releasePoint;
+    public final long dueTick;
+    public final long sequenceNumber;
+  }
+
+  private static class PendingSound {
+    public PendingSound(ServerWorld world, Vector3d position, SoundEvent soundEvent, SoundCategory soundCategory,
+                        float volume, float pitch) {
+      this.world = world;
+      this.position = position;
+      this.soundEvent = soundEvent;
+      this.soundCategory = soundCategory;
+      this.volume = volume;
+      this.pitch = pitch;
+    }
+
+    public final ServerWorld world;
+    public final Vector3d position;
+    public final SoundEvent soundEvent;
+    public final SoundCategory soundCategory;
+    public final float volume;
+    public final float pitch;
+  }
+
+  private static final PriorityQueue<PendingSpawn> pendingSpawns = new PriorityQueue<>();
+  private static final List<PendingSound> pendingSounds = new ArrayList<>();
+  private static long tickCount = 0;
+  private static long nextSequenceNumber = 0;
+  private static long mergedSoundCount = 0;
+}
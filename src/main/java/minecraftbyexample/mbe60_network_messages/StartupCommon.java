@@ -3,13 +3,18 @@ package minecraftbyexample.mbe60_network_messages;
 
 import net.minecraft.item.Item;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.minecraftforge.fml.network.NetworkDirection;
+import net.minecraftforge.fml.network.NetworkEvent;
 import net.minecraftforge.fml.network.NetworkRegistry;
 import net.minecraftforge.fml.network.simple.SimpleChannel;
 
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import static net.minecraftforge.fml.network.NetworkDirection.PLAY_TO_CLIENT;
 import static net.minecraftforge.fml.network.NetworkDirection.PLAY_TO_SERVER;
@@ -27,7 +32,7 @@ public class StartupCommon
   public static final byte AIRSTRIKE_MESSAGE_ID = 35;      // a unique ID for this message type.  It helps detect errors if you don't use zero!
   public static final byte TARGET_EFFECT_MESSAGE_ID = 63;
 
-  public static final String MESSAGE_PROTOCOL_VERSION = "1.0";  // a version number for the protocol you're using.  Can be used to maintain backward
+  public static final String MESSAGE_PROTOCOL_VERSION = "1.2";  // a version number for the protocol you're using.  Can be used to maintain backward
                                                                 // compatibility.  But to be honest you'll probably never need it for anything useful...
 
   public static final ResourceLocation simpleChannelRL = new ResourceLocation("minecraftbyexample", "mbechannel");
@@ -50,17 +55,17 @@ public class StartupCommon
 
     // Register the two different types of messages:
     //  AirStrike, which is sent from the client to the server to say "call an air strike on {this location} that I just clicked on"
-    //  TargetEffect, which is sent from the server to all clients to say "someone called an air strike on {this location}, draw some particles there"
+    //  TargetEffect, which is sent from the server to nearby clients to say "someone called an air strike on {these locations}, draw some particles there"
 
-    simpleChannel.registerMessage(AIRSTRIKE_MESSAGE_ID, AirstrikeMessageToServer.class,
-            AirstrikeMessageToServer::encode, AirstrikeMessageToServer::decode,
+    // Each message class declares a MessageCodec which is used to convert it to and from bytes.
+
+    registerMessage(AIRSTRIKE_MESSAGE_ID, AirstrikeMessageToServer.class, AirstrikeMessageToServer.CODEC,
             MessageHandlerOnServer::onMessageReceived,
-            Optional.of(PLAY_TO_SERVER));
+            PLAY_TO_SERVER);
 
-    simpleChannel.registerMessage(TARGET_EFFECT_MESSAGE_ID, TargetEffectMessageToClient.class,
-            TargetEffectMessageToClient::encode, TargetEffectMessageToClient::decode,
+    registerMessage(TARGET_EFFECT_MESSAGE_ID, TargetEffectMessageToClient.class, TargetEffectMessageToClient.CODEC,
             MessageHandlerOnClient::onMessageReceived,
-            Optional.of(PLAY_TO_CLIENT));
+            PLAY_TO_CLIENT);
 
     // it is possible to register the same message class and handler on both sides if you want, eg,
 //    simpleChannel.registerMessage(AIRSTRIKE_MESSAGE_ID, AirstrikeMessageToServer.class,
@@ -68,6 +73,25 @@ public class StartupCommon
 //            MessageHandlerOnBothSides::onMessage);
     // I recommend that you don't do this because it can lead to crashes (and in particular dedicated server problems) if you aren't
     //    very careful to keep the client-side and server-side code separate
+
+    // limits the rate of airstrikes per player, and spreads the projectile spawning out over several ticks
+    MinecraftForge.EVENT_BUS.register(AirstrikeRateLimiter.class);
+    MinecraftForge.EVENT_BUS.register(ProjectileSpawnScheduler.class);
+    MinecraftForge.EVENT_BUS.register(TargetEffectDistributor.class);  // sends the target effects to nearby players only (called by AirstrikeRateLimiter)
+
+    // counts the messages sent and received; view them with /mbenetstats
+    MinecraftForge.EVENT_BUS.register(NetworkMetrics.class);
+    MinecraftForge.EVENT_BUS.register(RegisterCommandEvent.class);
+  }
+
+  // all messages are registered using their MessageCodec, so that every message is encoded the same way
+  // The codec and handler are wrapped by NetworkMetrics so that the number of messages and bytes can be counted
+  private static <MSG> void registerMessage(int messageID, Class<MSG> messageClass, MessageCodec<MSG> codec,
+                                            BiConsumer<MSG, Supplier<NetworkEvent.Context>> messageHandler,
+                                            NetworkDirection direction) {
+    MessageCodec<MSG> instrumentedCodec = NetworkMetrics.instrument(messageClass, codec);
+    simpleChannel.registerMessage(messageID, messageClass, instrumentedCodec::encode, instrumentedCodec::decode,
+                                  NetworkMetrics.instrument(messageClass, messageHandler), Optional.of(direction));
   }
 
 }
@@ -0,0 +1,109 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.minecraftforge.fml.network.PacketDistributor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sends the "target" effects to the clients which can actually see them, instead of to every player in the dimension.
+ * 1) The effects are collected during the tick
+ * 2) At the end of the tick (when AirstrikeRateLimiter has processed the tick's airstrikes, see sendQueuedEffects()),
+ *    each effect is assigned to the players who are tracking the chunk containing the target, or
+ *    who are within view distance of it
+ * 3) All the effects for one player are batched into a single TargetEffectMessageToClient (up to MAX_TARGETS_PER_MESSAGE)
+ *
+ * Typical usage:
+ *   TargetEffectDistributor.queueTargetEffect(serverWorld, targetCoordinates);
+ *
+ * Must be registered on the MinecraftForge.EVENT_BUS (to clear the queue when the server stops).  Only used on the server
+ *   thread.
+ */
+public class TargetEffectDistributor {
+
+  public static void queueTargetEffect(ServerWorld world, Vector3d targetCoordinates) {
+    pendingTargetEffects.computeIfAbsent(world, w -> new ArrayList<>()).add(targetCoordinates);
+  }
+
+  /**
+   * Send all the queued effects to the interested players.
+   * Called by AirstrikeRateLimiter at the end of each server tick, straight after it has processed the airstrikes for the
+   *   tick.  This isn't done in a separate ServerTickEvent handler, because Forge doesn't guarantee the order of handlers
+   *   for the same event, and the effects would be delayed by a tick if this handler ran first.
+   */
+  public static void sendQueuedEffects() {
+    if (pendingTargetEffects.isEmpty()) return;
+
+    Map<ServerPlayerEntity, List<Vector3d>> targetsForEachPlayer = new LinkedHashMap<>();
+    for (Map.Entry<ServerWorld, List<Vector3d>> entry : pendingTargetEffects.entrySet()) {
+      addInterestedPlayers(entry.getKey(), entry.getValue(), targetsForEachPlayer);
+    }
+    pendingTargetEffects.clear();
+
+    for (Map.Entry<ServerPlayerEntity, List<Vector3d>> entry : targetsForEachPlayer.entrySet()) {
+      ServerPlayerEntity player = entry.getKey();
+      List<Vector3d> targets = entry.getValue();
+      for (int first = 0; first < targets.size(); first += TargetEffectMessageToClient.MAX_TARGETS_PER_MESSAGE) {
+        int last = Math.min(targets.size(), first + TargetEffectMessageToClient.MAX_TARGETS_PER_MESSAGE);
+        TargetEffectMessageToClient msg = new TargetEffectMessageToClient(new ArrayList<>(targets.subList(first, last)));
+        StartupCommon.simpleChannel.send(PacketDistributor.PLAYER.with(() -> player), msg);
+      }
+    }
+  }
+
+  @SubscribeEvent
+  public static void onServerStopped(FMLServerStoppedEvent event) {
+    pendingTargetEffects.clear();
+  }
+
+  /**
+   * Assign each target to the players who are tracking the chunk containing it, or who are within view distance of it.
+   * 1) The targets are bucketed by chunk so that the tracking players are only looked up once per chunk
+   * 2) The world's players are then scanned once, and each player is tested against all the pending targets
+   */
+  private static void addInterestedPlayers(ServerWorld world, List<Vector3d> targets,
+                                           Map<ServerPlayerEntity, List<Vector3d>> targetsForEachPlayer) {
+    final boolean ONLY_PLAYERS_ON_BOUNDARY = false;
+    ChunkPos [] targetChunks = new ChunkPos[targets.size()];
+    Map<ChunkPos, Set<ServerPlayerEntity>> trackingPlayersForEachChunk = new HashMap<>();
+    for (int i = 0; i < targets.size(); ++i) {
+      Vector3d target = targets.get(i);
+      targetChunks[i] = new ChunkPos((int)Math.floor(target.x) >> 4, (int)Math.floor(target.z) >> 4);
+      trackingPlayersForEachChunk.computeIfAbsent(targetChunks[i], chunk -> {
+        Set<ServerPlayerEntity> trackingPlayers = new HashSet<>();
+        world.getChunkProvider().chunkManager.getTrackingPlayers(chunk, ONLY_PLAYERS_ON_BOUNDARY)
+                .forEach(trackingPlayers::add);
+        return trackingPlayers;
+      });
+    }
+
+    final int BLOCKS_PER_CHUNK = 16;
+    double viewDistanceBlocks = world.getServer().getPlayerList().getViewDistance() * BLOCKS_PER_CHUNK;
+    double viewDistanceSquared = viewDistanceBlocks * viewDistanceBlocks;
+    for (ServerPlayerEntity player : world.getPlayers()) {
+      Vector3d playerPosition = player.getPositionVec();
+      List<Vector3d> playerTargets = null;
+      for (int i = 0; i < targets.size(); ++i) {
+        Vector3d target = targets.get(i);
+        if (playerPosition.squareDistanceTo(target) <= viewDistanceSquared
+            || trackingPlayersForEachChunk.get(targetChunks[i]).contains(player)) {
+          if (playerTargets == null) playerTargets = targetsForEachPlayer.computeIfAbsent(player, p -> new ArrayList<>());
+          playerTargets.add(target);
+        }
+      }
+    }
+  }
+
+  private static final Map<ServerWorld, List<Vector3d>> pendingTargetEffects = new LinkedHashMap<>();
+}
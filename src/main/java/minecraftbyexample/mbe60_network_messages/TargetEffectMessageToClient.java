@@ -1,18 +1,24 @@
 package minecraftbyexample.mbe60_network_messages;
 
+import minecraftbyexample.usefultools.PacketCodecs;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.math.vector.Vector3d;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
- * This Network Message is sent from the server to all clients in the same dimension, to tell them to draw a "target indicator" at the target point
+ * This Network Message is sent from the server to the clients near the target, to tell them to draw a "target indicator" at the target point(s)
+ * If there are several targets in the same tick, they are all sent in the same message - see TargetEffectDistributor
  * Typical usage:
  * PREQUISITES:
  *   have previously setup SimpleChannel, registered the message class and the handler
  *
  * 1) User creates a TargetEffectMessageToClient(targetCoordinates)
- * 2) simpleChannel.sendToDimension(targetEffectMessageToClient);
+ * 2) simpleChannel.send(PacketDistributor.PLAYER.with(() -> player), targetEffectMessageToClient);
  * 3) Forge network code calls targetEffectMessageToClient.encode() to copy the message member variables to a PacketBuffer, ready for sending
  * ... bytes are sent over the network and arrive at the client....
  * 4) Forge network code calls targetEffectMessageToClient.decode() to recreate the targetEffectMessageToClient instance by reading
@@ -24,13 +30,23 @@ import org.apache.logging.log4j.Logger;
  */
 public class TargetEffectMessageToClient
 {
+  public static final int MAX_TARGETS_PER_MESSAGE = 64;
+
   public TargetEffectMessageToClient(Vector3d i_targetCoordinates)
   {
+    this(Collections.singletonList(i_targetCoordinates));
+  }
+
+  public TargetEffectMessageToClient(List<Vector3d> i_targetCoordinates)
+  {
+    if (i_targetCoordinates.size() > MAX_TARGETS_PER_MESSAGE) {
+      throw new IllegalArgumentException("Too many targets for one message:" + i_targetCoordinates.size());
+    }
     targetCoordinates = i_targetCoordinates;
     messageIsValid = true;
   }
 
-  public Vector3d getTargetCoordinates() {
+  public List<Vector3d> getTargetCoordinates() {
     return targetCoordinates;
   }
 
@@ -53,10 +69,15 @@ public class TargetEffectMessageToClient
   {
     TargetEffectMessageToClient retval = new TargetEffectMessageToClient();
     try {
-      double x = buf.readDouble();
-      double y = buf.readDouble();
-      double z = buf.readDouble();
-      retval.targetCoordinates = new Vector3d(x, y, z);
+      int numberOfTargets = buf.readVarInt();
+      if (numberOfTargets > MAX_TARGETS_PER_MESSAGE) {
+        throw new IllegalArgumentException("Too many targets:" + numberOfTargets);
+      }
+      List<Vector3d> targets = new ArrayList<>(numberOfTargets);
+      for (int i = 0; i < numberOfTargets; ++i) {
+        targets.add(PacketCodecs.readQuantisedPosition(buf));
+      }
+      retval.targetCoordinates = targets;
 
       // these methods may also be of use for your code:
       // for Itemstacks - ByteBufUtils.readItemStack()
@@ -80,9 +101,10 @@ public class TargetEffectMessageToClient
   public void encode(PacketBuffer buf)
   {
     if (!messageIsValid) return;
-    buf.writeDouble(targetCoordinates.x);
-    buf.writeDouble(targetCoordinates.y);
-    buf.writeDouble(targetCoordinates.z);
+    buf.writeVarInt(targetCoordinates.size());
+    for (Vector3d target : targetCoordinates) {
+      PacketCodecs.writeQuantisedPosition(buf, target);  // about 11 bytes instead of 24 for three doubles
+    }
 
     // these methods may also be of use for your code:
     // for Itemstacks - ByteBufUtils.writeItemStack()
@@ -91,13 +113,17 @@ public class TargetEffectMessageToClient
 //    System.out.println("TargetEffectMessageToClient:toBytes length=" + buf.readableBytes());  // debugging only
   }
 
+  // The codec used by StartupCommon to register this message
+  public static final MessageCodec<TargetEffectMessageToClient> CODEC =
+          MessageCodec.of(TargetEffectMessageToClient::encode, TargetEffectMessageToClient::decode);
+
   @Override
   public String toString()
   {
     return "TargetEffectMessageToClient[targetCoordinates=" + String.valueOf(targetCoordinates) + "]";
   }
 
-  private Vector3d targetCoordinates;
+  private List<Vector3d> targetCoordinates;
   private boolean messageIsValid;
 
   private static final Logger LOGGER = LogManager.getLogger();
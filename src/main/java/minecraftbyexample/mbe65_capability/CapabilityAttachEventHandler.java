@@ -29,7 +29,11 @@ public class CapabilityAttachEventHandler {
     Entity entity = event.getObject();
     if (entity instanceof AbstractArrowEntity
         || entity instanceof LivingEntity        ) {
-      event.addCapability(new ResourceLocation("minecraftbyexample:mbe65_capability_provider_entities") , new CapabilityProviderEntities());
+      // on the server, optionally keep the charges in a per-world store instead of in the provider (see ElementalChargeStore)
+      Entity chargeStoreEntity = ElementalChargeStore.isUsedFor(entity) ? entity : null;
+      CapabilityProviderEntities capabilityProviderEntities = new CapabilityProviderEntities(chargeStoreEntity);
+      event.addCapability(new ResourceLocation("minecraftbyexample:mbe65_capability_provider_entities") , capabilityProviderEntities);
+      event.addListener(capabilityProviderEntities::invalidateCaps);  // invalidate our LazyOptionals when the entity is removed
     }
   }
 }
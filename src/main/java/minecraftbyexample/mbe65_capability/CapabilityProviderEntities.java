@@ -1,8 +1,10 @@
 package minecraftbyexample.mbe65_capability;
 
 import minecraftbyexample.usefultools.NBTtypesMBE;
+import net.minecraft.entity.Entity;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.IntNBT;
 import net.minecraft.util.Direction;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.ICapabilitySerializable;
@@ -18,9 +20,33 @@ import javax.annotation.Nullable;
  * In this case there are two:
  * 1) CapabilityElementalFire --> ElementalFireInterfaceInstance
  * 2) CapabilityElementalAir --> ElementalAirInterfaceInstance
+ *
+ * This provider is attached to every LivingEntity and arrow in the world, but only a handful of them will ever be hit by
+ *  an elemental arrow.  So the interface instances aren't created until they are first used, and empty (zero charge)
+ *  instances aren't saved:
+ *  1) Each provider creates its two LazyOptionals once, and returns the same ones from every getCapability call
+ *  2) The interface instance is created the first time that one of the LazyOptionals is resolved (eg ifPresent, orElse),
+ *     and is an ordinary mutable ElementalFire / ElementalAir from then on
+ *
+ * If the entity is in a world which uses the ElementalChargeStore, the interface instances are views into the store instead,
+ *  and the charges are saved with the chunk rather than the entity.
  */
 public class CapabilityProviderEntities implements ICapabilitySerializable<INBT> {
 
+  public CapabilityProviderEntities() {
+    this(null);
+  }
+
+  /**
+   * @param chargeStoreEntity the entity this provider is attached to, if its charges are kept in the ElementalChargeStore;
+   *                          or null to keep them in this provider
+   */
+  public CapabilityProviderEntities(@Nullable Entity chargeStoreEntity) {
+    this.chargeStoreEntity = chargeStoreEntity;
+    elementalFireOptional = LazyOptional.of(this::getOrCreateElementalFire);
+    elementalAirOptional = LazyOptional.of(this::getOrCreateElementalAir);
+  }
+
   private final Direction NO_SPECIFIC_SIDE = null;
 
   /**
@@ -29,21 +55,18 @@ public class CapabilityProviderEntities implements ICapabilitySerializable<INBT>
    * @param facing the side of the provider being checked (null = no particular side)
    * @param <T> The interface instance that is used
    * @return a lazy-initialisation supplier of the interface instance that is used to access this capability
-   *         In this case, we don't actually use lazy initialisation because the instance is very quick to create.
-   *         See CapabilityProviderFlowerBag for an example of lazy initialisation
    */
   @Nonnull
   @Override
   public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> capability, @Nullable Direction facing) {
     if (CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE == capability) {
-      return (LazyOptional<T>)LazyOptional.of(()-> elementalFire);
-      // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
-      //   conforms itself to that interface.  This save me having to define an inner class implementing NonNullSupplier.
+      return (LazyOptional<T>)elementalFireOptional;
+      // We return the same LazyOptional every time, instead of creating a new one for every call - see elementalFireOptional below
       // The explicit cast to LazyOptional<T> is required because our CAPABILITY_ELEMENTAL_FIRE can't be typed.  Our code has
       //   checked that the requested capability matches, so the explict cast is safe (unless you have mixed them up)
     }
     if (CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR == capability) {
-      return (LazyOptional<T>)LazyOptional.of(()-> elementalAir);
+      return (LazyOptional<T>)elementalAirOptional;
     }
 
     return LazyOptional.empty();
@@ -57,21 +80,30 @@ public class CapabilityProviderEntities implements ICapabilitySerializable<INBT>
 
   private final static String AIR_NBT = "air";
   private final static String FIRE_NBT = "fire";
+  private final static INBT EMPTY_CHARGE_NBT = IntNBT.valueOf(0);
 
   /**Write all the capability state information to NBT - fire, and air
+   * If the fire or air is empty (never created, or zero charge), it isn't written at all
+   * If the charges are kept in the ElementalChargeStore, nothing is written: the store saves them with the chunk
    */
   @Override
   public INBT serializeNBT() {
     CompoundNBT nbt = new CompoundNBT();
-    INBT fireNBT = CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE.writeNBT(elementalFire, NO_SPECIFIC_SIDE);
-    INBT airNBT = CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR.writeNBT(elementalAir, NO_SPECIFIC_SIDE);
-    nbt.put(AIR_NBT, airNBT);
-    nbt.put(FIRE_NBT, fireNBT);
+    if (chargeStoreEntity != null) return nbt;
+    if (elementalAir != null && elementalAir.getChargeLevel() != 0) {
+      INBT airNBT = CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR.writeNBT(elementalAir, NO_SPECIFIC_SIDE);
+      nbt.put(AIR_NBT, airNBT);
+    }
+    if (elementalFire != null && elementalFire.getChargeLevel() != 0) {
+      INBT fireNBT = CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE.writeNBT(elementalFire, NO_SPECIFIC_SIDE);
+      nbt.put(FIRE_NBT, fireNBT);
+    }
     return nbt;
   }
 
   /**Read the capability state information out of NBT - fire, and air
    * Overwrite the interface instances with the nbt information
+   * (If the charges are kept in the ElementalChargeStore, this copies any charges saved before the store was enabled into the store)
    */
   @Override
   public void deserializeNBT(INBT nbt) {
@@ -83,12 +115,59 @@ public class CapabilityProviderEntities implements ICapabilitySerializable<INBT>
     INBT airNBT = compoundNBT.get(AIR_NBT);
     INBT fireNBT = compoundNBT.get(FIRE_NBT);
 
-    CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR.readNBT(elementalAir, NO_SPECIFIC_SIDE, airNBT);
-    CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE.readNBT(elementalFire, NO_SPECIFIC_SIDE, fireNBT);
+    // A missing tag means empty.  Older saves wrote a zero charge for every entity; don't create an instance for those.
+    if (airNBT != null || elementalAir != null) {
+      boolean alreadyCreated = (elementalAir != null);
+      CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR.readNBT(getOrCreateElementalAir(), NO_SPECIFIC_SIDE,
+                                                              (airNBT != null) ? airNBT : EMPTY_CHARGE_NBT);
+      if (!alreadyCreated && elementalAir.getChargeLevel() == 0) {
+        elementalAir = null;   // elementalAirOptional hasn't been resolved yet (otherwise it would have been created already)
+      }
+    }
+    if (fireNBT != null || elementalFire != null) {
+      boolean alreadyCreated = (elementalFire != null);
+      CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE.readNBT(getOrCreateElementalFire(), NO_SPECIFIC_SIDE,
+                                                                (fireNBT != null) ? fireNBT : EMPTY_CHARGE_NBT);
+      if (!alreadyCreated && elementalFire.getChargeLevel() == 0) {
+        elementalFire = null;
+      }
+    }
+  }
+
+  /**
+   * Called when the entity that this provider is attached to is removed (see CapabilityAttachEventHandler).
+   * Anyone who is still holding one of our LazyOptionals will be notified that it is no longer valid.
+   */
+  public void invalidateCaps() {
+    elementalFireOptional.invalidate();
+    elementalAirOptional.invalidate();
+  }
+
+  private ElementalFire getOrCreateElementalFire() {
+    if (elementalFire == null) {
+      elementalFire = (chargeStoreEntity != null) ? new ElementalChargeStore.FireView(chargeStoreEntity) : new ElementalFire();
+    }
+    return elementalFire;
   }
 
-  private ElementalFire elementalFire = new ElementalFire();
-  private ElementalAir elementalAir = new ElementalAir();
+  private ElementalAir getOrCreateElementalAir() {
+    if (elementalAir == null) {
+      elementalAir = (chargeStoreEntity != null) ? new ElementalChargeStore.AirView(chargeStoreEntity) : new ElementalAir();
+    }
+    return elementalAir;
+  }
+
+  private final Entity chargeStoreEntity;  // null if the ElementalChargeStore isn't used
+
+  // these are null until the LazyOptional is first resolved
+  private ElementalFire elementalFire = null;
+  private ElementalAir elementalAir = null;
+
+  // The LazyOptionals are created once, in the constructor, and reused for every getCapability call.
+  // why are we using a method reference?  Because LazyOptional.of() expects a NonNullSupplier interface.  The method reference
+  //   automatically conforms itself to that interface.  This save me having to define an inner class implementing NonNullSupplier.
+  private final LazyOptional<ElementalFire> elementalFireOptional;
+  private final LazyOptional<ElementalAir> elementalAirOptional;
 
   private static final Logger LOGGER = LogManager.getLogger();
 
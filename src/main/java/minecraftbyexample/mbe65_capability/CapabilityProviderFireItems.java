@@ -31,9 +31,7 @@ public class CapabilityProviderFireItems implements ICapabilitySerializable<INBT
   @Override
   public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> capability, @Nullable Direction facing) {
     if (CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE == capability) {
-      return (LazyOptional<T>)LazyOptional.of(()-> elementalFire);
-      // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
-      //   conforms itself to that interface.  This save me having to define an inner class implementing NonNullSupplier.
+      return (LazyOptional<T>)elementalFireOptional;   // the same LazyOptional is returned every time - see below
       // The explicit cast to LazyOptional<T> is required because our CAPABILITY_ELEMENTAL_FIRE can't be typed.  Our code has
       //   checked that the requested capability matches, so the explicit cast is safe (unless you have made a mistake and mixed them up!)
     }
@@ -61,4 +59,10 @@ public class CapabilityProviderFireItems implements ICapabilitySerializable<INBT
   }
 
   private ElementalFire elementalFire = new ElementalFire();
+
+  // why are we using a lambda?  Because LazyOptional.of() expects a NonNullSupplier interface.  The lambda automatically
+  //   conforms itself to that interface.  This save me having to define an inner class implementing NonNullSupplier.
+  // The LazyOptional is created once and reused, instead of creating a new one every time getCapability is called.
+  //   ItemStacks are never "removed" so there is no need to invalidate it.
+  private final LazyOptional<ElementalFire> elementalFireOptional = LazyOptional.of(()-> elementalFire);
 }
\ No newline at end of file
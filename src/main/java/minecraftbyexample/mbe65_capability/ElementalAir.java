@@ -26,7 +26,7 @@ public class ElementalAir {
   public int getChargeLevel() {return chargeLevel;}
   public void addCharge(int chargeToAdd) {chargeLevel += chargeToAdd;}
 
-  private void setChargeLevel(int chargeLevelToSet) {chargeLevel = chargeLevelToSet;}
+  protected void setChargeLevel(int chargeLevelToSet) {chargeLevel = chargeLevelToSet;}
 
   private int chargeLevel;
 
@@ -34,7 +34,7 @@ public class ElementalAir {
   public static class ElementalAirNBTStorage implements Capability.IStorage<ElementalAir> {
     @Override
     public INBT writeNBT(Capability<ElementalAir> capability, ElementalAir instance, Direction side) {
-      IntNBT intNBT = IntNBT.valueOf(instance.chargeLevel);
+      IntNBT intNBT = IntNBT.valueOf(instance.getChargeLevel());
       return intNBT;
     }
 
@@ -0,0 +1,320 @@
+package minecraftbyexample.mbe65_capability;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import minecraftbyexample.mbe70_configuration.MBETunables;
+import minecraftbyexample.usefultools.NBTtypesMBE;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.LongArrayNBT;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An optional backend for the elemental charges on entities, for worlds with very large numbers of charged entities (eg mob farms).
+ * Instead of each entity having its own ElementalFire and ElementalAir objects which are saved to NBT one at a time, the charges
+ *   for all the entities in a ServerWorld are kept in parallel primitive arrays, indexed by a slot number:
+ *   entityIDs[slot], fireCharges[slot], airCharges[slot]
+ * The ElementalFire and ElementalAir capabilities become thin views (FireView, AirView) which read and write the arrays.
+ * Only entities with a non-zero charge take up a slot; the slot is released (swap with the last slot) when both charges drop to zero.
+ *
+ * Saving: the charges are not written to the entity NBT.  Instead, when a chunk is saved, the charges for all the entities in
+ *   that chunk are packed into a single LongArrayNBT in the chunk data: [FORMAT_VERSION, {uuidMost, uuidLeast, fire<<32 | air} ...]
+ *   When the chunk is loaded, the charges are held by UUID until the entities join the world.  The same holding area is used
+ *   when an entity changes dimension (the copy in the new dimension has the same UUID).
+ *
+ * The backend is off by default; set useElementalChargeStore in the MBETunables config to use it.  It only changes
+ *   how the charges are stored; getCapability() works the same either way.
+ * Players are never kept in the store: they aren't saved with the chunks, so their charges are saved in the player NBT instead.
+ * Each ServerWorld's store is created when the world is loaded and discarded when it is unloaded; after that, the views
+ *   read a zero charge and ignore writes, rather than creating a new store which would keep the unloaded world alive.
+ * Must be registered on the MinecraftForge.EVENT_BUS.  Only used on the server thread.
+ */
+public class ElementalChargeStore {
+
+  /**
+   * Should the charges of this entity be kept in the store?  Decided once, when the capability is attached to the entity.
+   */
+  public static boolean isUsedFor(Entity entity) {
+    return MBETunables.get().useElementalChargeStore
+           && entity.world instanceof ServerWorld
+           && !(entity instanceof PlayerEntity);
+  }
+
+  /** @return the store for the given world, or null if the world isn't loaded (or has already been unloaded) */
+  @Nullable
+  public static ElementalChargeStore forWorld(ServerWorld world) {
+    return stores.get(world);
+  }
+
+  public int getFireCharge(int entityID) {
+    int slot = slotOfEntity.get(entityID);
+    return (slot == NO_SLOT) ? 0 : fireCharges[slot];
+  }
+
+  public int getAirCharge(int entityID) {
+    int slot = slotOfEntity.get(entityID);
+    return (slot == NO_SLOT) ? 0 : airCharges[slot];
+  }
+
+  public void setFireCharge(int entityID, int charge) {
+    int slot = slotOfEntity.get(entityID);
+    if (slot == NO_SLOT) {
+      if (charge == 0) return;
+      slot = allocateSlot(entityID);
+    }
+    fireCharges[slot] = charge;
+    if (charge == 0 && airCharges[slot] == 0) releaseSlot(slot);
+  }
+
+  public void setAirCharge(int entityID, int charge) {
+    int slot = slotOfEntity.get(entityID);
+    if (slot == NO_SLOT) {
+      if (charge == 0) return;
+      slot = allocateSlot(entityID);
+    }
+    airCharges[slot] = charge;
+    if (charge == 0 && fireCharges[slot] == 0) releaseSlot(slot);
+  }
+
+  /** the number of entities which currently have a non-zero charge */
+  public int size() {return size;}
+
+  private int allocateSlot(int entityID) {
+    if (size == entityIDs.length) {
+      int newCapacity = entityIDs.length * 2;
+      entityIDs = Arrays.copyOf(entityIDs, newCapacity);
+      fireCharges = Arrays.copyOf(fireCharges, newCapacity);
+      airCharges = Arrays.copyOf(airCharges, newCapacity);
+    }
+    int slot = size++;
+    entityIDs[slot] = entityID;
+    fireCharges[slot] = 0;
+    airCharges[slot] = 0;
+    slotOfEntity.put(entityID, slot);
+    return slot;
+  }
+
+  // move the last slot into the released slot so that the arrays stay packed
+  private void releaseSlot(int slot) {
+    slotOfEntity.remove(entityIDs[slot]);
+    int last = --size;
+    if (slot != last) {
+      entityIDs[slot] = entityIDs[last];
+      fireCharges[slot] = fireCharges[last];
+      airCharges[slot] = airCharges[last];
+      slotOfEntity.put(entityIDs[slot], slot);
+    }
+  }
+
+  // ---------- the capability views
+
+  // The views look up the store and the entity ID from the entity every time, rather than remembering them, because both can
+  //   change during the lifetime of the entity (eg the entity moves to a different world)
+  // If the world has been unloaded, there is no store: the charge reads as zero and changes are ignored
+  @Nullable
+  private static ElementalChargeStore storeOf(Entity entity) {
+    return forWorld((ServerWorld)entity.world);
+  }
+
+  /** An ElementalFire which reads and writes the charge held in the store, instead of holding it itself */
+  public static class FireView extends ElementalFire {
+    public FireView(Entity entity) {
+      this.entity = entity;
+    }
+
+    @Override
+    public int getChargeLevel() {
+      ElementalChargeStore store = storeOf(entity);
+      return (store == null) ? 0 : store.getFireCharge(entity.getEntityId());
+    }
+
+    @Override
+    public void addCharge(int chargeToAdd) {setChargeLevel(getChargeLevel() + chargeToAdd);}
+
+    @Override
+    protected void setChargeLevel(int chargeLevelToSet) {
+      ElementalChargeStore store = storeOf(entity);
+      if (store != null) store.setFireCharge(entity.getEntityId(), chargeLevelToSet);
+    }
+
+    private final Entity entity;
+  }
+
+  /** An ElementalAir which reads and writes the charge held in the store, instead of holding it itself */
+  public static class AirView extends ElementalAir {
+    public AirView(Entity entity) {
+      this.entity = entity;
+    }
+
+    @Override
+    public int getChargeLevel() {
+      ElementalChargeStore store = storeOf(entity);
+      return (store == null) ? 0 : store.getAirCharge(entity.getEntityId());
+    }
+
+    @Override
+    public void addCharge(int chargeToAdd) {setChargeLevel(getChargeLevel() + chargeToAdd);}
+
+    @Override
+    protected void setChargeLevel(int chargeLevelToSet) {
+      ElementalChargeStore store = storeOf(entity);
+      if (store != null) store.setAirCharge(entity.getEntityId(), chargeLevelToSet);
+    }
+
+    private final Entity entity;
+  }
+
+  // ---------- events which keep the store up to date
+
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.ServerTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    ++serverTickCount;
+    if (!heldCharges.isEmpty()) heldCharges.values().removeIf(held -> held.expiryTick < serverTickCount);
+  }
+
+  // when an entity leaves the world (unloaded, killed, or changing dimension), hold its charges by UUID in case it comes back
+  @SubscribeEvent
+  public static void onEntityLeaveWorld(EntityLeaveWorldEvent event) {
+    if (!(event.getWorld() instanceof ServerWorld)) return;
+    ElementalChargeStore store = stores.get(event.getWorld());
+    if (store == null) return;
+    Entity entity = event.getEntity();
+    int slot = store.slotOfEntity.get(entity.getEntityId());
+    if (slot == NO_SLOT) return;
+    holdCharges(entity.getUniqueID(), store.fireCharges[slot], store.airCharges[slot]);
+    store.releaseSlot(slot);
+  }
+
+  // restore the held charges using the capability, so that it works whether or not this entity is using the store
+  @SubscribeEvent
+  public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+    if (!(event.getWorld() instanceof ServerWorld) || heldCharges.isEmpty()) return;
+    Entity entity = event.getEntity();
+    HeldCharges held = heldCharges.remove(entity.getUniqueID());
+    if (held == null) return;
+    if (held.fireCharge != 0) {
+      entity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).ifPresent(fire -> fire.setChargeLevel(held.fireCharge));
+    }
+    if (held.airCharge != 0) {
+      entity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).ifPresent(air -> air.setChargeLevel(held.airCharge));
+    }
+  }
+
+  @SubscribeEvent
+  public static void onChunkSave(ChunkDataEvent.Save event) {
+    if (!(event.getWorld() instanceof ServerWorld) || !(event.getChunk() instanceof Chunk)) return;
+    ElementalChargeStore store = stores.get(event.getWorld());
+    if (store == null || store.size == 0) return;
+
+    LongArrayList packed = new LongArrayList();
+    packed.add(FORMAT_VERSION);
+    for (ClassInheritanceMultiMap<Entity> entityList : ((Chunk)event.getChunk()).getEntityLists()) {
+      for (Entity entity : entityList) {
+        int slot = store.slotOfEntity.get(entity.getEntityId());
+        if (slot == NO_SLOT) continue;
+        UUID uuid = entity.getUniqueID();
+        packed.add(uuid.getMostSignificantBits());
+        packed.add(uuid.getLeastSignificantBits());
+        packed.add(((long)store.fireCharges[slot] << 32) | (store.airCharges[slot] & 0xffffffffL));
+      }
+    }
+    if (packed.size() > 1) {
+      event.getData().put(CHUNK_NBT, new LongArrayNBT(packed.toLongArray()));
+    }
+  }
+
+  @SubscribeEvent
+  public static void onChunkLoad(ChunkDataEvent.Load event) {
+    if (!(event.getWorld() instanceof ServerWorld)) return;
+    CompoundNBT data = event.getData();
+    if (!data.contains(CHUNK_NBT, NBTtypesMBE.LONG_ARRAY_NBT_ID)) return;
+    long [] packed = data.getLongArray(CHUNK_NBT);
+    if (packed.length == 0 || packed[0] != FORMAT_VERSION || (packed.length - 1) % LONGS_PER_ENTITY != 0) {
+      LOGGER.warn("Ignoring unrecognised elemental charge data in chunk " + event.getChunk().getPos());
+      return;
+    }
+    for (int i = 1; i < packed.length; i += LONGS_PER_ENTITY) {
+      UUID uuid = new UUID(packed[i], packed[i + 1]);
+      long charges = packed[i + 2];
+      holdCharges(uuid, (int)(charges >> 32), (int)charges);
+    }
+  }
+
+  @SubscribeEvent
+  public static void onWorldLoad(WorldEvent.Load event) {
+    if (event.getWorld() instanceof ServerWorld) {
+      stores.put((ServerWorld)event.getWorld(), new ElementalChargeStore());
+    }
+  }
+
+  @SubscribeEvent
+  public static void onWorldUnload(WorldEvent.Unload event) {
+    stores.remove(event.getWorld());
+  }
+
+  @SubscribeEvent
+  public static void onServerStopped(FMLServerStoppedEvent event) {
+    stores.clear();
+    heldCharges.clear();
+  }
+
+  private static void holdCharges(UUID uuid, int fireCharge, int airCharge) {
+    heldCharges.put(uuid, new HeldCharges(fireCharge, airCharge, serverTickCount + HOLD_CHARGES_TICKS));
+  }
+
+  private static class HeldCharges {
+    public HeldCharges(int fireCharge, int airCharge, long expiryTick) {
+      this.fireCharge = fireCharge;
+      this.airCharge = airCharge;
+      this.expiryTick = expiryTick;
+    }
+
+    public final int fireCharge;
+    public final int airCharge;
+    public final long expiryTick;
+  }
+
+  private static final int NO_SLOT = -1;
+  private static final int INITIAL_CAPACITY = 16;
+  private static final long FORMAT_VERSION = 1;
+  private static final int LONGS_PER_ENTITY = 3;
+  private static final String CHUNK_NBT = "mbe65_elemental_charges";
+  private static final int HOLD_CHARGES_TICKS = 20 * 10;  // long enough for an entity to finish changing dimension
+
+  private final Int2IntOpenHashMap slotOfEntity = new Int2IntOpenHashMap();
+  {
+    slotOfEntity.defaultReturnValue(NO_SLOT);
+  }
+  private int size = 0;
+  private int [] entityIDs = new int[INITIAL_CAPACITY];
+  private int [] fireCharges = new int[INITIAL_CAPACITY];
+  private int [] airCharges = new int[INITIAL_CAPACITY];
+
+  private static final Map<ServerWorld, ElementalChargeStore> stores = new HashMap<>();
+  // chunk loading may happen off the server thread in some versions, so play safe
+  private static final Map<UUID, HeldCharges> heldCharges = new ConcurrentHashMap<>();
+  private static long serverTickCount = 0;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -25,7 +25,7 @@ public class ElementalFire {
   public int getChargeLevel() {return chargeLevel;}
   public void addCharge(int chargeToAdd) {chargeLevel += chargeToAdd;}
 
-  private void setChargeLevel(int chargeLevelToSet) {chargeLevel = chargeLevelToSet;}
+  protected void setChargeLevel(int chargeLevelToSet) {chargeLevel = chargeLevelToSet;}
 
   private int chargeLevel;
 
@@ -33,7 +33,7 @@ public class ElementalFire {
   public static class ElementalFireNBTStorage implements Capability.IStorage<ElementalFire> {
     @Override
     public INBT writeNBT(Capability<ElementalFire> capability, ElementalFire instance, Direction side) {
-      IntNBT intNBT = IntNBT.valueOf(instance.chargeLevel);
+      IntNBT intNBT = IntNBT.valueOf(instance.getChargeLevel());
       return intNBT;
     }
 
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe65_capability;
 
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.projectile.AbstractArrowEntity;
@@ -47,10 +48,36 @@ public class ElementalInteractions {
   public static final int MAX_AIR_CHARGE_LEVEL_ARROW = 100;    // an arrow can't hold more than this amount of air
   public static final int MAX_AIR_CHARGE_LEVEL_ENTITY = 1000;  // a living entity can't hold more than this amount of air
 
+  // Arrows fired by an elemental bow or crossbow are marked with this flag in their persistent data, so that we can quickly
+  //   ignore all the other arrows.  (Not a scoreboard tag - those are visible to the /tag command, and limited in number)
+  public static final String ELEMENTAL_ARROW_NBT = "mbe65_elemental_arrow";
+
+  /**
+   * Mark the arrow as an elemental arrow; must be called when elemental fire or air is added to an arrow
+   */
+  public static void markAsElementalArrow(Entity arrowEntity) {
+    arrowEntity.getPersistentData().putBoolean(ELEMENTAL_ARROW_NBT, true);
+  }
+
   // When a fire or air arrow strikes an entity or block...
   @SubscribeEvent
   public static void onProjectileImpact(ProjectileImpactEvent.Arrow event) {
+    long profileStartTime = IMPACT_PROFILE.start();
+    try {
+      handleProjectileImpact(event);
+    } finally {
+      IMPACT_PROFILE.stop(profileStartTime);
+    }
+  }
+
+  private static final TickProfiler.Section IMPACT_PROFILE = TickProfiler.section(ElementalInteractions.class, "onProjectileImpact");
+
+  private static void handleProjectileImpact(ProjectileImpactEvent.Arrow event) {
     AbstractArrowEntity arrowEntity = event.getArrow();
+
+    // Fast path for vanilla arrows: a quick check of the persistent data is much cheaper than looking up the capabilities
+    if (!arrowEntity.getPersistentData().getBoolean(ELEMENTAL_ARROW_NBT)) return;
+
     ElementalFire arrowFire = arrowEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
     ElementalAir arrowAir = arrowEntity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).orElse(null);
 
@@ -153,8 +180,8 @@ public class ElementalInteractions {
    */
   private static void entityHitFire(ServerWorld serverWorld, LivingEntity livingEntity,
                                     ElementalFire arrowFire) {
-    ElementalFire entityFire = livingEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
     if (arrowFire.getChargeLevel() == 0) return;
+    ElementalFire entityFire = livingEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
     if (entityFire == null) return;
 
     entityFire.addCharge(arrowFire.getChargeLevel());
@@ -176,9 +203,9 @@ public class ElementalInteractions {
    */
   private static void entityHitAir(ServerWorld serverWorld, LivingEntity livingEntity,
                                     ElementalAir arrowAir) {
+    if (arrowAir.getChargeLevel() == 0) return;
     ElementalAir entityAir = livingEntity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).orElse(null);
     if (entityAir == null) return;
-    if (arrowAir.getChargeLevel() == 0) return;
 
     entityAir.addCharge(arrowAir.getChargeLevel());
 
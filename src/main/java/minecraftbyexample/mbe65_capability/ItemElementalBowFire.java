@@ -53,9 +53,11 @@ public class ItemElementalBowFire extends BowItem  // extend BowItem instead of
    * @param fireCharge
    */
   private void setElementalFireLevel(Entity abstractArrowEntity, int fireCharge) {
+    if (fireCharge == 0) return;
     ElementalFire fireInterface = abstractArrowEntity.getCapability(CapabilityElementalFire.CAPABILITY_ELEMENTAL_FIRE).orElse(null);
-    if (fireInterface == null) return;;
+    if (fireInterface == null) return;
     fireInterface.addCharge(fireCharge);
+    ElementalInteractions.markAsElementalArrow(abstractArrowEntity);
   }
 
   /**
@@ -1,6 +1,7 @@
 package minecraftbyexample.mbe65_capability;
 
 import com.google.common.collect.Lists;
+import minecraftbyexample.usefultools.ItemStackDerivedStateCache;
 import minecraftbyexample.usefultools.NBTtypesMBE;
 import net.minecraft.advancements.CriteriaTriggers;
 import net.minecraft.util.math.vector.Quaternion;
@@ -32,6 +33,7 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.function.Predicate;
@@ -58,9 +60,11 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
     * @param airCharge
     */
    private static void setElementalAirLevel(Entity abstractArrowEntity, int airCharge) {
+     if (airCharge == 0) return;
      ElementalAir airInterface = abstractArrowEntity.getCapability(CapabilityElementalAir.CAPABILITY_ELEMENTAL_AIR).orElse(null);
      if (airInterface == null) return;
      airInterface.addCharge(airCharge);
+     ElementalInteractions.markAsElementalArrow(abstractArrowEntity);
    }
 
    /**
@@ -225,13 +229,13 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
   }
 
   public static boolean isCharged(ItemStack crossbowItemStack) {
-    CompoundNBT crossbowBaseTag = crossbowItemStack.getTag();
-    return crossbowBaseTag != null && crossbowBaseTag.getBoolean("Charged");
+    return crossbowStateCache.get(crossbowItemStack).charged;
   }
 
   public static void setCharged(ItemStack itemStackCrossbow, boolean charged) {
     CompoundNBT crossbowBaseTag = itemStackCrossbow.getOrCreateTag();
     crossbowBaseTag.putBoolean("Charged", charged);
+    crossbowStateCache.invalidate(itemStackCrossbow);
   }
 
   private static void addChargedProjectile(ItemStack itemStackCrossbow, ItemStack itemStackProjectile) {
@@ -247,11 +251,16 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
     itemStackProjectile.write(projectileNBT);
     listOfProjectilesNBT.add(projectileNBT);
     crossbowBaseTag.put("ChargedProjectiles", listOfProjectilesNBT);
+    crossbowStateCache.invalidate(itemStackCrossbow);
   }
 
+  // the returned list and stacks are shared with the cache; don't modify them
   private static List<ItemStack> getChargedProjectiles(ItemStack crossbowItemStack) {
+    return crossbowStateCache.get(crossbowItemStack).chargedProjectiles;
+  }
+
+  private static List<ItemStack> readChargedProjectiles(@Nullable CompoundNBT crossbowBaseTag) {
     ArrayList projectileList = Lists.newArrayList();
-    CompoundNBT crossbowBaseTag = crossbowItemStack.getTag();
     if (crossbowBaseTag != null && crossbowBaseTag.contains("ChargedProjectiles", NBTtypesMBE.LIST_NBT_ID)) {
       ListNBT chargedProjectilesNBTlist = crossbowBaseTag.getList("ChargedProjectiles", NBTtypesMBE.COMPOUND_NBT_ID);
       if (chargedProjectilesNBTlist != null) {
@@ -262,8 +271,21 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
       }
     }
 
-    return projectileList;
+    return Collections.unmodifiableList(projectileList);
+  }
+
+  // isCharged() is called several times per frame by the property overrides, so the charged flag and the list of projectiles
+  //   are parsed from the NBT once and cached until the tag changes.  Any code which changes the tag must call
+  //   crossbowStateCache.invalidate() - see setCharged(), addChargedProjectile(), clearProjectiles()
+  private static class CrossbowState {
+    CrossbowState(@Nullable CompoundNBT crossbowBaseTag) {
+      charged = crossbowBaseTag != null && crossbowBaseTag.getBoolean("Charged");
+      chargedProjectiles = readChargedProjectiles(crossbowBaseTag);
+    }
+    final boolean charged;
+    final List<ItemStack> chargedProjectiles;
   }
+  private static final ItemStackDerivedStateCache<CrossbowState> crossbowStateCache = new ItemStackDerivedStateCache<>(CrossbowState::new);
 
   private static void clearProjectiles(ItemStack crossbowItemStack) {
     CompoundNBT crossbowBaseTag = crossbowItemStack.getTag();
@@ -271,6 +293,7 @@ public class ItemElementalCrossbowAir extends CrossbowItem {  // need to extend
       ListNBT chargedProjectileListNBT = crossbowBaseTag.getList("ChargedProjectiles", NBTtypesMBE.LIST_NBT_ID);
       chargedProjectileListNBT.clear();
       crossbowBaseTag.put("ChargedProjectiles", chargedProjectileListNBT);
+      crossbowStateCache.invalidate(crossbowItemStack);
     }
   }
 
@@ -42,5 +42,8 @@ public class StartupCommon
 
     // used to capture the ProjectileImpactEvent event, for when the arrow hits a target.
     MinecraftForge.EVENT_BUS.register(ElementalInteractions.class);
+
+    // keeps the optional per-world store of entity charges up to date, and saves/loads it with the chunks
+    MinecraftForge.EVENT_BUS.register(ElementalChargeStore.class);
   }
 }
@@ -0,0 +1,194 @@
+package minecraftbyexample.mbe70_configuration;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.config.ModConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The tunable settings of the MBE examples (eg the number of projectiles in an airstrike, the particle budget), read from
+ *   config/minecraftbyexample-tunables.toml
+ * Forge watches the file, so if you edit it while the game is running, the new values are used straight away (look for
+ *   "Reloaded tunables" in the log).  Values which are out of range are replaced by Forge with their default.
+ *
+ * Typical usage, on a hot path:
+ *   MBETunables.Snapshot tunables = MBETunables.get();
+ *   for (int i = 0; i < tunables.maxSpawnsPerTick; ++i) { ... }
+ *
+ * The values aren't read from the ForgeConfigSpec each time they are used.  Instead, whenever the file is loaded or
+ *   reloaded, all the values are copied into a new immutable Snapshot which replaces the old one.  So:
+ * 1) get() is just a read of a volatile field - no locking and no config lookups, safe to call from any thread
+ * 2) If you read several values from the same Snapshot, they are guaranteed to be consistent with each other even if the
+ *    file is reloaded halfway through (the reload happens on Forge's file watcher thread, not the server thread)
+ * Don't keep a Snapshot for longer than you need it (eg store it in a field) otherwise you won't see the changes.
+ *
+ * Must be registered on the mod event bus, and SPEC must be registered using ModLoadingContext.registerConfig() during mod
+ *   construction - see StartupCommon.
+ */
+public class MBETunables {
+
+  /** @return the current settings.  Before the config file has been loaded, these are the defaults. */
+  public static Snapshot get() {
+    return currentSnapshot;
+  }
+
+  public static final class Snapshot {
+    // mbe60 airstrikes
+    public final int airstrikeMinProjectiles;
+    public final int airstrikeMaxProjectiles;
+    public final int airstrikeSpreadOverTicks;
+    public final int airstrikeMaxSpawnsPerTick;
+    public final double airstrikeBurstSize;
+    public final double airstrikesPerSecond;
+
+    // mbe50 particles
+    public final int maxParticlesPerFrame;
+    public final int maxParticlesPerChunkPerFrame;
+    public final double particleDemotionDistance;
+    public final double flameEmitterTargetingDistance;
+
+    // mbe31 furnace
+    public final double furnaceMaxPlayerDistance;
+
+    // mbe81 boomerang
+    public final float boomerangMinFlightDistance;
+    public final float boomerangMaxFlightDistance;
+    public final float boomerangMinFlightSpeed;
+    public final float boomerangMaxFlightSpeed;
+    public final int boomerangLifespanTicks;
+
+    // mbe65 capability
+    public final boolean useElementalChargeStore;
+
+    private Snapshot() {
+      airstrikeMinProjectiles = AIRSTRIKE_MIN_PROJECTILES.get();
+      airstrikeMaxProjectiles = Math.max(airstrikeMinProjectiles, AIRSTRIKE_MAX_PROJECTILES.get());
+      airstrikeSpreadOverTicks = AIRSTRIKE_SPREAD_OVER_TICKS.get();
+      airstrikeMaxSpawnsPerTick = AIRSTRIKE_MAX_SPAWNS_PER_TICK.get();
+      airstrikeBurstSize = AIRSTRIKE_BURST_SIZE.get();
+      airstrikesPerSecond = AIRSTRIKES_PER_SECOND.get();
+
+      maxParticlesPerFrame = MAX_PARTICLES_PER_FRAME.get();
+      maxParticlesPerChunkPerFrame = MAX_PARTICLES_PER_CHUNK_PER_FRAME.get();
+      particleDemotionDistance = PARTICLE_DEMOTION_DISTANCE.get();
+      flameEmitterTargetingDistance = FLAME_EMITTER_TARGETING_DISTANCE.get();
+
+      furnaceMaxPlayerDistance = FURNACE_MAX_PLAYER_DISTANCE.get();
+
+      boomerangMinFlightDistance = BOOMERANG_MIN_FLIGHT_DISTANCE.get().floatValue();
+      boomerangMaxFlightDistance = Math.max(boomerangMinFlightDistance, BOOMERANG_MAX_FLIGHT_DISTANCE.get().floatValue());
+      boomerangMinFlightSpeed = BOOMERANG_MIN_FLIGHT_SPEED.get().floatValue();
+      boomerangMaxFlightSpeed = Math.max(boomerangMinFlightSpeed, BOOMERANG_MAX_FLIGHT_SPEED.get().floatValue());
+      boomerangLifespanTicks = BOOMERANG_LIFESPAN_TICKS.get();
+
+      useElementalChargeStore = USE_ELEMENTAL_CHARGE_STORE.get();
+    }
+  }
+
+  @SubscribeEvent
+  public static void onConfigLoading(ModConfig.Loading event) {
+    if (event.getConfig().getSpec() != SPEC) return;
+    configLoaded = true;
+    currentSnapshot = new Snapshot();
+    LOGGER.info("Loaded tunables from {}", event.getConfig().getFileName());
+  }
+
+  @SubscribeEvent
+  public static void onConfigReloading(ModConfig.Reloading event) {
+    if (event.getConfig().getSpec() != SPEC) return;
+    currentSnapshot = new Snapshot();
+    LOGGER.info("Reloaded tunables from {}", event.getConfig().getFileName());
+  }
+
+  /**
+   * A value in the config file, with its default.  The ForgeConfigSpec can't be read until the file has been loaded, so
+   *   until then get() returns the default instead.
+   */
+  private static class Tunable<T> {
+    public Tunable(ForgeConfigSpec.ConfigValue<T> configValue, T defaultValue) {
+      this.configValue = configValue;
+      this.defaultValue = defaultValue;
+    }
+
+    public T get() {
+      return configLoaded ? configValue.get() : defaultValue;
+    }
+
+    private final ForgeConfigSpec.ConfigValue<T> configValue;
+    private final T defaultValue;
+  }
+
+  private static Tunable<Integer> defineInt(String name, String comment, int defaultValue, int min, int max) {
+    return new Tunable<>(BUILDER.comment(comment).defineInRange(name, defaultValue, min, max), defaultValue);
+  }
+
+  private static Tunable<Double> defineDouble(String name, String comment, double defaultValue, double min, double max) {
+    return new Tunable<>(BUILDER.comment(comment).defineInRange(name, defaultValue, min, max), defaultValue);
+  }
+
+  private static Tunable<Boolean> defineBoolean(String name, String comment, boolean defaultValue) {
+    return new Tunable<>(BUILDER.comment(comment).define(name, defaultValue), defaultValue);
+  }
+
+  // the order of these is important: the builder must be created before the values, and SPEC built after them
+  private static final ForgeConfigSpec.Builder BUILDER = new ForgeConfigSpec.Builder();
+
+  static {BUILDER.push("airstrike");}
+  private static final Tunable<Integer> AIRSTRIKE_MIN_PROJECTILES = defineInt("minProjectiles",
+          "The minimum number of projectiles in each airstrike", 2, 1, 100);
+  private static final Tunable<Integer> AIRSTRIKE_MAX_PROJECTILES = defineInt("maxProjectiles",
+          "The maximum number of projectiles in each airstrike", 20, 1, 100);
+  private static final Tunable<Integer> AIRSTRIKE_SPREAD_OVER_TICKS = defineInt("spreadOverTicks",
+          "The projectiles in each airstrike are spawned over this many ticks", 10, 1, 200);
+  private static final Tunable<Integer> AIRSTRIKE_MAX_SPAWNS_PER_TICK = defineInt("maxSpawnsPerTick",
+          "The server never spawns more than this many projectiles in a single tick", 8, 1, 1000);
+  private static final Tunable<Double> AIRSTRIKE_BURST_SIZE = defineDouble("burstSize",
+          "Each player can call this many airstrikes in quick succession before being rate limited", 5.0, 1.0, 1000.0);
+  private static final Tunable<Double> AIRSTRIKES_PER_SECOND = defineDouble("airstrikesPerSecond",
+          "The maximum sustained rate of airstrikes for each player", 1.0, 0.01, 100.0);
+  static {BUILDER.pop();}
+
+  static {BUILDER.push("particles");}
+  private static final Tunable<Integer> MAX_PARTICLES_PER_FRAME = defineInt("maxParticlesPerFrame",
+          "The client spawns at most this many MBE particles per frame", 400, 0, 100000);
+  private static final Tunable<Integer> MAX_PARTICLES_PER_CHUNK_PER_FRAME = defineInt("maxParticlesPerChunkPerFrame",
+          "The client spawns at most this many MBE particles per chunk per frame", 150, 0, 100000);
+  private static final Tunable<Double> PARTICLE_DEMOTION_DISTANCE = defineDouble("demotionDistance",
+          "Particles further than this from the camera are given a lower priority", 24.0, 0.0, 1024.0);
+  private static final Tunable<Double> FLAME_EMITTER_TARGETING_DISTANCE = defineDouble("flameEmitterTargetingDistance",
+          "The flame emitter searches this far for a mob to target", 16.0, 0.0, 64.0);
+  static {BUILDER.pop();}
+
+  static {BUILDER.push("furnace");}
+  private static final Tunable<Double> FURNACE_MAX_PLAYER_DISTANCE = defineDouble("maxPlayerDistance",
+          "A player further than this from the furnace can't use its inventory", 8.0, 1.0, 64.0);
+  static {BUILDER.pop();}
+
+  static {BUILDER.push("boomerang");}
+  private static final Tunable<Double> BOOMERANG_MIN_FLIGHT_DISTANCE = defineDouble("minFlightDistance",
+          "The distance to the apex of the flight, when thrown without charging up", 4.0, 1.0, 100.0);
+  private static final Tunable<Double> BOOMERANG_MAX_FLIGHT_DISTANCE = defineDouble("maxFlightDistance",
+          "The distance to the apex of the flight, when fully charged up", 20.0, 1.0, 100.0);
+  private static final Tunable<Double> BOOMERANG_MIN_FLIGHT_SPEED = defineDouble("minFlightSpeed",
+          "The flight speed in blocks per second, when thrown without charging up", 4.0, 0.5, 100.0);
+  private static final Tunable<Double> BOOMERANG_MAX_FLIGHT_SPEED = defineDouble("maxFlightSpeed",
+          "The flight speed in blocks per second, when fully charged up", 10.0, 0.5, 100.0);
+  private static final Tunable<Integer> BOOMERANG_LIFESPAN_TICKS = defineInt("lifespanTicks",
+          "A boomerang lying on the ground disappears after this many ticks", 6000, 1, 72000);
+  static {BUILDER.pop();}
+
+  static {BUILDER.push("capability");}
+  private static final Tunable<Boolean> USE_ELEMENTAL_CHARGE_STORE = defineBoolean("useElementalChargeStore",
+          "Keep the elemental charges of non-player entities in a per-world store which is saved with the chunks, instead of " +
+          "in each entity.  Only affects entities which are created after it is changed", false);
+  static {BUILDER.pop();}
+
+  public static final ForgeConfigSpec SPEC = BUILDER.build();
+  public static final String FILE_NAME = "minecraftbyexample-tunables.toml";
+
+  private static volatile boolean configLoaded = false;
+  private static volatile Snapshot currentSnapshot = new Snapshot();
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -0,0 +1,21 @@
+package minecraftbyexample.mbe70_configuration;
+
+import net.minecraftforge.fml.ModLoadingContext;
+import net.minecraftforge.fml.config.ModConfig;
+
+/**
+ * User: The Grey Ghost
+ *
+ * The methods in this class are called during startup
+ *  See MinecraftByExample class for more information
+ */
+public class StartupCommon
+{
+  /**
+   * Must be called during construction of the mod, i.e. from the MinecraftByExample constructor; the config is loaded
+   *   after construction, before the FMLCommonSetupEvent.
+   */
+  public static void registerConfigs() {
+    ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, MBETunables.SPEC, MBETunables.FILE_NAME);
+  }
+}
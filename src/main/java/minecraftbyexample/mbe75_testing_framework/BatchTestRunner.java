@@ -0,0 +1,298 @@
+package minecraftbyexample.mbe75_testing_framework;
+
+import minecraftbyexample.usefultools.BulkBlockEditor;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Runs a batch of IBatchTests unattended (no player needed), eg on a dedicated server on a build machine, and writes the
+ *   results to a JUnit-style XML report which build servers can display.
+ *
+ * The tests are run concurrently: each test gets its own test region, spaced REGION_SPACING blocks apart along the x axis,
+ *   in one of the given worlds (dimensions).  Every server tick, the runner starts tests until maxConcurrentTests are
+ *   running, then calls tick() on every running test.  So a test which takes 100 ticks to complete doesn't hold up the others,
+ *   and the whole batch takes about as long as the slowest tests rather than the sum of all of them.
+ * The world can only be changed from the server thread, so the tests are interleaved on the server thread rather than
+ *   running on separate threads.
+ *
+ * The chunks of each test region are force-loaded while the test runs, so that blocks and entities in the region tick even
+ *   when no player is nearby.  Before each test, the region is cleared to air and any entities in it (except players) are
+ *   removed, so that eg items dropped or mobs spawned by the previous test in the same region can't affect the next one.
+ *
+ * Started from ServerLifecycleEvents; must be registered on the MinecraftForge.EVENT_BUS.
+ */
+public class BatchTestRunner {
+
+  /**
+   * Start running a batch of tests
+   * @param worlds the tests are shared out between these worlds
+   * @param stopServerWhenDone if true, shut the server down after the report has been written
+   */
+  public static void start(MinecraftServer server, List<IBatchTest> tests, List<ServerWorld> worlds, int maxConcurrentTests,
+                           File reportFile, boolean stopServerWhenDone) {
+    if (currentBatch != null) {
+      LOGGER.error("A batch of tests is already running");
+      return;
+    }
+    if (worlds.isEmpty()) {
+      LOGGER.error("No worlds to run the tests in");
+      return;
+    }
+    LOGGER.info("Starting batch of {} tests in {} worlds", tests.size(), worlds.size());
+    currentBatch = new BatchTestRunner(server, tests, worlds, Math.max(1, maxConcurrentTests), reportFile, stopServerWhenDone);
+  }
+
+  public static boolean isRunning() {return currentBatch != null;}
+
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.ServerTickEvent event) {
+    if (event.phase != TickEvent.Phase.END || currentBatch == null) return;
+    if (currentBatch.tick()) {
+      currentBatch.finish();
+      currentBatch = null;
+    }
+  }
+
+  /** Called when the server stops; any tests which haven't finished are reported as errors */
+  public static void abort() {
+    if (currentBatch == null) return;
+    for (TestRecord record : currentBatch.running) {
+      record.error = "Server stopped before the test finished";
+      record.endTimeNS = System.nanoTime();
+      currentBatch.finished.add(record);
+    }
+    currentBatch.running.clear();
+    for (IBatchTest test : currentBatch.pending) {
+      TestRecord record = new TestRecord(test, null, -1);
+      record.error = "Server stopped before the test started";
+      currentBatch.finished.add(record);
+    }
+    currentBatch.pending.clear();
+    currentBatch.stopServerWhenDone = false;
+    currentBatch.finish();
+    currentBatch = null;
+  }
+
+  private BatchTestRunner(MinecraftServer server, List<IBatchTest> tests, List<ServerWorld> worlds, int maxConcurrentTests,
+                          File reportFile, boolean stopServerWhenDone) {
+    this.server = server;
+    this.pending.addAll(tests);
+    this.worlds = new ArrayList<>(worlds);
+    this.maxConcurrentTests = maxConcurrentTests;
+    this.reportFile = reportFile;
+    this.stopServerWhenDone = stopServerWhenDone;
+    for (ServerWorld world : worlds) {
+      freeRegions.put(world, new TreeSet<>());
+    }
+    batchStartTimeNS = System.nanoTime();
+  }
+
+  /** @return true if the batch has finished */
+  private boolean tick() {
+    Iterator<TestRecord> iterator = running.iterator();
+    while (iterator.hasNext()) {
+      TestRecord record = iterator.next();
+      ++record.ticks;
+      if (record.error == null) {
+        tickTest(record);
+      }
+      if (record.status != IBatchTest.Status.RUNNING || record.error != null) {
+        record.endTimeNS = System.nanoTime();
+        releaseRegion(record);
+        finished.add(record);
+        iterator.remove();
+      }
+    }
+
+    // start new tests after ticking the others, so that their first tick() is on the next server tick
+    while (running.size() < maxConcurrentTests && !pending.isEmpty()) {
+      startTest(pending.poll());
+    }
+    return running.isEmpty() && pending.isEmpty();
+  }
+
+  private void tickTest(TestRecord record) {
+    try {
+      IBatchTest.Status status = record.test.tick(record.world, record.regionOrigin, record.ticks);
+      if (status == IBatchTest.Status.RUNNING && record.ticks >= record.test.getTimeoutTicks()) {
+        status = IBatchTest.Status.FAILED;
+        record.failureMessage = "Timed out after " + record.ticks + " ticks";
+      } else if (status == IBatchTest.Status.FAILED) {
+        record.failureMessage = record.test.getFailureMessage();
+      }
+      record.status = status;
+    } catch (Exception e) {
+      record.error = e.toString();
+    }
+  }
+
+  private void startTest(IBatchTest test) {
+    // share the tests out between the worlds: use the world with the fewest tests running in it
+    ServerWorld world = worlds.get(0);
+    for (ServerWorld candidate : worlds) {
+      if (testsRunningIn(candidate) < testsRunningIn(world)) world = candidate;
+    }
+    TreeSet<Integer> free = freeRegions.get(world);
+    int regionIndex = free.isEmpty() ? testsRunningIn(world) : free.pollFirst();
+    TestRecord record = new TestRecord(test, world, regionIndex);
+    record.regionOrigin = REGION_ORIGIN.add(regionIndex * REGION_SPACING, 0, 0);
+    running.add(record);
+
+    setRegionChunksForced(world, record.regionOrigin, true);
+    BulkBlockEditor bulkBlockEditor = new BulkBlockEditor(world);
+    bulkBlockEditor.fill(record.regionOrigin,
+            record.regionOrigin.add(IBatchTest.REGION_SIZE - 1, IBatchTest.REGION_HEIGHT - 1, IBatchTest.REGION_SIZE - 1),
+            Blocks.AIR.getDefaultState());
+    bulkBlockEditor.finish();
+    removeEntitiesFromRegion(world, record.regionOrigin);
+    record.startTimeNS = System.nanoTime();
+    try {
+      test.setUp(world, record.regionOrigin);
+    } catch (Exception e) {
+      record.error = "setUp failed: " + e.toString();  // reported on the next tick
+    }
+  }
+
+  private static void removeEntitiesFromRegion(ServerWorld world, BlockPos regionOrigin) {
+    AxisAlignedBB regionAABB = new AxisAlignedBB(regionOrigin,
+            regionOrigin.add(IBatchTest.REGION_SIZE, IBatchTest.REGION_HEIGHT, IBatchTest.REGION_SIZE));
+    for (Entity entity : world.getEntitiesWithinAABB(Entity.class, regionAABB, entity -> !(entity instanceof PlayerEntity))) {
+      entity.remove();
+    }
+  }
+
+  private int testsRunningIn(ServerWorld world) {
+    int count = 0;
+    for (TestRecord record : running) {
+      if (record.world == world) ++count;
+    }
+    return count;
+  }
+
+  private void releaseRegion(TestRecord record) {
+    setRegionChunksForced(record.world, record.regionOrigin, false);
+    freeRegions.get(record.world).add(record.regionIndex);
+  }
+
+  private static void setRegionChunksForced(ServerWorld world, BlockPos regionOrigin, boolean forced) {
+    int minChunkX = regionOrigin.getX() >> 4;
+    int maxChunkX = (regionOrigin.getX() + IBatchTest.REGION_SIZE - 1) >> 4;
+    int minChunkZ = regionOrigin.getZ() >> 4;
+    int maxChunkZ = (regionOrigin.getZ() + IBatchTest.REGION_SIZE - 1) >> 4;
+    for (int chunkX = minChunkX; chunkX <= maxChunkX; ++chunkX) {
+      for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; ++chunkZ) {
+        world.forceChunk(chunkX, chunkZ, forced);
+      }
+    }
+  }
+
+  private void finish() {
+    int failures = 0;
+    int errors = 0;
+    for (TestRecord record : finished) {
+      if (record.error != null) {
+        ++errors;
+      } else if (record.status != IBatchTest.Status.PASSED) {
+        ++failures;
+      }
+    }
+    double totalSeconds = (System.nanoTime() - batchStartTimeNS) / 1.0e9;
+    LOGGER.info("Batch of {} tests finished in {} s: {} failures, {} errors", finished.size(),
+            String.format("%.3f", totalSeconds), failures, errors);
+    try {
+      writeReport(failures, errors, totalSeconds);
+      LOGGER.info("Test report written to {}", reportFile.getAbsolutePath());
+    } catch (IOException ioe) {
+      LOGGER.error("Couldn't write test report {}: {}", reportFile.getAbsolutePath(), ioe);
+    }
+    if (stopServerWhenDone) {
+      server.initiateShutdown(false);
+    }
+  }
+
+  // the JUnit XML format understood by most build servers
+  private void writeReport(int failures, int errors, double totalSeconds) throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines.add("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    String timeStamp = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date());
+    lines.add(String.format("<testsuite name=\"%s\" tests=\"%d\" failures=\"%d\" errors=\"%d\" time=\"%.3f\" timestamp=\"%s\">",
+            TEST_SUITE_NAME, finished.size(), failures, errors, totalSeconds, timeStamp));
+    for (TestRecord record : finished) {
+      double seconds = (record.startTimeNS == 0) ? 0 : (record.endTimeNS - record.startTimeNS) / 1.0e9;
+      lines.add(String.format("  <testcase classname=\"%s\" name=\"%s\" time=\"%.3f\">",
+              escapeXML(record.test.getClass().getName()), escapeXML(record.test.getName()), seconds));
+      if (record.error != null) {
+        lines.add("    <error message=\"" + escapeXML(record.error) + "\"/>");
+      } else if (record.status != IBatchTest.Status.PASSED) {
+        lines.add("    <failure message=\"" + escapeXML(record.failureMessage) + "\"/>");
+      }
+      String where = (record.world == null) ? "not started"
+                     : record.world.getDimensionKey().getLocation() + " " + record.regionOrigin.getCoordinatesAsString();
+      lines.add("    <system-out>" + escapeXML("ticks=" + record.ticks + " region=" + where) + "</system-out>");
+      lines.add("  </testcase>");
+    }
+    lines.add("</testsuite>");
+    File parent = reportFile.getAbsoluteFile().getParentFile();
+    if (parent != null) Files.createDirectories(parent.toPath());
+    Files.write(reportFile.toPath(), lines, StandardCharsets.UTF_8);
+  }
+
+  private static String escapeXML(String text) {
+    return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+  }
+
+  private static class TestRecord {
+    TestRecord(IBatchTest test, @Nullable ServerWorld world, int regionIndex) {
+      this.test = test;
+      this.world = world;
+      this.regionIndex = regionIndex;
+    }
+
+    final IBatchTest test;
+    final @Nullable ServerWorld world;  // null if the test was never started
+    final int regionIndex;
+    BlockPos regionOrigin = BlockPos.ZERO;
+    IBatchTest.Status status = IBatchTest.Status.RUNNING;
+    String failureMessage = "";
+    @Nullable String error = null;
+    int ticks = 0;
+    long startTimeNS = 0;
+    long endTimeNS = 0;
+  }
+
+  // well away from spawn; the regions are spaced out so that water, explosions etc in one test don't reach the next
+  private static final BlockPos REGION_ORIGIN = new BlockPos(10000, 200, 10000);
+  private static final int REGION_SPACING = 2 * IBatchTest.REGION_SIZE;
+  private static final String TEST_SUITE_NAME = "mbe75";
+
+  private final MinecraftServer server;
+  private final Queue<IBatchTest> pending = new ArrayDeque<>();
+  private final List<TestRecord> running = new ArrayList<>();
+  private final List<TestRecord> finished = new ArrayList<>();
+  private final List<ServerWorld> worlds;
+  private final Map<ServerWorld, TreeSet<Integer>> freeRegions = new HashMap<>();  // regions which have been used and released
+  private final int maxConcurrentTests;
+  private final File reportFile;
+  private boolean stopServerWhenDone;
+  private final long batchStartTimeNS;
+
+  private static @Nullable BatchTestRunner currentBatch = null;
+  private static final Logger LOGGER = LogManager.getLogger();
+}
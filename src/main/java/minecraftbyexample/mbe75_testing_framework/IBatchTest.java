@@ -0,0 +1,37 @@
+package minecraftbyexample.mbe75_testing_framework;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+
+/**
+ * A test which can be run unattended by the BatchTestRunner, without a player.
+ * Each test is given its own empty test region (REGION_SIZE blocks wide, REGION_HEIGHT high, starting at regionOrigin) and
+ *   must only change blocks and spawn entities inside it, because other tests are running in the neighbouring regions at
+ *   the same time.
+ * The test is split into setUp(), which builds the test, and tick(), which is called once per server tick afterwards until
+ *   the test returns PASSED or FAILED.  So a test which needs to wait for something to happen (eg a boomerang to fly) should
+ *   return RUNNING from tick() instead of blocking the server thread.
+ * Each instance is only run once.
+ */
+public interface IBatchTest {
+  int REGION_SIZE = 32;
+  int REGION_HEIGHT = 32;
+
+  enum Status {RUNNING, PASSED, FAILED}
+
+  /** A unique name for the test, used in the report and to select which tests to run */
+  String getName();
+
+  void setUp(ServerWorld world, BlockPos regionOrigin);
+
+  /**
+   * @param ticksSinceSetUp 1 for the first tick after setUp()
+   */
+  Status tick(ServerWorld world, BlockPos regionOrigin, int ticksSinceSetUp);
+
+  /** If the test hasn't finished after this many ticks, it fails */
+  default int getTimeoutTicks() {return 20 * 60;}
+
+  /** Describes why the test failed, for the report */
+  default String getFailureMessage() {return "";}
+}
@@ -0,0 +1,52 @@
+package minecraftbyexample.mbe75_testing_framework;
+
+import minecraftbyexample.usefultools.BulkBlockEditor;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.LadderBlock;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+
+/**
+ * The batch version of TestRunner test1: a ladder attached to a stone block.  We then replace the stone with a different
+ *   block and check whether the ladder remains or breaks.
+ */
+public class LadderSupportTest implements IBatchTest {
+
+  public LadderSupportTest(String name, BlockState replacementSupport, boolean ladderShouldRemain) {
+    this.name = name;
+    this.replacementSupport = replacementSupport;
+    this.ladderShouldRemain = ladderShouldRemain;
+  }
+
+  @Override
+  public String getName() {return name;}
+
+  @Override
+  public void setUp(ServerWorld world, BlockPos regionOrigin) {
+    BulkBlockEditor bulkBlockEditor = new BulkBlockEditor(world);
+    bulkBlockEditor.setBlockState(regionOrigin.add(1, 0, 1), Blocks.STONE.getDefaultState());
+    bulkBlockEditor.setBlockState(regionOrigin.add(2, 0, 1), Blocks.LADDER.getDefaultState().with(LadderBlock.FACING, Direction.EAST));
+    bulkBlockEditor.finish();
+
+    // replace the support using a normal setBlockState so that the ladder is notified
+    world.setBlockState(regionOrigin.add(1, 0, 1), replacementSupport);
+  }
+
+  @Override
+  public Status tick(ServerWorld world, BlockPos regionOrigin, int ticksSinceSetUp) {
+    boolean ladderRemains = world.getBlockState(regionOrigin.add(2, 0, 1)).getBlock() == Blocks.LADDER;
+    if (ladderRemains == ladderShouldRemain) return Status.PASSED;
+    failureMessage = "Ladder on " + replacementSupport + (ladderRemains ? " remained" : " broke");
+    return Status.FAILED;
+  }
+
+  @Override
+  public String getFailureMessage() {return failureMessage;}
+
+  private final String name;
+  private final BlockState replacementSupport;
+  private final boolean ladderShouldRemain;
+  private String failureMessage = "";
+}
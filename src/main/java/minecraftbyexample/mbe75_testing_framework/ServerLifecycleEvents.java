@@ -4,14 +4,39 @@ import com.mojang.brigadier.CommandDispatcher;
 import minecraftbyexample.usefultools.debugging.commands.DebugTriggerWatcher;
 import minecraftbyexample.usefultools.debugging.commands.MBEdebugCommand;
 import net.minecraft.command.CommandSource;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.event.server.FMLServerStartedEvent;
 import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * User: The Grey Ghost
  * Date: 24/12/2014
  *
+ * If the server is started with the system property mbe75.batchtest, runs the batch tests once the server has started
+ *   (see BatchTestRunner and README.md):
+ *   -Dmbe75.batchtest=all                  (or a comma-separated list of test names)
+ *   -Dmbe75.batchtest.dimensions=minecraft:overworld,minecraft:the_nether   (default: overworld only)
+ *   -Dmbe75.batchtest.maxconcurrent=16
+ *   -Dmbe75.batchtest.report=mbe75_test_report.xml   (relative to the game directory)
+ *   -Dmbe75.batchtest.exit=true            (stop the server when the tests have finished)
+ *
  * Don't forget to register this class on the MinecraftForge.EVENT_BUS.
  */
 public class ServerLifecycleEvents
@@ -19,5 +44,56 @@ public class ServerLifecycleEvents
   @SubscribeEvent
   public static void onServerStartingEvent(FMLServerStartingEvent event) {
     MinecraftForge.EVENT_BUS.register(DebugTestWatcher.class);
+    MinecraftForge.EVENT_BUS.register(BatchTestRunner.class);
+  }
+
+  @SubscribeEvent
+  public static void onServerStartedEvent(FMLServerStartedEvent event) {
+    String testNames = System.getProperty("mbe75.batchtest");
+    if (testNames == null) return;
+    MinecraftServer server = event.getServer();
+
+    List<IBatchTest> tests = new ArrayList<>();
+    boolean runAll = testNames.equals("all");
+    Set<String> wantedNames = new LinkedHashSet<>();
+    for (String testName : testNames.split(",")) {
+      wantedNames.add(testName.trim());
+    }
+    Set<String> unmatchedNames = new LinkedHashSet<>(wantedNames);
+    for (IBatchTest test : TestRunner.getBatchTests()) {
+      if (runAll || wantedNames.contains(test.getName())) {
+        tests.add(test);
+        unmatchedNames.remove(test.getName());
+      }
+    }
+    if (!runAll && !unmatchedNames.isEmpty()) {
+      LOGGER.warn("No batch test found with the name(s) {}", unmatchedNames);
+    }
+
+    List<ServerWorld> worlds = new ArrayList<>();
+    String dimensionNames = System.getProperty("mbe75.batchtest.dimensions", World.OVERWORLD.getLocation().toString());
+    for (String dimensionName : dimensionNames.split(",")) {
+      RegistryKey<World> dimension = RegistryKey.getOrCreateKey(Registry.WORLD_KEY, new ResourceLocation(dimensionName.trim()));
+      ServerWorld world = server.getWorld(dimension);
+      if (world == null) {
+        LOGGER.error("Batch test dimension {} not found", dimensionName);
+      } else {
+        worlds.add(world);
+      }
+    }
+
+    int maxConcurrentTests = Integer.getInteger("mbe75.batchtest.maxconcurrent", DEFAULT_MAX_CONCURRENT_TESTS);
+    File reportFile = FMLPaths.GAMEDIR.get().resolve(System.getProperty("mbe75.batchtest.report", DEFAULT_REPORT_FILE)).toFile();
+    boolean stopServerWhenDone = Boolean.getBoolean("mbe75.batchtest.exit");
+    BatchTestRunner.start(server, tests, worlds, maxConcurrentTests, reportFile, stopServerWhenDone);
+  }
+
+  @SubscribeEvent
+  public static void onServerStoppingEvent(FMLServerStoppingEvent event) {
+    BatchTestRunner.abort();
   }
+
+  private static final int DEFAULT_MAX_CONCURRENT_TESTS = 16;
+  private static final String DEFAULT_REPORT_FILE = "mbe75_test_report.xml";
+  private static final Logger LOGGER = LogManager.getLogger();
 }
@@ -1,5 +1,7 @@
 package minecraftbyexample.mbe75_testing_framework;
 
+import minecraftbyexample.mbe81_entity_projectile.testharness.BoomerangFlightPathNBTTest;
+import minecraftbyexample.usefultools.BulkBlockEditor;
 import minecraftbyexample.usefultools.debugging.DebugSettings;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -13,6 +15,9 @@ import net.minecraft.world.World;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
@@ -60,6 +65,22 @@ public class TestRunner
     return success;
   }
 
+  /**
+   * The tests which can be run unattended by the BatchTestRunner; each one is run in its own test region.
+   * A new instance of each test is returned every time.
+   */
+  public static List<IBatchTest> getBatchTests()
+  {
+    List<IBatchTest> batchTests = new ArrayList<>();
+    // the same checks as test1
+    batchTests.add(new LadderSupportTest("ladder_on_acacia_log", Blocks.ACACIA_LOG.getDefaultState(), true));
+    batchTests.add(new LadderSupportTest("ladder_on_cobweb", Blocks.COBWEB.getDefaultState(), false));
+    batchTests.add(new LadderSupportTest("ladder_on_stone_slab", Blocks.STONE_SLAB.getDefaultState(), true));
+    // the same checks as mbe81 test 8101; the other mbe81 tests are visual checks which need a player to watch them
+    batchTests.add(new BoomerangFlightPathNBTTest());
+    return batchTests;
+  }
+
   // dummy test: check the correct functioning of the ladder - to see which block it can stay attached to
   // The test region contains a ladder attached to a stone block.  We then replace the stone with a different block and see
   //   whether the ladder remains or breaks appropriately; eg
@@ -151,34 +172,15 @@ public class TestRunner
     checkArgument(xCount >= 1);
     checkArgument(yCount >= 1);
     checkArgument(zCount >= 1);
-    String [] args = new String[9];
 
     if (!(player instanceof ServerPlayerEntity)) {
-      throw new UnsupportedOperationException("teleport not supported on client side; server side only");
+      throw new UnsupportedOperationException("copy not supported on client side; server side only");
     }
 
-    args[0] = String.valueOf(sourceOrigin.getX());
-    args[1] = String.valueOf(sourceOrigin.getY());
-    args[2] = String.valueOf(sourceOrigin.getZ());
-
-    args[3] = String.valueOf(sourceOrigin.getX() + xCount - 1);
-    args[4] = String.valueOf(sourceOrigin.getY() + yCount - 1);
-    args[5] = String.valueOf(sourceOrigin.getZ() + zCount - 1);
-
-    args[6] = String.valueOf(destOrigin.getX());
-    args[7] = String.valueOf(destOrigin.getY());
-    args[8] = String.valueOf(destOrigin.getZ());
-
-    String command = "/clone " + String.join(" ", args);
-
-    int success = 0;
-    try {
-      CommandSource commandSource = player.getCommandSource();
-      success = player.getServer().getCommandManager().handleCommand(commandSource, command);
-    } catch (Exception e) {
-      return false;
-    }
-    return (success != 0);
+    BulkBlockEditor bulkBlockEditor = new BulkBlockEditor(((ServerPlayerEntity)player).getServerWorld());
+    bulkBlockEditor.copy(sourceOrigin, destOrigin, xCount, yCount, zCount);
+    bulkBlockEditor.finish();
+    return true;
   }
 
   private static final Logger LOGGER = LogManager.getLogger();
@@ -11,6 +11,7 @@ package minecraftbyexample.mbe80_model_renderer;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
 import minecraftbyexample.usefultools.RenderTypeHelper;
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.client.renderer.*;
 import net.minecraft.client.renderer.model.Model;
 import net.minecraft.client.renderer.tileentity.TileEntityRendererDispatcher;
@@ -48,6 +49,18 @@ public class TestModelTileEntityRenderer extends net.minecraft.client.renderer.t
   @Override
   public void render(TileEntityMBE80 tileEntityMBE80, float partialTicks, MatrixStack matrixStack, IRenderTypeBuffer renderBuffers,
                      int combinedLight, int combinedOverlay) {
+    long profileStartTime = RENDER_PROFILE.start();
+    try {
+      doRender(tileEntityMBE80, partialTicks, matrixStack, renderBuffers, combinedLight, combinedOverlay);
+    } finally {
+      RENDER_PROFILE.stop(profileStartTime);
+    }
+  }
+
+  private static final TickProfiler.Section RENDER_PROFILE = TickProfiler.section(TestModelTileEntityRenderer.class, "render");
+
+  private void doRender(TileEntityMBE80 tileEntityMBE80, float partialTicks, MatrixStack matrixStack, IRenderTypeBuffer renderBuffers,
+                        int combinedLight, int combinedOverlay) {
     matrixStack.push(); // push the current transformation matrix + normals matrix
 
     TestModel.InteractiveParameters interactiveParameters = tileEntityMBE80.getInteractiveParameters();
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe80_model_renderer;
 
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.block.BlockState;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.network.NetworkManager;
@@ -109,6 +110,17 @@ public class TileEntityMBE80 extends TileEntity implements ITickableTileEntity {
 
   @Override
   public void tick() {
+    long profileStartTime = TICK_PROFILE.start();
+    try {
+      doTick();
+    } finally {
+      TICK_PROFILE.stop(profileStartTime);
+    }
+  }
+
+  private static final TickProfiler.Section TICK_PROFILE = TickProfiler.section(TileEntityMBE80.class, "tick");
+
+  private void doTick() {
     interactiveParameters.updateFromDebugSettingsIfActive(this.getPos());
   }
 }
@@ -1,9 +1,12 @@
 package minecraftbyexample.mbe81_entity_projectile;
 
+import minecraftbyexample.mbe50_particle.ParticleBudget;
+import minecraftbyexample.mbe70_configuration.MBETunables;
 import minecraftbyexample.usefultools.NBTtypesMBE;
 import minecraftbyexample.usefultools.SetBlockStateFlag;
 import minecraftbyexample.usefultools.UsefulFunctions;
 import minecraftbyexample.usefultools.debugging.DebugSettings;
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -352,6 +355,17 @@ public class BoomerangEntity extends Entity implements IEntityAdditionalSpawnDat
    *    mechanics i.e. set motion (velocity) and let gravity act on the entity
    */
   public void tick() {
+    long profileStartTime = TICK_PROFILE.start();
+    try {
+      doTick();
+    } finally {
+      TICK_PROFILE.stop(profileStartTime);
+    }
+  }
+
+  private static final TickProfiler.Section TICK_PROFILE = TickProfiler.section(BoomerangEntity.class, "tick");
+
+  private void doTick() {
     // debugging helpers; see DebugSettings for usage instructions
     Optional<Double> debugYaw = DebugSettings.getDebugParameter("mbe81b_yaw");
     Optional<Double> debugPitch = DebugSettings.getDebugParameter("mbe81b_pitch");
@@ -486,7 +500,7 @@ public class BoomerangEntity extends Entity implements IEntityAdditionalSpawnDat
 
     ItemStack item = this.getItemStack();
     ++ticksSpentNotInFlight;
-    if (!this.world.isRemote && ticksSpentNotInFlight >= LIFESPAN_BEFORE_DISAPPEAR_TICKS) {
+    if (!this.world.isRemote && ticksSpentNotInFlight >= MBETunables.get().boomerangLifespanTicks) {
       this.remove();
     }
 
@@ -517,6 +531,17 @@ public class BoomerangEntity extends Entity implements IEntityAdditionalSpawnDat
    *   Based on parts of AbstractArrowEntity.tick()
    */
   private void tickInFlight() {
+    long profileStartTime = TICK_IN_FLIGHT_PROFILE.start();
+    try {
+      doTickInFlight();
+    } finally {
+      TICK_IN_FLIGHT_PROFILE.stop(profileStartTime);
+    }
+  }
+
+  private static final TickProfiler.Section TICK_IN_FLIGHT_PROFILE = TickProfiler.section(BoomerangEntity.class, "tickInFlight");
+
+  private void doTickInFlight() {
 
     // manually calculate the new position on the flight path
     final float TICKS_PER_SECOND = 20.0F;
@@ -598,13 +623,14 @@ public class BoomerangEntity extends Entity implements IEntityAdditionalSpawnDat
 
     // if flying through water, add bubbles but don't slow the boomerang down (unrealistic I guess, but making it slow down in water
     //   would add extra complexity to the code and it's complicated enough already!)
-    if (this.isInWater()) {
+    // Particles are only rendered on the client, so don't bother calculating them on the server
+    if (this.world.isRemote && this.isInWater()) {
       for (int i = 0; i < 4; ++i) {
         final float TRAIL_DISTANCE_FACTOR = 0.5F;
         Vector3d distanceBackFromNewPosition = motion.scale(TRAIL_DISTANCE_FACTOR);
         Vector3d verticalDispersion = new Vector3d(0, 0.4 * (rand.nextFloat() - 0.5), 0);
         Vector3d bubbleSpawnPosition = newPosition.subtract(distanceBackFromNewPosition).add(verticalDispersion);
-        this.world.addParticle(ParticleTypes.BUBBLE,
+        ParticleBudget.addParticle(this.world, ParticleBudget.Priority.LOW, ParticleTypes.BUBBLE,
                 bubbleSpawnPosition.getX(), bubbleSpawnPosition.getY(), bubbleSpawnPosition.getZ(),
                 motion.getX(), motion.getY(), motion.getZ());
       }
@@ -884,7 +910,6 @@ public class BoomerangEntity extends Entity implements IEntityAdditionalSpawnDat
   }
 
   private final int MINIMUM_TIME_BEFORE_PICKUP_TICKS = 40;
-  private final int LIFESPAN_BEFORE_DISAPPEAR_TICKS = 6000;
     /**
      * Collision with the player while still in flight
      */
@@ -938,7 +963,7 @@ public class BoomerangEntity extends Entity implements IEntityAdditionalSpawnDat
       final Color BROWN = new Color(165,42,42);
       final double MAXIMUM_DEVIATION = 0.5;  // the scatter of the spawning position, as a proportion of the entity width
       for(int i = 0; i < 20; ++i) {
-        this.world.addParticle(ParticleTypes.ENTITY_EFFECT,
+        ParticleBudget.addParticle(this.world, ParticleBudget.Priority.NORMAL, ParticleTypes.ENTITY_EFFECT,
                 this.getPosXRandom(MAXIMUM_DEVIATION), this.getPosYRandom(), this.getPosZRandom(MAXIMUM_DEVIATION),
                 BROWN.getRed() / 255.0, BROWN.getGreen() / 255.0, BROWN.getBlue() / 255.0);
       }
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe81_entity_projectile;
 
+import minecraftbyexample.mbe70_configuration.MBETunables;
 import minecraftbyexample.usefultools.UsefulFunctions;
 import net.minecraft.enchantment.*;
 import net.minecraft.entity.LivingEntity;
@@ -70,22 +71,21 @@ public class BoomerangItem extends TieredItem {
     final int MAX_CHARGEUP_TIME_TICKS = 20;
     int ticksSpentChargingUp = this.getUseDuration(stack) - timeLeft;
 
-    final float MIN_FLIGHT_DISTANCE = 4;
-    final float MAX_FLIGHT_DISTANCE = 20;
+    // the flight distance and speed can be changed in the config file (see mbe70_configuration)
+    MBETunables.Snapshot tunables = MBETunables.get();
     float distanceToApex = (float)UsefulFunctions.interpolate_with_clipping(ticksSpentChargingUp,
                                                                   0, MAX_CHARGEUP_TIME_TICKS,
-                                                                      MIN_FLIGHT_DISTANCE, MAX_FLIGHT_DISTANCE);
+                                                                      tunables.boomerangMinFlightDistance,
+                                                                      tunables.boomerangMaxFlightDistance);
     if (entityLiving.isPotionActive(Effects.STRENGTH)) {
       distanceToApex *= 2;
     }
     final float SIDEWAYS_DEFLECTION_RATIO = 0.2F;
     float sidewaysDeflection = distanceToApex * SIDEWAYS_DEFLECTION_RATIO;
 
-    final float MIN_FLIGHT_SPEED_BLOCKS_PER_SECOND = 4;
-    final float MAX_FLIGHT_SPEED_BLOCKS_PER_SECOND = 10;
     float flightSpeedBPS = (float)UsefulFunctions.interpolate_with_clipping(ticksSpentChargingUp,
             0, MAX_CHARGEUP_TIME_TICKS,
-            MIN_FLIGHT_SPEED_BLOCKS_PER_SECOND, MAX_FLIGHT_SPEED_BLOCKS_PER_SECOND);
+            tunables.boomerangMinFlightSpeed, tunables.boomerangMaxFlightSpeed);
 
     if (entityLiving.isPotionActive(Effects.HASTE)) {
       flightSpeedBPS *= 2;
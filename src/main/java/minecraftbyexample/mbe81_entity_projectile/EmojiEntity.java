@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe81_entity_projectile;
 
+import minecraftbyexample.mbe50_particle.ParticleBudget;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.LivingEntity;
@@ -103,7 +104,8 @@ public class EmojiEntity extends ProjectileItemEntity {
       IParticleData particleData = this.makeParticle();
 
       for(int i = 0; i < 8; ++i) {
-        this.world.addParticle(particleData, this.getPosX(), this.getPosY(), this.getPosZ(), 0.0D, 0.0D, 0.0D);
+        ParticleBudget.addParticle(this.world, ParticleBudget.Priority.NORMAL, particleData,
+                this.getPosX(), this.getPosY(), this.getPosZ(), 0.0D, 0.0D, 0.0D);
       }
     }
   }
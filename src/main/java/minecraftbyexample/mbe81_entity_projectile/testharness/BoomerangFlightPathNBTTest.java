@@ -0,0 +1,49 @@
+package minecraftbyexample.mbe81_entity_projectile.testharness;
+
+import minecraftbyexample.mbe75_testing_framework.IBatchTest;
+import minecraftbyexample.mbe81_entity_projectile.BoomerangFlightPath;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.server.ServerWorld;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+
+/**
+ * The batch version of test 8101 a,b (see TestRunnerMBE81b_A): create a BoomerangFlightPath, serialise it, deserialise it
+ *   using both the constructor and deserializeNBT, and compare with the original.
+ * It doesn't need any blocks, so setUp() does nothing and the check is made on the first tick.
+ */
+public class BoomerangFlightPathNBTTest implements IBatchTest {
+
+  @Override
+  public String getName() {return "mbe81_boomerang_flight_path_nbt";}
+
+  @Override
+  public void setUp(ServerWorld world, BlockPos regionOrigin) {
+  }
+
+  @Override
+  public Status tick(ServerWorld world, BlockPos regionOrigin, int ticksSinceSetUp) {
+    Vector3d START_POINT = new Vector3d(1, 2, 3);
+    BoomerangFlightPath path1 = new BoomerangFlightPath(START_POINT, 90, 0, 10, 1, false, 4);
+    CompoundNBT nbt = path1.serializeNBT();
+    BoomerangFlightPath path2 = new BoomerangFlightPath(nbt);
+    BoomerangFlightPath path3 = new BoomerangFlightPath();
+    path3.deserializeNBT(nbt);
+
+    if (!EqualsBuilder.reflectionEquals(path1, path2, "flightPathX", "flightPathY", "flightPathZ")) {
+      failureMessage = "8101a: path read by the NBT constructor differs from the original";
+      return Status.FAILED;
+    }
+    if (!EqualsBuilder.reflectionEquals(path1, path3, "flightPathX", "flightPathY", "flightPathZ")) {
+      failureMessage = "8101b: path read by deserializeNBT differs from the original";
+      return Status.FAILED;
+    }
+    return Status.PASSED;
+  }
+
+  @Override
+  public String getFailureMessage() {return failureMessage;}
+
+  private String failureMessage = "";
+}
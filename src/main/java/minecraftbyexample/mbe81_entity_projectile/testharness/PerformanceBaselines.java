@@ -0,0 +1,57 @@
+package minecraftbyexample.mbe81_entity_projectile.testharness;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The performance baselines used by PerformanceGate: (test).(metric) = value, plus the tolerance.
+ * The values are always written with a '.' decimal point (Locale.ROOT), whatever the default locale is, so that they can
+ *   be parsed again with Double.parseDouble.
+ */
+class PerformanceBaselines {
+
+  public void load(InputStream inputStream) throws IOException {
+    properties.load(inputStream);
+  }
+
+  public void store(OutputStream outputStream) throws IOException {
+    if (!properties.containsKey(TOLERANCE_KEY)) properties.setProperty(TOLERANCE_KEY, format(DEFAULT_TOLERANCE));
+    properties.store(outputStream, "MBE81 performance baselines: (test).(metric) = value; see PerformanceGate");
+  }
+
+  /** @return the fraction by which a metric may exceed its baseline (eg 0.3 = 30% slower) */
+  public double getTolerance() {
+    return parseDouble(properties.getProperty(TOLERANCE_KEY), DEFAULT_TOLERANCE);
+  }
+
+  /** @return the baseline for the given key, or NaN if there isn't one yet */
+  public double getBaseline(String key) {
+    return parseDouble(properties.getProperty(key), Double.NaN);
+  }
+
+  public void setBaseline(String key, double value) {
+    properties.setProperty(key, format(value));
+  }
+
+  public static String format(double value) {
+    return String.format(Locale.ROOT, "%.1f", value);
+  }
+
+  private static double parseDouble(@Nullable String text, double defaultValue) {
+    if (text == null) return defaultValue;
+    try {
+      return Double.parseDouble(text);
+    } catch (NumberFormatException nfe) {
+      return defaultValue;
+    }
+  }
+
+  private static final String TOLERANCE_KEY = "tolerance";
+  private static final double DEFAULT_TOLERANCE = 0.3;
+
+  private final Properties properties = new Properties();
+}
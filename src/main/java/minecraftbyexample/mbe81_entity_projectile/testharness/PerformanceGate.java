@@ -0,0 +1,181 @@
+package minecraftbyexample.mbe81_entity_projectile.testharness;
+
+import minecraftbyexample.mbe81_entity_projectile.BoomerangEntity;
+import minecraftbyexample.usefultools.debugging.DebugSettings;
+import minecraftbyexample.usefultools.debugging.TickProfiler;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns the mbe81 functional tests into performance tests as well.
+ * After a test has set itself up (eg thrown a boomerang), the gate measures the next MEASUREMENT_TICKS server ticks (after
+ *   skipping WARMUP_TICKS):
+ * 1) the median server tick duration.  The median rather than the mean, so that a single slow tick (eg a garbage collection
+ *    or an autosave) doesn't fail the test
+ * 2) the mean number of bytes allocated by the server thread per tick
+ * 3) the mean time of each of the GATED_SECTIONS (eg BoomerangEntity.tickInFlight), using the TickProfiler
+ * and compares each of them with the baseline for that test, stored in mbe81_performance_baselines.properties in the game
+ *   directory.  A metric which is more than (1 + tolerance) times its baseline fails the test, with the usual
+ *   "Test #... failed." message.  The tolerance is stored in the same file (default 0.3 = 30% slower).
+ * The first time a test is measured there is no baseline yet, so the measurements become the baseline.  To replace the
+ *   baselines (eg after an intentional change, or on a different machine), use
+ *   /mbedebug trigger mbe81_perf_rebaseline
+ *   before running the test.
+ *
+ * Only one test is measured at a time; starting another test ends the previous measurement early.
+ * Must be registered on the MinecraftForge.EVENT_BUS.  Server thread only.
+ */
+public class PerformanceGate {
+
+  /** Start measuring the given test, from the next server tick */
+  public static void startMeasuring(String testName) {
+    if (testName.equals(currentTestName)) return;
+    if (currentTestName != null) endMeasuring();
+    currentTestName = testName;
+    ticksSinceStart = 0;
+    measuredTicks = 0;
+    totalAllocatedBytes = 0;
+    profilerWasEnabled = TickProfiler.isEnabled();
+    previousSampleInterval = TickProfiler.getSampleInterval();
+    TickProfiler.setEnabled(true);
+    TickProfiler.setSampleInterval(1);
+  }
+
+  @SubscribeEvent
+  public static void onServerTick(TickEvent.ServerTickEvent event) {
+    if (currentTestName == null) return;
+    if (event.phase == TickEvent.Phase.START) {
+      tickStartNS = System.nanoTime();
+      tickStartAllocatedBytes = getAllocatedBytes();
+      if (ticksSinceStart == WARMUP_TICKS) {
+        for (int i = 0; i < GATED_SECTIONS.length; ++i) {
+          sectionCountsAtStart[i] = GATED_SECTIONS[i].getTimedCount(LogicalSide.SERVER);
+          sectionTotalNSAtStart[i] = GATED_SECTIONS[i].getTimedTotalNS(LogicalSide.SERVER);
+        }
+      }
+      return;
+    }
+    if (ticksSinceStart >= WARMUP_TICKS) {
+      tickNS[measuredTicks] = System.nanoTime() - tickStartNS;
+      long allocatedBytes = getAllocatedBytes();
+      if (allocatedBytes >= 0 && tickStartAllocatedBytes >= 0) totalAllocatedBytes += allocatedBytes - tickStartAllocatedBytes;
+      ++measuredTicks;
+    }
+    ++ticksSinceStart;
+    if (measuredTicks >= MEASUREMENT_TICKS) endMeasuring();
+  }
+
+  private static void endMeasuring() {
+    String testName = currentTestName;
+    currentTestName = null;
+    TickProfiler.setSampleInterval(previousSampleInterval);
+    TickProfiler.setEnabled(profilerWasEnabled);
+    if (measuredTicks == 0) return;
+
+    Map<String, Double> metrics = new LinkedHashMap<>();
+    metrics.put("serverTickMedianNS", median(tickNS, measuredTicks));
+    if (getAllocatedBytes() >= 0) metrics.put("serverAllocatedBytesPerTick", totalAllocatedBytes / (double)measuredTicks);
+    for (int i = 0; i < GATED_SECTIONS.length; ++i) {
+      long calls = GATED_SECTIONS[i].getTimedCount(LogicalSide.SERVER) - sectionCountsAtStart[i];
+      long totalNS = GATED_SECTIONS[i].getTimedTotalNS(LogicalSide.SERVER) - sectionTotalNSAtStart[i];
+      if (calls > 0) metrics.put(GATED_SECTIONS[i].getName() + ".meanNS", totalNS / (double)calls);  // not called = not measured
+    }
+    compareWithBaselines(testName, metrics);
+  }
+
+  private static void compareWithBaselines(String testName, Map<String, Double> metrics) {
+    File baselineFile = FMLPaths.GAMEDIR.get().resolve(BASELINE_FILE_NAME).toFile();
+    PerformanceBaselines baselines = new PerformanceBaselines();
+    if (baselineFile.exists()) {
+      try (InputStream inputStream = new FileInputStream(baselineFile)) {
+        baselines.load(inputStream);
+      } catch (IOException ioe) {
+        LOGGER.error("Couldn't read performance baselines from {}: {}", baselineFile, ioe);
+        return;
+      }
+    }
+    double tolerance = baselines.getTolerance();
+    boolean rebaseline = DebugSettings.getDebugTrigger("mbe81_perf_rebaseline");
+    boolean baselinesChanged = false;
+
+    for (Map.Entry<String, Double> metric : metrics.entrySet()) {
+      String key = testName + "." + metric.getKey();
+      double value = metric.getValue();
+      double baseline = baselines.getBaseline(key);
+      if (rebaseline || Double.isNaN(baseline)) {
+        baselines.setBaseline(key, value);
+        baselinesChanged = true;
+        LOGGER.error("Test #" + key + " baseline set to " + PerformanceBaselines.format(value));
+        continue;
+      }
+      boolean passed = value <= baseline * (1 + tolerance);
+      TestRunnerMBE81.test(true, String.format(Locale.ROOT, "%s: %.1f vs baseline %.1f (%+.0f%%, tolerance %.0f%%)",
+              key, value, baseline, 100.0 * (value - baseline) / baseline, 100.0 * tolerance), passed);
+    }
+
+    if (!baselinesChanged) return;
+    try (OutputStream outputStream = new FileOutputStream(baselineFile)) {
+      baselines.store(outputStream);
+    } catch (IOException ioe) {
+      LOGGER.error("Couldn't write performance baselines to {}: {}", baselineFile, ioe);
+    }
+  }
+
+  /** @return the median of the first count values */
+  static double median(long [] values, int count) {
+    long [] sorted = Arrays.copyOf(values, count);
+    Arrays.sort(sorted);
+    int middle = count / 2;
+    return (count % 2 == 1) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+  }
+
+  /** @return the total bytes allocated by this thread so far, or -1 if the JVM can't measure it */
+  private static long getAllocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) return -1;
+    com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean)threadMXBean;
+    if (!sunThreadMXBean.isThreadAllocatedMemorySupported() || !sunThreadMXBean.isThreadAllocatedMemoryEnabled()) return -1;
+    return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static final TickProfiler.Section [] GATED_SECTIONS = {
+          TickProfiler.section(BoomerangEntity.class, "tick"),
+          TickProfiler.section(BoomerangEntity.class, "tickInFlight")
+  };
+
+  private static final int WARMUP_TICKS = 20;        // skip the ticks just after the test setup (chunk loading, JIT etc)
+  private static final int MEASUREMENT_TICKS = 100;  // long enough for a typical boomerang flight
+  private static final String BASELINE_FILE_NAME = "mbe81_performance_baselines.properties";
+
+  private static @Nullable String currentTestName = null;
+  private static int ticksSinceStart;
+  private static int measuredTicks;
+  private static long tickStartNS;
+  private static long tickStartAllocatedBytes;
+  private static final long [] tickNS = new long[MEASUREMENT_TICKS];
+  private static long totalAllocatedBytes;
+  private static final long [] sectionCountsAtStart = new long[GATED_SECTIONS.length];
+  private static final long [] sectionTotalNSAtStart = new long[GATED_SECTIONS.length];
+  private static boolean profilerWasEnabled;
+  private static int previousSampleInterval;
+
+  private static final Logger LOGGER = LogManager.getLogger();
+}
@@ -20,5 +20,6 @@ public class ServerLifecycleEvents
   @SubscribeEvent
   public static void onServerStartingEvent(FMLServerStartingEvent event) {
     MinecraftForge.EVENT_BUS.register(DebugTestWatcherMBE81.class);
+    MinecraftForge.EVENT_BUS.register(PerformanceGate.class);
   }
 }
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe81_entity_projectile.testharness;
 
+import minecraftbyexample.usefultools.BulkBlockEditor;
 import minecraftbyexample.usefultools.debugging.DebugSettings;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -59,6 +60,9 @@ public class TestRunnerMBE81
     }
 
     LOGGER.error("Test Number " + testNumber + " called on server side:" + (success ? "success" : "failure"));
+    if (success) {  // now check that the test didn't get slower
+      PerformanceGate.startMeasuring(String.valueOf(testNumber));
+    }
     return success;
   }
 
@@ -122,50 +126,28 @@ public class TestRunnerMBE81
     checkArgument(xCount >= 1);
     checkArgument(yCount >= 1);
     checkArgument(zCount >= 1);
-    String [] args = new String[9];
 
     if (!(player instanceof ServerPlayerEntity)) {
-      throw new UnsupportedOperationException("teleport not supported on client side; server side only");
+      throw new UnsupportedOperationException("copy not supported on client side; server side only");
     }
 
-    args[0] = String.valueOf(sourceOrigin.getX());
-    args[1] = String.valueOf(sourceOrigin.getY());
-    args[2] = String.valueOf(sourceOrigin.getZ());
-
-    args[3] = String.valueOf(sourceOrigin.getX() + xCount - 1);
-    args[4] = String.valueOf(sourceOrigin.getY() + yCount - 1);
-    args[5] = String.valueOf(sourceOrigin.getZ() + zCount - 1);
-
-    args[6] = String.valueOf(destOrigin.getX());
-    args[7] = String.valueOf(destOrigin.getY());
-    args[8] = String.valueOf(destOrigin.getZ());
-
-    String command = "/clone " + String.join(" ", args);
-
-    int success = 0;
-    try {
-      CommandSource commandSource = player.getCommandSource();
-      success = player.getServer().getCommandManager().handleCommand(commandSource, command);
-    } catch (Exception e) {
-      return false;
-    }
-    return (success != 0);
+    BulkBlockEditor bulkBlockEditor = new BulkBlockEditor(((ServerPlayerEntity)player).getServerWorld());
+    bulkBlockEditor.copy(sourceOrigin, destOrigin, xCount, yCount, zCount);
+    bulkBlockEditor.finish();
+    return true;
   }
 
   /*
   Create a square basin (eg of water or lava)
    */
   public static void createBasin(PlayerEntity player, BlockPos centre, int radius, int depth, BlockState fillBlock) {
-    World world = player.getEntityWorld();
-    for (int y = 0; y <= depth; ++y) {
-      for (int x = -radius; x <= radius; ++x) {
-        for (int z = -radius; z <= radius; ++z) {
-          boolean atedge = y == 0 || x == -radius || x == radius || z == -radius || z == radius;
-          world.setBlockState(new BlockPos(x + centre.getX(), y + centre.getY(), z + centre.getZ()),
-                  atedge ? Blocks.STONE.getDefaultState() : fillBlock);
-        }
-      }
-    }
+    BulkBlockEditor bulkBlockEditor = getBulkBlockEditor(player);
+    bulkBlockEditor.fill(centre.add(-radius, 0, -radius), centre.add(radius, depth, radius), pos -> {
+      boolean atedge = pos.getY() == centre.getY() || Math.abs(pos.getX() - centre.getX()) == radius
+                       || Math.abs(pos.getZ() - centre.getZ()) == radius;
+      return atedge ? Blocks.STONE.getDefaultState() : fillBlock;
+    });
+    bulkBlockEditor.finish();
   }
 
   /*
@@ -248,25 +230,30 @@ public class TestRunnerMBE81
   /*  create a line of regularly-spaced blocks
  */
   public static void createLine(PlayerEntity player, BlockPos start, int count, Vector3i delta, BlockState blockState) {
-    World world = player.getEntityWorld();
+    BulkBlockEditor bulkBlockEditor = getBulkBlockEditor(player);
     BlockPos currentPos = start;
     for (int i = 0; i < count; ++i) {
-       world.setBlockState(currentPos, blockState);
+      bulkBlockEditor.setBlockState(currentPos, blockState);
       currentPos = currentPos.add(delta);
     }
+    bulkBlockEditor.finish();
   }
 
   /* create a chessboard of colours
    */
   public static void generateChessboard(PlayerEntity player, BlockPos centre, int radius) {
     Block[] blockStates = {Blocks.GREEN_WOOL, Blocks.BLACK_WOOL, Blocks.BLUE_WOOL, Blocks.WHITE_WOOL};
-    World world = player.getEntityWorld();
-    for (int x = -radius; x <= radius; ++x) {
-      for (int z = -radius; z <= radius; ++z) {
-        BlockState blockColour =  blockStates[Math.floorMod(x+z, 4)].getDefaultState();
-        world.setBlockState(new BlockPos(x + centre.getX(), centre.getY(), z + centre.getZ()), blockColour);
-      }
+    BulkBlockEditor bulkBlockEditor = getBulkBlockEditor(player);
+    bulkBlockEditor.fill(centre.add(-radius, 0, -radius), centre.add(radius, 0, radius),
+            pos -> blockStates[Math.floorMod(pos.getX() - centre.getX() + pos.getZ() - centre.getZ(), 4)].getDefaultState());
+    bulkBlockEditor.finish();
+  }
+
+  private static BulkBlockEditor getBulkBlockEditor(PlayerEntity player) {
+    if (!(player instanceof ServerPlayerEntity)) {
+      throw new UnsupportedOperationException("block placement not supported on client side; server side only");
     }
+    return new BulkBlockEditor(((ServerPlayerEntity)player).getServerWorld());
   }
 
 
@@ -1,5 +1,6 @@
 package minecraftbyexample.mbe81_entity_projectile.testharness;
 
+import minecraftbyexample.usefultools.BulkBlockEditor;
 import minecraftbyexample.usefultools.debugging.DebugSettings;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.LadderBlock;
@@ -115,34 +116,15 @@ public class TestRunnerTools
     checkArgument(xCount >= 1);
     checkArgument(yCount >= 1);
     checkArgument(zCount >= 1);
-    String [] args = new String[9];
 
     if (!(player instanceof ServerPlayerEntity)) {
-      throw new UnsupportedOperationException("teleport not supported on client side; server side only");
+      throw new UnsupportedOperationException("copy not supported on client side; server side only");
     }
 
-    args[0] = String.valueOf(sourceOrigin.getX());
-    args[1] = String.valueOf(sourceOrigin.getY());
-    args[2] = String.valueOf(sourceOrigin.getZ());
-
-    args[3] = String.valueOf(sourceOrigin.getX() + xCount - 1);
-    args[4] = String.valueOf(sourceOrigin.getY() + yCount - 1);
-    args[5] = String.valueOf(sourceOrigin.getZ() + zCount - 1);
-
-    args[6] = String.valueOf(destOrigin.getX());
-    args[7] = String.valueOf(destOrigin.getY());
-    args[8] = String.valueOf(destOrigin.getZ());
-
-    String command = "/clone " + String.join(" ", args);
-
-    int success = 0;
-    try {
-      CommandSource commandSource = player.getCommandSource();
-      success = player.getServer().getCommandManager().handleCommand(commandSource, command);
-    } catch (Exception e) {
-      return false;
-    }
-    return (success != 0);
+    BulkBlockEditor bulkBlockEditor = new BulkBlockEditor(((ServerPlayerEntity)player).getServerWorld());
+    bulkBlockEditor.copy(sourceOrigin, destOrigin, xCount, yCount, zCount);
+    bulkBlockEditor.finish();
+    return true;
   }
 
   private static final Logger LOGGER = LogManager.getLogger();
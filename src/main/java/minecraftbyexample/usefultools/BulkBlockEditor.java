@@ -0,0 +1,215 @@
+package minecraftbyexample.usefultools;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraft.world.lighting.WorldLightManager;
+import net.minecraft.world.server.ServerChunkProvider;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Changes a large number of blocks at once, much faster than calling world.setBlockState() for each one (or running /clone
+ *   or /fill).  Intended for building and resetting test arenas.
+ * The blocks are written directly into the ChunkSections.  All of the follow-up work that setBlockState normally does for
+ *   each block - light recalculation, sending the change to clients, and notifying the neighbours - is deferred until
+ *   finish(), which does it in one pass after all the blocks are in place.  So the neighbours only react to the final state
+ *   of the region, the same as /clone.
+ * Differences from setBlockState:
+ * 1) The replaced blocks don't get onReplaced() - so eg chests don't drop their contents.  Their tile entities are removed.
+ * 2) The new blocks don't get onBlockAdded() or a shape update (eg fences don't reconnect), only the neighbour notification
+ *    in finish().
+ *
+ * Usage:
+ *   BulkBlockEditor editor = new BulkBlockEditor(serverWorld);
+ *   editor.fill(corner1, corner2, Blocks.STONE.getDefaultState());
+ *   editor.copy(sourceOrigin, destOrigin, 5, 3, 5);
+ *   editor.finish();
+ * Server thread only.  The world must not be changed by anything else between the first edit and finish().
+ */
+public class BulkBlockEditor {
+
+  public BulkBlockEditor(ServerWorld world) {
+    this.world = world;
+  }
+
+  /** Set a single block; use fill() or copy() for regions */
+  public void setBlockState(BlockPos pos, BlockState newState) {
+    writeBlock(pos, newState, null);
+  }
+
+  /** Fill the cuboid between the two corners (inclusive) with the given block */
+  public void fill(BlockPos corner1, BlockPos corner2, BlockState newState) {
+    fill(corner1, corner2, pos -> newState);
+  }
+
+  /**
+   * Fill the cuboid between the two corners (inclusive)
+   * @param stateAt returns the block for each position.  The position is mutable: don't keep a reference to it.
+   */
+  public void fill(BlockPos corner1, BlockPos corner2, Function<BlockPos, BlockState> stateAt) {
+    BlockPos min = new BlockPos(Math.min(corner1.getX(), corner2.getX()), Math.min(corner1.getY(), corner2.getY()),
+                                Math.min(corner1.getZ(), corner2.getZ()));
+    BlockPos max = new BlockPos(Math.max(corner1.getX(), corner2.getX()), Math.max(corner1.getY(), corner2.getY()),
+                                Math.max(corner1.getZ(), corner2.getZ()));
+    BlockPos.Mutable pos = new BlockPos.Mutable();
+    // one chunk column at a time, so that each chunk is only looked up once
+    for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; ++chunkX) {
+      for (int chunkZ = min.getZ() >> 4; chunkZ <= max.getZ() >> 4; ++chunkZ) {
+        int xStart = Math.max(min.getX(), chunkX << 4);
+        int xEnd = Math.min(max.getX(), (chunkX << 4) + 15);
+        int zStart = Math.max(min.getZ(), chunkZ << 4);
+        int zEnd = Math.min(max.getZ(), (chunkZ << 4) + 15);
+        for (int y = min.getY(); y <= max.getY(); ++y) {
+          for (int z = zStart; z <= zEnd; ++z) {
+            for (int x = xStart; x <= xEnd; ++x) {
+              pos.setPos(x, y, z);
+              writeBlock(pos, stateAt.apply(pos), null);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Copy a cuboid region, including any tile entities.  The source and destination may overlap.
+   * @param sourceOrigin the lowest corner of the source region
+   * @param destOrigin the lowest corner of the destination region
+   * @param xCount >= 1
+   * @param yCount >= 1
+   * @param zCount >= 1
+   */
+  public void copy(BlockPos sourceOrigin, BlockPos destOrigin, int xCount, int yCount, int zCount) {
+    // take a snapshot of the source first, in case it overlaps the destination
+    BlockState [] sourceStates = new BlockState[xCount * yCount * zCount];
+    CompoundNBT [] sourceTileEntities = new CompoundNBT[sourceStates.length];
+    BlockPos.Mutable pos = new BlockPos.Mutable();
+    int idx = 0;
+    for (int y = 0; y < yCount; ++y) {
+      for (int z = 0; z < zCount; ++z) {
+        for (int x = 0; x < xCount; ++x) {
+          pos.setPos(sourceOrigin.getX() + x, sourceOrigin.getY() + y, sourceOrigin.getZ() + z);
+          sourceStates[idx] = world.getBlockState(pos);
+          TileEntity tileEntity = sourceStates[idx].hasTileEntity() ? world.getTileEntity(pos) : null;
+          if (tileEntity != null) sourceTileEntities[idx] = tileEntity.write(new CompoundNBT());
+          ++idx;
+        }
+      }
+    }
+    idx = 0;
+    for (int y = 0; y < yCount; ++y) {
+      for (int z = 0; z < zCount; ++z) {
+        for (int x = 0; x < xCount; ++x) {
+          pos.setPos(destOrigin.getX() + x, destOrigin.getY() + y, destOrigin.getZ() + z);
+          writeBlock(pos, sourceStates[idx], sourceTileEntities[idx]);
+          ++idx;
+        }
+      }
+    }
+  }
+
+  /**
+   * Recalculate the lighting, send the changes to the clients, and notify the neighbours of every changed block.
+   * The editor can be reused afterwards.
+   * @return the number of blocks which were changed
+   */
+  public int finish() {
+    ServerChunkProvider chunkProvider = world.getChunkProvider();
+    WorldLightManager lightManager = chunkProvider.getLightManager();
+    BlockPos.Mutable pos = new BlockPos.Mutable();
+    int numberChanged = changedPositions.size();
+    for (int i = 0; i < numberChanged; ++i) {
+      pos.setPos(BlockPos.unpackX(changedPositions.getLong(i)), BlockPos.unpackY(changedPositions.getLong(i)),
+                 BlockPos.unpackZ(changedPositions.getLong(i)));
+      BlockState oldState = oldStates.get(i);
+      BlockState newState = world.getBlockState(pos);
+      if (oldState.getOpacity(world, pos) != newState.getOpacity(world, pos)
+          || oldState.getLightValue(world, pos) != newState.getLightValue(world, pos)
+          || oldState.isTransparent() || newState.isTransparent()) {
+        lightManager.checkBlock(pos);
+      }
+      chunkProvider.markBlockChanged(pos);
+    }
+    // now that every block is in its final state, let the neighbours react
+    for (int i = 0; i < numberChanged; ++i) {
+      pos.setPos(BlockPos.unpackX(changedPositions.getLong(i)), BlockPos.unpackY(changedPositions.getLong(i)),
+                 BlockPos.unpackZ(changedPositions.getLong(i)));
+      world.notifyNeighborsOfStateChange(pos, world.getBlockState(pos).getBlock());
+    }
+    changedPositions.clear();
+    oldStates.clear();
+    lastChunk = null;
+    return numberChanged;
+  }
+
+  private void writeBlock(BlockPos pos, BlockState newState, @Nullable CompoundNBT tileEntityNBT) {
+    if (World.isOutsideBuildHeight(pos)) return;
+    Chunk chunk = getChunk(pos.getX() >> 4, pos.getZ() >> 4);
+    int sectionY = pos.getY() >> 4;
+    ChunkSection section = chunk.getSections()[sectionY];
+    BlockState oldState = (section == Chunk.EMPTY_SECTION) ? Blocks.AIR.getDefaultState()
+                                                           : section.getBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    if (oldState == newState && tileEntityNBT == null) return;
+
+    if (section == Chunk.EMPTY_SECTION) {
+      section = new ChunkSection(sectionY << 4);
+      chunk.getSections()[sectionY] = section;
+    }
+    if (oldState.hasTileEntity()) world.removeTileEntity(pos);
+
+    boolean wasEmpty = section.isEmpty();
+    final boolean USE_LOCKS = false;  // only the server thread writes to the sections
+    section.setBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15, newState, USE_LOCKS);
+    if (wasEmpty != section.isEmpty()) {
+      world.getChunkProvider().getLightManager().updateSectionStatus(SectionPos.from(pos), section.isEmpty());
+    }
+    for (Heightmap.Type type : HEIGHTMAPS_TO_UPDATE) {
+      chunk.getHeightmap(type).update(pos.getX() & 15, pos.getY(), pos.getZ() & 15, newState);
+    }
+
+    if (newState.hasTileEntity()) {
+      TileEntity tileEntity = chunk.getTileEntity(pos, Chunk.CreateEntityType.IMMEDIATE);
+      if (tileEntity != null && tileEntityNBT != null) {
+        CompoundNBT nbt = tileEntityNBT.copy();
+        nbt.putInt("x", pos.getX());
+        nbt.putInt("y", pos.getY());
+        nbt.putInt("z", pos.getZ());
+        tileEntity.read(newState, nbt);
+        tileEntity.markDirty();
+      }
+    }
+    chunk.markDirty();
+
+    changedPositions.add(pos.toLong());
+    oldStates.add(oldState);
+  }
+
+  private Chunk getChunk(int chunkX, int chunkZ) {
+    if (lastChunk == null || lastChunk.getPos().x != chunkX || lastChunk.getPos().z != chunkZ) {
+      lastChunk = world.getChunk(chunkX, chunkZ);  // loads (or generates) the chunk if necessary
+    }
+    return lastChunk;
+  }
+
+  // the heightmaps which Chunk.setBlockState keeps up to date
+  private static final Heightmap.Type [] HEIGHTMAPS_TO_UPDATE =
+          {Heightmap.Type.MOTION_BLOCKING, Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, Heightmap.Type.OCEAN_FLOOR, Heightmap.Type.WORLD_SURFACE};
+
+  private final ServerWorld world;
+  private final LongArrayList changedPositions = new LongArrayList();  // BlockPos.toLong()
+  private final List<BlockState> oldStates = new ArrayList<>();
+  private @Nullable Chunk lastChunk = null;
+}
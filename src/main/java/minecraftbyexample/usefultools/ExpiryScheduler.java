@@ -0,0 +1,142 @@
+package minecraftbyexample.usefultools;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calls tile entities back when a deadline (in world game time) is reached, so that tile entities which only tick to count
+ *   down to something don't need to tick at all.
+ * Usage:
+ * 1) Your TileEntity implements ExpiryScheduler.IExpiringTileEntity, and stores its deadline as an absolute game time
+ *    (world.getGameTime() + ticks), which it saves in write() and loads in read().
+ * 2) When it sets a deadline, and in its onLoad(), it calls ExpiryScheduler.schedule(world, pos, deadline) on the server.
+ * 3) When the deadline is reached, the scheduler calls onExpired() - but only if the chunk is still loaded and the tile
+ *    entity at that position still reports the same (or an earlier) deadline.  If the chunk was unloaded in the meantime,
+ *    the entry is dropped, and onLoad() schedules it again when the chunk comes back; a deadline which has already passed
+ *    will expire on the next tick.
+ * So the tile entity is the only place the deadline is stored; the scheduler never holds a reference to the tile entity,
+ *   and stale or duplicate entries are harmless.
+ *
+ * The deadlines for each world are kept in a hashed timing wheel: an array of WHEEL_SIZE buckets, one per tick, with each
+ *   deadline in the bucket (deadline % WHEEL_SIZE).  Each tick, only the current bucket is examined.  Deadlines further than
+ *   WHEEL_SIZE ticks away are skipped over (and checked again) once per revolution of the wheel.
+ *
+ * Must be registered on the MinecraftForge.EVENT_BUS.  Only used on the server thread.
+ */
+public class ExpiryScheduler {
+
+  public interface IExpiringTileEntity {
+    /** @return the game time at which this tile entity expires, or NO_EXPIRY */
+    long getExpiryGameTime();
+
+    /** Called on the server when the expiry time has been reached */
+    void onExpired(ServerWorld world);
+  }
+
+  public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+  /**
+   * Schedule a call to the IExpiringTileEntity at the given position
+   * @param expiryGameTime the world game time at which to call onExpired(); if it has already passed, it will be called next tick
+   */
+  public static void schedule(ServerWorld world, BlockPos pos, long expiryGameTime) {
+    if (expiryGameTime == NO_EXPIRY) return;
+    schedulers.computeIfAbsent(world, w -> new ExpiryScheduler(w.getGameTime() - 1)).add(pos.toLong(), expiryGameTime);
+  }
+
+  @SubscribeEvent
+  public static void onWorldTick(TickEvent.WorldTickEvent event) {
+    if (event.side != LogicalSide.SERVER || event.phase != TickEvent.Phase.END) return;
+    if (!(event.world instanceof ServerWorld)) return;
+    ExpiryScheduler scheduler = schedulers.get(event.world);
+    if (scheduler == null) return;
+    scheduler.tick((ServerWorld)event.world);
+  }
+
+  @SubscribeEvent
+  public static void onWorldUnload(WorldEvent.Unload event) {
+    schedulers.remove(event.getWorld());
+  }
+
+  private ExpiryScheduler(long lastProcessedTime) {
+    this.lastProcessedTime = lastProcessedTime;
+    for (int i = 0; i < WHEEL_SIZE; ++i) {
+      bucketPositions[i] = new LongArrayList();
+      bucketDeadlines[i] = new LongArrayList();
+    }
+  }
+
+  private void add(long packedPos, long expiryGameTime) {
+    // a deadline in the past goes into the next bucket to be processed
+    long bucketTime = Math.max(expiryGameTime, lastProcessedTime + 1);
+    int bucket = (int)(bucketTime & WHEEL_MASK);
+    bucketPositions[bucket].add(packedPos);
+    bucketDeadlines[bucket].add(expiryGameTime);
+    ++numberOfEntries;
+  }
+
+  private void tick(ServerWorld world) {
+    long now = world.getGameTime();
+    if (numberOfEntries == 0 || now < lastProcessedTime) {  // nothing to do; or game time went backwards (shouldn't happen)
+      lastProcessedTime = now;
+      return;
+    }
+    // normally one bucket per tick; if the game time jumped, catch up (but never go round the wheel more than once)
+    long ticksToProcess = Math.min(now - lastProcessedTime, WHEEL_SIZE);
+    dueNow.clear();
+    for (long time = now - ticksToProcess + 1; time <= now; ++time) {
+      collectDue((int)(time & WHEEL_MASK), now);
+    }
+    lastProcessedTime = now;
+
+    // the callbacks may schedule new entries, so call them after the buckets have been updated
+    for (int i = 0; i < dueNow.size(); ++i) {
+      BlockPos pos = BlockPos.fromLong(dueNow.getLong(i));
+      if (!world.isBlockLoaded(pos)) continue;  // onLoad() will reschedule it when the chunk is loaded again
+      TileEntity tileEntity = world.getTileEntity(pos);
+      if (!(tileEntity instanceof IExpiringTileEntity)) continue;
+      IExpiringTileEntity expiringTileEntity = (IExpiringTileEntity)tileEntity;
+      if (expiringTileEntity.getExpiryGameTime() > now) continue;  // deadline has been changed; a newer entry exists
+      expiringTileEntity.onExpired(world);
+    }
+  }
+
+  // move the entries in this bucket which are due into dueNow, keeping the others
+  private void collectDue(int bucket, long now) {
+    LongArrayList positions = bucketPositions[bucket];
+    LongArrayList deadlines = bucketDeadlines[bucket];
+    int kept = 0;
+    for (int i = 0; i < positions.size(); ++i) {
+      if (deadlines.getLong(i) <= now) {
+        dueNow.add(positions.getLong(i));
+      } else {
+        positions.set(kept, positions.getLong(i));
+        deadlines.set(kept, deadlines.getLong(i));
+        ++kept;
+      }
+    }
+    numberOfEntries -= positions.size() - kept;
+    positions.size(kept);
+    deadlines.size(kept);
+  }
+
+  private static final int WHEEL_SIZE = 256;  // must be a power of two
+  private static final long WHEEL_MASK = WHEEL_SIZE - 1;
+
+  private final LongArrayList [] bucketPositions = new LongArrayList[WHEEL_SIZE];  // BlockPos.toLong()
+  private final LongArrayList [] bucketDeadlines = new LongArrayList[WHEEL_SIZE];
+  private final LongArrayList dueNow = new LongArrayList();
+  private int numberOfEntries = 0;
+  private long lastProcessedTime;
+
+  private static final Map<ServerWorld, ExpiryScheduler> schedulers = new HashMap<>();
+}
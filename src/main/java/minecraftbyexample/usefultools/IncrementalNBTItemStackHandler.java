@@ -0,0 +1,202 @@
+package minecraftbyexample.usefultools;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraftforge.common.util.Constants;
+
+import java.util.Arrays;
+
+/**
+ * An ItemStackHandler which remembers which slots have changed, so that it doesn't have to re-encode every slot each time it
+ *   is saved or sent to the client:
+ * 1) serializeNBT() keeps the encoded tag for each slot, and only re-encodes the slots which have changed since the last call.
+ *    The unchanged slot tags are reused as they are, not copied.
+ *    The format is identical to ItemStackHandler.serializeNBT, so deserializeNBT and existing saves are unaffected.
+ * 2) Each change to a slot is numbered (getChangeCount()).  serializeChangedSlots(sinceChangeCount) encodes only the slots
+ *    which have changed since the given change count, including slots which have become empty.  deserializeChangedSlots()
+ *    applies them on the other side.  This is intended for update packets sent to clients which already have a copy of the
+ *    contents (eg SUpdateTileEntityPacket); clients which don't have a copy yet should be sent serializeNBT() instead
+ *    (eg getUpdateTag).
+ *    Nothing is reset when the changes are encoded, so several consumers can each keep track of the changes that they
+ *    have already sent.  Each changed slot carries its complete new contents, so applying the changes to a client whose copy
+ *    is more recent than the previous update is harmless.
+ *
+ * A slot only counts as changed if its ItemStack is really different from last time (it is compared with a copy of the
+ *   last ItemStack seen in that slot), so eg calling markDirty() on an IInventory wrapper doesn't cause every slot to be
+ *   re-encoded and re-sent.
+ * If an ItemStack is changed in place (i.e. modifying the ItemStack returned by getStackInSlot), call onStackChangedInPlace(slot),
+ *   or onStacksChangedInPlace() if you don't know which slots have changed.
+ */
+public class IncrementalNBTItemStackHandler extends OccupancyTrackingItemStackHandler {
+
+  public IncrementalNBTItemStackHandler(int size) {
+    super(size);
+    cachedSlotNBT = new CompoundNBT[size];
+    lastSeenStacks = new ItemStack[size];
+    Arrays.fill(lastSeenStacks, ItemStack.EMPTY);
+    slotChangeCounts = new long[size];
+  }
+
+  /**
+   * The returned CompoundNBT and its "Items" list are new, so the caller owns them and may add them to another tag (eg the
+   *   tag that is saved with the chunk, which may be written to disk on another thread).
+   * The slot tags inside the list are shared with the cache and must not be modified.  This is safe for the chunk save
+   *   because a cached slot tag is never changed after it is encoded; a changed slot gets a new tag instead.
+   */
+  @Override
+  public CompoundNBT serializeNBT() {
+    ListNBT itemsNBT = new ListNBT();
+    for (int slot = 0; slot < stacks.size(); ++slot) {
+      ItemStack itemStack = stacks.get(slot);
+      if (itemStack.isEmpty()) continue;
+      if (cachedSlotNBT[slot] == null) {
+        cachedSlotNBT[slot] = encodeSlot(slot, itemStack);
+      }
+      itemsNBT.add(cachedSlotNBT[slot]);
+    }
+    CompoundNBT nbt = new CompoundNBT();
+    nbt.put(ITEMS_NBT, itemsNBT);
+    nbt.putInt(SIZE_NBT, stacks.size());
+    return nbt;
+  }
+
+  /** @return the number of slot changes so far; use this as the sinceChangeCount for the next serializeChangedSlots() */
+  public long getChangeCount() {
+    return changeCount;
+  }
+
+  /** @return true if any slots have changed since the given getChangeCount() */
+  public boolean hasChangedSlots(long sinceChangeCount) {
+    return changeCount > sinceChangeCount;
+  }
+
+  /**
+   * Encode the slots which have changed since the given getChangeCount()
+   */
+  public CompoundNBT serializeChangedSlots(long sinceChangeCount) {
+    ListNBT itemsNBT = new ListNBT();
+    if (hasChangedSlots(sinceChangeCount)) {
+      for (int slot = 0; slot < stacks.size(); ++slot) {
+        if (slotChangeCounts[slot] > sinceChangeCount) {
+          itemsNBT.add(encodeSlot(slot, stacks.get(slot)));  // empty slots are included, so the client knows to clear them
+        }
+      }
+    }
+    CompoundNBT nbt = new CompoundNBT();
+    nbt.put(ITEMS_NBT, itemsNBT);
+    nbt.putInt(SIZE_NBT, stacks.size());
+    return nbt;
+  }
+
+  /**
+   * Encode the slots which have changed since the last update packet, for a tile entity's getUpdatePacket().
+   * getUpdatePacket() isn't necessarily called only once per update, so the changes aren't forgotten as soon as they
+   *   have been written: every call during the same tick writes all the changes since the previous tick's update packet.
+   * The bookkeeping is kept in this handler, so only one kind of update packet should use it.
+   * Apply the changes on the client with deserializeChangedSlots().
+   * @param gameTime the current world.getGameTime()
+   * @return the tag containing the changed slots
+   */
+  public CompoundNBT serializeChangedSlotsForUpdatePacket(long gameTime) {
+    if (gameTime != updatePacketGameTime) {
+      updatePacketSinceChangeCount = changeCountAtLastUpdatePacket;
+      updatePacketGameTime = gameTime;
+    }
+    changeCountAtLastUpdatePacket = changeCount;
+    return serializeChangedSlots(updatePacketSinceChangeCount);
+  }
+
+  /**
+   * Apply the changes produced by serializeChangedSlots() or serializeChangedSlotsForUpdatePacket()
+   */
+  public void deserializeChangedSlots(CompoundNBT nbt) {
+    if (nbt.getInt(SIZE_NBT) != stacks.size()) {
+      throw new IllegalArgumentException("Number of slots in update (" + nbt.getInt(SIZE_NBT) + ") doesn't match inventory (" + stacks.size() + ")");
+    }
+    ListNBT itemsNBT = nbt.getList(ITEMS_NBT, Constants.NBT.TAG_COMPOUND);
+    for (int i = 0; i < itemsNBT.size(); ++i) {
+      CompoundNBT slotNBT = itemsNBT.getCompound(i);
+      int slot = slotNBT.getInt(SLOT_NBT);
+      if (slot < 0 || slot >= stacks.size()) continue;
+      setStackInSlot(slot, ItemStack.read(slotNBT));
+    }
+  }
+
+  /**
+   * Call this after changing the ItemStack in the given slot in place, bypassing the IItemHandler methods.
+   * If the ItemStack really is different from the last one seen in that slot, onContentsChanged(slot) is called.
+   */
+  @Override
+  public void onStackChangedInPlace(int slot) {
+    validateSlotIndex(slot);
+    if (ItemStack.areItemStacksEqual(stacks.get(slot), lastSeenStacks[slot])) return;
+    onContentsChanged(slot);
+  }
+
+  /**
+   * Call this after changing any of the ItemStacks in place, bypassing the IItemHandler methods, if you don't know which ones.
+   * Each slot is compared with the last ItemStack seen in that slot; only the slots which are different are marked as changed.
+   */
+  public void onStacksChangedInPlace() {
+    for (int slot = 0; slot < stacks.size(); ++slot) {
+      onStackChangedInPlace(slot);
+    }
+  }
+
+  @Override
+  public void setSize(int size) {
+    cachedSlotNBT = new CompoundNBT[size];
+    lastSeenStacks = new ItemStack[size];
+    Arrays.fill(lastSeenStacks, ItemStack.EMPTY);
+    slotChangeCounts = new long[size];
+    super.setSize(size);
+    markAllSlotsChanged();
+  }
+
+  @Override
+  protected void onContentsChanged(int slot) {
+    super.onContentsChanged(slot);
+    markSlotChanged(slot);
+  }
+
+  @Override
+  protected void onLoad() {
+    super.onLoad();
+    markAllSlotsChanged();
+  }
+
+  private void markSlotChanged(int slot) {
+    cachedSlotNBT[slot] = null;
+    lastSeenStacks[slot] = stacks.get(slot).copy();
+    slotChangeCounts[slot] = ++changeCount;
+  }
+
+  private void markAllSlotsChanged() {
+    for (int slot = 0; slot < stacks.size(); ++slot) {
+      markSlotChanged(slot);
+    }
+  }
+
+  private static CompoundNBT encodeSlot(int slot, ItemStack itemStack) {
+    CompoundNBT slotNBT = new CompoundNBT();
+    slotNBT.putInt(SLOT_NBT, slot);
+    itemStack.write(slotNBT);
+    return slotNBT;
+  }
+
+  // the same tag names as ItemStackHandler uses
+  private static final String ITEMS_NBT = "Items";
+  private static final String SIZE_NBT = "Size";
+  private static final String SLOT_NBT = "Slot";
+
+  private CompoundNBT [] cachedSlotNBT;   // null = slot has changed since it was last encoded
+  private ItemStack [] lastSeenStacks;   // a copy of the ItemStack in each slot, as it was when the slot last changed
+  private long [] slotChangeCounts;      // the changeCount when each slot last changed
+  private long changeCount = 0;
+
+  // the changes included in the update packets - see serializeChangedSlotsForUpdatePacket
+  private long updatePacketGameTime = Long.MIN_VALUE;
+  private long updatePacketSinceChangeCount = 0;
+  private long changeCountAtLastUpdatePacket = 0;
+}
@@ -0,0 +1,60 @@
+package minecraftbyexample.usefultools;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Caches a value derived from an ItemStack's NBT tag (eg an enum, or a list of ItemStacks), so that code which is called
+ *   every frame for every visible stack (item property overrides, colour handlers, getTranslationKey) doesn't need to parse the
+ *   NBT each time.
+ * The value is attached to the identity of the stack's CompoundNBT:
+ * 1) If the stack's tag is replaced (setTag, or a new copy of the stack arrives from the server), the cached value for the
+ *    old tag is no longer found, and is garbage collected along with the old tag.
+ * 2) If the tag is changed in place (eg stack.getTag().putByte(...)), the cache can't tell - so any code which does that must
+ *    call invalidate(stack) afterwards.  Keep all the writes to the tag in your Item's setter methods to make this easy.
+ * Stacks with no tag all share the same value, parser.apply(null), which is only calculated once.
+ *
+ * The parser must not modify the tag, and must not return null.  The cached values are shared, so treat them as immutable.
+ * Thread safe; the client and server threads can both use the same cache.
+ *
+ * Typical usage:
+ *   private static final ItemStackDerivedStateCache<MyState> stateCache = new ItemStackDerivedStateCache<>(MyState::fromNBT);
+ *   MyState state = stateCache.get(itemStack);
+ */
+public class ItemStackDerivedStateCache<T> {
+
+  /**
+   * @param parser creates the derived value from the stack's tag; the tag may be null
+   */
+  public ItemStackDerivedStateCache(Function<CompoundNBT, T> parser) {
+    this.parser = parser;
+  }
+
+  public T get(ItemStack itemStack) {
+    CompoundNBT tag = itemStack.getTag();
+    if (tag == null) {
+      T value = valueForNoTag;
+      if (value == null) {
+        value = parser.apply(null);
+        valueForNoTag = value;
+      }
+      return value;
+    }
+    return cache.computeIfAbsent(tag, parser);
+  }
+
+  /** Call this after changing the stack's tag in place */
+  public void invalidate(ItemStack itemStack) {
+    CompoundNBT tag = itemStack.getTag();
+    if (tag != null) cache.remove(tag);
+  }
+
+  private final Function<CompoundNBT, T> parser;
+  private volatile @Nullable T valueForNoTag = null;
+  private final ConcurrentMap<CompoundNBT, T> cache = new MapMaker().weakKeys().makeMap();  // weakKeys() compares keys by identity
+}
@@ -0,0 +1,93 @@
+package minecraftbyexample.usefultools;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.ItemStackHandler;
+
+import java.util.BitSet;
+
+/**
+ * An ItemStackHandler which keeps track of which of its slots are occupied, so that questions such as "is the inventory empty?"
+ *   don't need to loop over every slot.  This is useful for inventories which are polled frequently, eg by comparators, hoppers,
+ *   or item model overrides.
+ * 1) isEmpty(), getNumberOfOccupiedSlots(), getNumberOfEmptySlots(), getFullness() are O(1)
+ * 2) getFirstEmptySlot() is a bit scan
+ * 3) getFirstSlotHolding(item) only looks at the occupied slots
+ *
+ * The occupancy is updated one slot at a time in onContentsChanged(), i.e. whenever the contents are changed through the
+ *   IItemHandler methods.  Vanilla containers sometimes grow or shrink the ItemStack returned by getStackInSlot() directly, and
+ *   then call Slot.onSlotChanged(); the container's Slot should call onStackChangedInPlace(slot) to pick up those changes.
+ *   refreshOccupancy() rechecks every slot, and is only needed if you don't know which slots have been changed in place.
+ * If you override onContentsChanged or onLoad, remember to call the super method.
+ */
+public class OccupancyTrackingItemStackHandler extends ItemStackHandler {
+
+  public OccupancyTrackingItemStackHandler(int size) {
+    super(size);
+    occupiedSlots = new BitSet(size);
+  }
+
+  public boolean isEmpty() {return occupiedCount == 0;}
+  public int getNumberOfOccupiedSlots() {return occupiedCount;}
+  public int getNumberOfEmptySlots() {return getSlots() - occupiedCount;}
+
+  /** @return 0.0 (all slots empty) -> 1.0 (all slots occupied) */
+  public float getFullness() {
+    return (getSlots() == 0) ? 0.0F : occupiedCount / (float)getSlots();
+  }
+
+  /** @return the lowest numbered empty slot, or -1 if none */
+  public int getFirstEmptySlot() {
+    int slot = occupiedSlots.nextClearBit(0);
+    return (slot < getSlots()) ? slot : -1;
+  }
+
+  /** @return the lowest numbered slot holding the given item, or -1 if none */
+  public int getFirstSlotHolding(Item item) {
+    for (int slot = occupiedSlots.nextSetBit(0); slot >= 0; slot = occupiedSlots.nextSetBit(slot + 1)) {
+      if (stacks.get(slot).getItem() == item) return slot;
+    }
+    return -1;
+  }
+
+  /** Recalculate the occupancy of the given slot; use this after changing its ItemStack in place */
+  public void onStackChangedInPlace(int slot) {
+    validateSlotIndex(slot);
+    updateOccupancy(slot);
+  }
+
+  /** Recalculate the occupancy of every slot; use this after changing the ItemStacks in place, if you don't know which ones */
+  public void refreshOccupancy() {
+    occupiedSlots.clear();
+    occupiedCount = 0;
+    for (int slot = 0; slot < stacks.size(); ++slot) {
+      updateOccupancy(slot);
+    }
+  }
+
+  @Override
+  public void setSize(int size) {
+    super.setSize(size);
+    refreshOccupancy();
+  }
+
+  @Override
+  protected void onContentsChanged(int slot) {
+    updateOccupancy(slot);
+  }
+
+  @Override
+  protected void onLoad() {
+    refreshOccupancy();
+  }
+
+  private void updateOccupancy(int slot) {
+    boolean occupied = !stacks.get(slot).isEmpty();
+    if (occupied == occupiedSlots.get(slot)) return;
+    occupiedSlots.set(slot, occupied);
+    occupiedCount += occupied ? 1 : -1;
+  }
+
+  private final BitSet occupiedSlots;
+  private int occupiedCount = 0;
+}
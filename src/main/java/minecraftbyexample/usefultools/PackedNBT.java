@@ -0,0 +1,175 @@
+package minecraftbyexample.usefultools;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.LongArrayNBT;
+import net.minecraft.util.math.vector.Vector3d;
+
+import javax.annotation.Nullable;
+
+/**
+ * Compact NBT encodings for arrays of primitives, which are otherwise typically saved as a ListNBT with one object per element:
+ * 1) double arrays                     -> LongArrayNBT [header, bits of each double]
+ * 2) sparse double arrays (with nulls) -> LongArrayNBT [header, bitmask of which entries are present, bits of each present double]
+ * 3) Vector3d                          -> LongArrayNBT [header, bits of x, y, z]
+ * The header holds a format version byte, the kind of data, and the number of entries, so that a blob can't be mistaken for
+ *   a different kind of data.
+ * Each readXXX accepts the new packed format, or the older format that was used before (see each method), so existing saves
+ *   can still be loaded; they will be written in the new format the next time they're saved.
+ * The readers return null if the tag is missing or not recognised - never trust data read from NBT.
+ *
+ * Typical usage:
+ *   nbt.put("myDoubles", PackedNBT.writeDoubleArray(myDoubles));
+ *   double [] readDoubles = PackedNBT.readDoubleArray(nbt.get("myDoubles"));
+ */
+public class PackedNBT {
+
+  public static LongArrayNBT writeDoubleArray(double [] values) {
+    long [] packed = new long[1 + values.length];
+    packed[0] = makeHeader(KIND_DOUBLE_ARRAY, values.length);
+    for (int i = 0; i < values.length; ++i) {
+      packed[1 + i] = Double.doubleToRawLongBits(values[i]);
+    }
+    return new LongArrayNBT(packed);
+  }
+
+  /**
+   * Read a double array written by writeDoubleArray, or (legacy format) a ListNBT of DoubleNBT
+   */
+  @Nullable
+  public static double [] readDoubleArray(@Nullable INBT nbt) {
+    if (nbt instanceof ListNBT) {
+      ListNBT listNBT = (ListNBT)nbt;
+      if (!listNBT.isEmpty() && listNBT.get(0).getId() != NBTtypesMBE.DOUBLE_NBT_ID) return null;
+      double [] values = new double[listNBT.size()];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = listNBT.getDouble(i);
+      }
+      return values;
+    }
+    long [] packed = getPackedLongs(nbt, KIND_DOUBLE_ARRAY);
+    if (packed == null) return null;
+    int length = getLength(packed[0]);
+    if (packed.length != 1 + length) return null;
+    double [] values = new double[length];
+    for (int i = 0; i < length; ++i) {
+      values[i] = Double.longBitsToDouble(packed[1 + i]);
+    }
+    return values;
+  }
+
+  public static LongArrayNBT writeSparseDoubleArray(Double [] values) {
+    int maskWords = numberOfMaskWords(values.length);
+    int presentCount = 0;
+    for (Double value : values) {
+      if (value != null) ++presentCount;
+    }
+    long [] packed = new long[1 + maskWords + presentCount];
+    packed[0] = makeHeader(KIND_SPARSE_DOUBLE_ARRAY, values.length);
+    int nextValue = 1 + maskWords;
+    for (int i = 0; i < values.length; ++i) {
+      if (values[i] == null) continue;
+      packed[1 + i / BITS_PER_LONG] |= 1L << (i % BITS_PER_LONG);
+      packed[nextValue++] = Double.doubleToRawLongBits(values[i]);
+    }
+    return new LongArrayNBT(packed);
+  }
+
+  /**
+   * Read a sparse double array written by writeSparseDoubleArray, or (legacy format) a ListNBT of CompoundNBT each holding
+   *   "i" (index + 1) and "v" (value).  For the legacy format, the length of the array is the highest index found; it is
+   *   rejected if it is implausibly long for the number of entries (see LEGACY_MAX_LENGTH_PER_ENTRY).
+   */
+  @Nullable
+  public static Double [] readSparseDoubleArray(@Nullable INBT nbt) {
+    if (nbt instanceof ListNBT) {
+      ListNBT listNBT = (ListNBT)nbt;
+      if (!listNBT.isEmpty() && listNBT.get(0).getId() != NBTtypesMBE.COMPOUND_NBT_ID) return null;
+      int length = 0;
+      for (int i = 0; i < listNBT.size(); ++i) {
+        length = Math.max(length, listNBT.getCompound(i).getInt(LEGACY_INDEX_NBT));
+      }
+      if (length > MAX_LENGTH || length > (long)listNBT.size() * LEGACY_MAX_LENGTH_PER_ENTRY) return null;
+      Double [] values = new Double[length];
+      for (int i = 0; i < listNBT.size(); ++i) {
+        CompoundNBT entry = listNBT.getCompound(i);
+        int idx = entry.getInt(LEGACY_INDEX_NBT) - 1;
+        if (idx >= 0 && entry.contains(LEGACY_VALUE_NBT, NBTtypesMBE.DOUBLE_NBT_ID)) {
+          values[idx] = entry.getDouble(LEGACY_VALUE_NBT);
+        }
+      }
+      return values;
+    }
+    long [] packed = getPackedLongs(nbt, KIND_SPARSE_DOUBLE_ARRAY);
+    if (packed == null) return null;
+    int length = getLength(packed[0]);
+    int maskWords = numberOfMaskWords(length);
+    if (packed.length < 1 + maskWords) return null;
+    Double [] values = new Double[length];
+    int nextValue = 1 + maskWords;
+    for (int i = 0; i < length; ++i) {
+      if ((packed[1 + i / BITS_PER_LONG] & (1L << (i % BITS_PER_LONG))) == 0) continue;
+      if (nextValue >= packed.length) return null;
+      values[i] = Double.longBitsToDouble(packed[nextValue++]);
+    }
+    return (nextValue == packed.length) ? values : null;
+  }
+
+  public static LongArrayNBT writeVec3d(Vector3d vec3d) {
+    long [] packed = {makeHeader(KIND_VEC3D, 3),
+                      Double.doubleToRawLongBits(vec3d.x), Double.doubleToRawLongBits(vec3d.y), Double.doubleToRawLongBits(vec3d.z)};
+    return new LongArrayNBT(packed);
+  }
+
+  /**
+   * Read a Vector3d written by writeVec3d, or (legacy format) a ListNBT of three DoubleNBT
+   */
+  @Nullable
+  public static Vector3d readVec3d(@Nullable INBT nbt) {
+    if (nbt instanceof ListNBT) {
+      double [] xyz = readDoubleArray(nbt);
+      return (xyz == null || xyz.length != 3) ? null : new Vector3d(xyz[0], xyz[1], xyz[2]);
+    }
+    long [] packed = getPackedLongs(nbt, KIND_VEC3D);
+    if (packed == null || packed.length != 4) return null;
+    return new Vector3d(Double.longBitsToDouble(packed[1]), Double.longBitsToDouble(packed[2]), Double.longBitsToDouble(packed[3]));
+  }
+
+  // header: bits 0-7 = format version, bits 8-15 = kind of data, bits 32-63 = number of entries
+  private static long makeHeader(int kind, int length) {
+    return FORMAT_VERSION | ((long)kind << 8) | ((long)length << 32);
+  }
+
+  private static int getLength(long header) {
+    return (int)(header >>> 32);
+  }
+
+  /** @return the packed longs if nbt is a LongArrayNBT with the expected version and kind; null otherwise */
+  @Nullable
+  private static long [] getPackedLongs(@Nullable INBT nbt, int expectedKind) {
+    if (!(nbt instanceof LongArrayNBT)) return null;
+    long [] packed = ((LongArrayNBT)nbt).getAsLongArray();
+    if (packed.length == 0) return null;
+    long header = packed[0];
+    if ((header & 0xff) != FORMAT_VERSION || ((header >> 8) & 0xff) != expectedKind) return null;
+    if (getLength(header) < 0 || getLength(header) > MAX_LENGTH) return null;
+    return packed;
+  }
+
+  private static int numberOfMaskWords(int length) {
+    return (length + BITS_PER_LONG - 1) / BITS_PER_LONG;
+  }
+
+  private static final long FORMAT_VERSION = 1;
+  private static final int KIND_DOUBLE_ARRAY = 1;
+  private static final int KIND_SPARSE_DOUBLE_ARRAY = 2;
+  private static final int KIND_VEC3D = 3;
+  private static final int BITS_PER_LONG = 64;
+  private static final int MAX_LENGTH = 1 << 24;  // sanity check against corrupted data
+
+  // the same limit as the packed format, which needs at least one mask word (one long) for every BITS_PER_LONG entries
+  private static final int LEGACY_MAX_LENGTH_PER_ENTRY = BITS_PER_LONG;
+  private static final String LEGACY_INDEX_NBT = "i";
+  private static final String LEGACY_VALUE_NBT = "v";
+}
@@ -0,0 +1,104 @@
+package minecraftbyexample.usefultools;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3d;
+
+import java.awt.*;
+
+/**
+ * Compact encodings for values which are written into a PacketBuffer, to keep network messages small:
+ * 1) signed varints (zigzag encoding) - small positive or negative numbers take one byte instead of four
+ * 2) quantised positions - written as the chunk x,z (signed varints) plus the position within the chunk, accurate to
+ *    1/4096 of a block horizontally and 1/256 of a block vertically.  Typically 9 - 12 bytes instead of 24.
+ * 3) enum ordinals packed into a single byte
+ * 4) doubles quantised into 16 bits over a known range, and colours packed into three bytes
+ *
+ * Each writeXXX has a matching readXXX.  The read methods throw IllegalArgumentException if the data is not valid, the same as
+ *   PacketBuffer does.
+ */
+public class PacketCodecs
+{
+  /** Write a signed int as a varint; small negative numbers are encoded as efficiently as small positive numbers */
+  public static void writeSignedVarInt(PacketBuffer buf, int value) {
+    buf.writeVarInt((value << 1) ^ (value >> 31));  // zigzag
+  }
+
+  public static int readSignedVarInt(PacketBuffer buf) {
+    int zigzag = buf.readVarInt();
+    return (zigzag >>> 1) ^ -(zigzag & 1);
+  }
+
+  public static final int HORIZONTAL_STEPS_PER_BLOCK = 4096;  // 16 blocks * 4096 = 65536 = fits in an unsigned short
+  public static final int VERTICAL_STEPS_PER_BLOCK = 256;
+
+  /**
+   * Write a position as the chunk it lies in, plus a quantised offset within that chunk.
+   */
+  public static void writeQuantisedPosition(PacketBuffer buf, Vector3d position) {
+    final int BLOCKS_PER_CHUNK = 16;
+    int chunkX = MathHelper.floor(position.x) >> 4;
+    int chunkZ = MathHelper.floor(position.z) >> 4;
+    writeSignedVarInt(buf, chunkX);
+    writeSignedVarInt(buf, chunkZ);
+    buf.writeShort(quantiseHorizontalOffset(position.x - chunkX * BLOCKS_PER_CHUNK));
+    buf.writeShort(quantiseHorizontalOffset(position.z - chunkZ * BLOCKS_PER_CHUNK));
+    writeSignedVarInt(buf, (int)Math.round(position.y * VERTICAL_STEPS_PER_BLOCK));
+  }
+
+  public static Vector3d readQuantisedPosition(PacketBuffer buf) {
+    final int BLOCKS_PER_CHUNK = 16;
+    int chunkX = readSignedVarInt(buf);
+    int chunkZ = readSignedVarInt(buf);
+    double x = chunkX * BLOCKS_PER_CHUNK + buf.readUnsignedShort() / (double)HORIZONTAL_STEPS_PER_BLOCK;
+    double z = chunkZ * BLOCKS_PER_CHUNK + buf.readUnsignedShort() / (double)HORIZONTAL_STEPS_PER_BLOCK;
+    double y = readSignedVarInt(buf) / (double)VERTICAL_STEPS_PER_BLOCK;
+    return new Vector3d(x, y, z);
+  }
+
+  /** Write the ordinal of an enum with less than 256 values as a single byte */
+  public static void writeEnumOrdinal(PacketBuffer buf, Enum<?> value) {
+    if (value.ordinal() > MAX_UNSIGNED_BYTE) {
+      throw new IllegalArgumentException("Enum has too many values to pack into a byte:" + value.getClass());
+    }
+    buf.writeByte(value.ordinal());
+  }
+
+  /**
+   * @param allValues the values() of the enum
+   */
+  public static <T extends Enum<T>> T readEnumOrdinal(PacketBuffer buf, T[] allValues) {
+    int ordinal = buf.readUnsignedByte();
+    if (ordinal >= allValues.length) {
+      throw new IllegalArgumentException("Unrecognised ordinal:" + ordinal);
+    }
+    return allValues[ordinal];
+  }
+
+  /** Write a double which lies between min and max, quantised into an unsigned short.  Values outside the range are clipped. */
+  public static void writeQuantisedDouble(PacketBuffer buf, double value, double min, double max) {
+    double fraction = MathHelper.clamp((value - min) / (max - min), 0.0, 1.0);
+    buf.writeShort((int)Math.round(fraction * MAX_UNSIGNED_SHORT));
+  }
+
+  public static double readQuantisedDouble(PacketBuffer buf, double min, double max) {
+    double fraction = buf.readUnsignedShort() / (double)MAX_UNSIGNED_SHORT;
+    return min + fraction * (max - min);
+  }
+
+  /** Write the red, green, blue of a colour as three bytes (alpha is ignored) */
+  public static void writeRGB(PacketBuffer buf, Color colour) {
+    buf.writeMedium(colour.getRGB() & 0xffffff);
+  }
+
+  public static Color readRGB(PacketBuffer buf) {
+    return new Color(buf.readUnsignedMedium());
+  }
+
+  private static int quantiseHorizontalOffset(double offsetWithinChunk) {
+    return MathHelper.clamp((int)Math.round(offsetWithinChunk * HORIZONTAL_STEPS_PER_BLOCK), 0, MAX_UNSIGNED_SHORT);
+  }
+
+  private static final int MAX_UNSIGNED_BYTE = 0xff;
+  private static final int MAX_UNSIGNED_SHORT = 0xffff;
+}
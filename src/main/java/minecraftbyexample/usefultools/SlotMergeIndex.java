@@ -0,0 +1,150 @@
+package minecraftbyexample.usefultools;
+
+import net.minecraft.inventory.container.Container;
+import net.minecraft.inventory.container.Slot;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of a range of slots in a Container, used to speed up shift-click merging (Container.mergeItemStack):
+ * 1) for each item type, which of the slots hold a partially-filled stack of that item
+ * 2) which of the slots are empty
+ * Container.mergeItemStack scans the whole range twice (once for partial stacks, once for an empty slot).  With the index,
+ *   mergeItemStack() only looks at the slots which can actually accept the items.  This matters for inventory-sorting mods
+ *   which fire thousands of shift-clicks at once.
+ *
+ * The index is built the first time it is needed, and then kept up to date for the slots that mergeItemStack() changes.
+ * The container must call:
+ *   onSlotChanged(slotIndex) whenever it knows which slot has changed (eg the source slot of a shift-click, putStackInSlot, or
+ *     the slots which detectAndSendChanges reports to the container's listeners)
+ *   invalidate() only when the slots may have been changed without it knowing which ones (eg setAll).  Rebuilding is lazy, but
+ *     it scans every slot in the range, so don't invalidate every tick.
+ * Each slot found in the index is checked again before it is used, so a stale index might miss an opportunity to merge into
+ *   the earliest possible slot, but it will never put items somewhere they don't belong.
+ * The merging behaves the same as Container.mergeItemStack.
+ */
+public class SlotMergeIndex {
+
+  /**
+   * @param slots the container's inventorySlots
+   * @param firstIndex the first slot in the range
+   * @param lastIndexPlus1 the last slot in the range, plus one
+   */
+  public SlotMergeIndex(List<Slot> slots, int firstIndex, int lastIndexPlus1) {
+    this.slots = slots;
+    this.firstIndex = firstIndex;
+    this.lastIndexPlus1 = lastIndexPlus1;
+    this.indexedItems = new Item[lastIndexPlus1 - firstIndex];
+  }
+
+  public void invalidate() {
+    valid = false;
+  }
+
+  /** Update the index for the given slot; slots outside this index's range are ignored */
+  public void onSlotChanged(int slotIndex) {
+    if (!valid || slotIndex < firstIndex || slotIndex >= lastIndexPlus1) return;
+    updateSlot(slotIndex);
+  }
+
+  /**
+   * Merge as much as possible of the given stack into the slots in this range, the same as Container.mergeItemStack
+   * @param sourceStack the stack to merge; it is shrunk by the number of items merged
+   * @param fillFromEnd if true: try to merge from the end of the range instead of from the start
+   * @return true if any items were merged
+   */
+  public boolean mergeItemStack(ItemStack sourceStack, boolean fillFromEnd) {
+    if (!valid) rebuild();
+    boolean merged = false;
+
+    // first: top up any partially-filled stacks of the same item
+    BitSet partialSlots = partialSlotsByItem.get(sourceStack.getItem());
+    if (sourceStack.isStackable() && partialSlots != null) {
+      for (int slotIndex = firstSlot(partialSlots, fillFromEnd); slotIndex >= 0 && !sourceStack.isEmpty();
+           slotIndex = nextSlot(partialSlots, slotIndex, fillFromEnd)) {
+        Slot slot = slots.get(slotIndex);
+        ItemStack destinationStack = slot.getStack();
+        if (!destinationStack.isEmpty() && Container.areItemsAndTagsEqual(sourceStack, destinationStack)) {
+          int maxSize = Math.min(slot.getSlotStackLimit(), sourceStack.getMaxStackSize());
+          int numberToMove = Math.min(sourceStack.getCount(), maxSize - destinationStack.getCount());
+          if (numberToMove > 0) {
+            sourceStack.shrink(numberToMove);
+            destinationStack.grow(numberToMove);
+            slot.onSlotChanged();
+            merged = true;
+          }
+        }
+        updateSlot(slotIndex);
+      }
+    }
+
+    // then: put the remainder into the first empty slot which will accept it
+    if (!sourceStack.isEmpty()) {
+      for (int slotIndex = firstSlot(emptySlots, fillFromEnd); slotIndex >= 0;
+           slotIndex = nextSlot(emptySlots, slotIndex, fillFromEnd)) {
+        Slot slot = slots.get(slotIndex);
+        if (!slot.getStack().isEmpty()) {  // stale index entry
+          updateSlot(slotIndex);
+          continue;
+        }
+        if (!slot.isItemValid(sourceStack)) continue;
+        slot.putStack(sourceStack.split(Math.min(sourceStack.getCount(), slot.getSlotStackLimit())));
+        slot.onSlotChanged();
+        updateSlot(slotIndex);
+        merged = true;
+        break;
+      }
+    }
+    return merged;
+  }
+
+  private void rebuild() {
+    partialSlotsByItem.clear();
+    emptySlots.clear();
+    Arrays.fill(indexedItems, null);
+    for (int slotIndex = firstIndex; slotIndex < lastIndexPlus1; ++slotIndex) {
+      updateSlot(slotIndex);
+    }
+    valid = true;
+  }
+
+  private void updateSlot(int slotIndex) {
+    emptySlots.clear(slotIndex);
+    Item previousItem = indexedItems[slotIndex - firstIndex];
+    if (previousItem != null) {
+      partialSlotsByItem.get(previousItem).clear(slotIndex);
+      indexedItems[slotIndex - firstIndex] = null;
+    }
+    Slot slot = slots.get(slotIndex);
+    ItemStack stack = slot.getStack();
+    if (stack.isEmpty()) {
+      emptySlots.set(slotIndex);
+    } else if (stack.getCount() < Math.min(slot.getSlotStackLimit(), stack.getMaxStackSize())) {
+      partialSlotsByItem.computeIfAbsent(stack.getItem(), item -> new BitSet()).set(slotIndex);
+      indexedItems[slotIndex - firstIndex] = stack.getItem();
+    }
+  }
+
+  private int firstSlot(BitSet bits, boolean fillFromEnd) {
+    return fillFromEnd ? bits.previousSetBit(lastIndexPlus1 - 1) : bits.nextSetBit(firstIndex);
+  }
+
+  private int nextSlot(BitSet bits, int slotIndex, boolean fillFromEnd) {
+    return fillFromEnd ? bits.previousSetBit(slotIndex - 1) : bits.nextSetBit(slotIndex + 1);
+  }
+
+  private final List<Slot> slots;
+  private final int firstIndex;
+  private final int lastIndexPlus1;
+
+  private boolean valid = false;
+  private final Map<Item, BitSet> partialSlotsByItem = new HashMap<>();
+  private final BitSet emptySlots = new BitSet();
+  private final Item [] indexedItems;  // the item that each slot is indexed under in partialSlotsByItem, or null
+}
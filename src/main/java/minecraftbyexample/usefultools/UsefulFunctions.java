@@ -1,8 +1,7 @@
 package minecraftbyexample.usefultools;
 
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.nbt.DoubleNBT;
-import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.LongArrayNBT;
 import net.minecraft.util.math.vector.Vector3d;
 
 /**
@@ -42,25 +41,20 @@ public class UsefulFunctions
 
 
   /***
-   * creates a NBT list from the Vec3d passed to this function
+   * creates a packed NBT tag from the Vec3d passed to this function (see PackedNBT)
    */
-  public static ListNBT serializeVec3d(Vector3d vec3d) {
-    ListNBT listnbt = new ListNBT();
-    listnbt.add(DoubleNBT.valueOf(vec3d.x));
-    listnbt.add(DoubleNBT.valueOf(vec3d.y));
-    listnbt.add(DoubleNBT.valueOf(vec3d.z));
-    return listnbt;
+  public static LongArrayNBT serializeVec3d(Vector3d vec3d) {
+    return PackedNBT.writeVec3d(vec3d);
   }
 
   /**
-   * Creates a Vec3d from the given NBT tag
+   * Creates a Vec3d from the given NBT tag; understands both the packed format and the older ListNBT of doubles
    * @param nbt the Compound that holds the given tag
    * @param tagname name of the tag that was used to save the Vec3d
-   * @return the new Vec3d
+   * @return the new Vec3d, or Vector3d.ZERO if the tag is missing or invalid
    */
   public static Vector3d deserializeVec3d(CompoundNBT nbt, String tagname) {
-    ListNBT listnbt = nbt.getList(tagname, NBTtypesMBE.DOUBLE_NBT_ID);
-    Vector3d retval = new Vector3d(listnbt.getDouble(0), listnbt.getDouble(1), listnbt.getDouble(2));
-    return retval;
+    Vector3d retval = PackedNBT.readVec3d(nbt.get(tagname));
+    return (retval != null) ? retval : Vector3d.ZERO;
   }
 }
@@ -1,49 +1,403 @@
 package minecraftbyexample.usefultools.debugging;
 
-import net.minecraft.server.MinecraftServer;
-import net.minecraftforge.fml.LogicalSide;
-import net.minecraftforge.fml.LogicalSidedProvider;
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Log data values with time stamp to a datalog file stored in the local data directory for minecraft on this machine
  * Created by TGG on 22/07/2015.
+ *
+ * Two kinds of datalog:
+ * 1) logData(name, text) appends the line "(ms since the first sample), text" to name.txt
+ * 2) logSamples(name, values...) is for high-rate numeric series (eg a value logged every tick).  The samples are written to
+ *    name.bin in a binary columnar format (see below), which is much smaller and faster to write than text.
+ *
+ * The calling thread never touches the disk: logData and logSamples just time-stamp the sample and add it to a bounded
+ *   queue.  A single writer thread takes the samples off the queue and writes them through a buffer to a FileChannel, flushing
+ *   about once per second.  If the writer can't keep up and the queue is full, the sample is dropped and counted (see
+ *   getDroppedSampleCount) rather than stalling the caller; the writer reports the number of dropped samples to the log.
+ *
+ * Rotation: when a datalog file exceeds the maximum size or age (see setRotation), or when it is opened for the first time,
+ *   the existing file is renamed to name.1.txt (name.1.txt to name.2.txt, etc) and a new file is started.  Only the most recent
+ *   maxRotatedFiles old files are kept.
+ *
+ * Binary format (little-endian):
+ *   file header: int MAGIC ('MBED'), short BINARY_VERSION, short number of columns
+ *   then blocks of up to BLOCK_ROWS samples, each:
+ *     int rowCount, long[rowCount] time stamps (ns since the first sample), then for each column: double[rowCount] values
+ *   Every sample in a datalog must have the same number of values; samples with a different number are dropped.
+ *
+ * Thread safe.
  */
 public class DataLogger {
   static public void logData(String datalogName, String valueToLog) {
+    enqueue(new Sample(datalogName, System.nanoTime() - timeZeroNS, valueToLog, null));
+  }
+
+  /**
+   * Log one sample of a numeric series to datalogName.bin
+   * @param values the values for each column; copied, so the caller can reuse the array
+   */
+  static public void logSamples(String datalogName, double... values) {
+    enqueue(new Sample(datalogName, System.nanoTime() - timeZeroNS, null, values.clone()));
+  }
+
+  /**
+   * Set the limits at which the datalog files are rotated; takes effect at the next write
+   * @param maxFileBytes start a new file once the current one is larger than this
+   * @param maxFileAgeMS start a new file once the current one is older than this
+   * @param maxRotatedFiles the number of old files to keep for each datalog; 0 = keep none
+   */
+  public static void setRotation(long maxFileBytes, long maxFileAgeMS, int maxRotatedFiles) {
+    DataLogger.maxFileBytes = Math.max(1, maxFileBytes);
+    DataLogger.maxFileAgeMS = Math.max(1, maxFileAgeMS);
+    DataLogger.maxRotatedFiles = Math.max(0, maxRotatedFiles);
+  }
+
+  /** The total number of samples which have been dropped because the queue was full or the file couldn't be written */
+  public static long getDroppedSampleCount() {
+    return droppedSamplesTotal.sum();
+  }
+
+  public static long getDroppedSampleCount(String datalogName) {
+    LongAdder dropped = droppedSamples.get(datalogName);
+    return (dropped == null) ? 0 : dropped.sum();
+  }
+
+  private static void enqueue(Sample sample) {
+    if (writerThread == null) startWriterThread();
+    if (!queue.offer(sample)) {
+      countDropped(sample.datalogName);
+    }
+  }
+
+  private static void countDropped(String datalogName) {
+    droppedSamplesTotal.increment();
+    droppedSamples.computeIfAbsent(datalogName, k -> new LongAdder()).increment();
+  }
+
+  private static synchronized void startWriterThread() {
+    if (writerThread != null) return;
+    Thread thread = new Thread(DataLogger::runWriter, "MBE DataLogger writer");
+    thread.setDaemon(true);
+    thread.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(DataLogger::stopWriterThread, "MBE DataLogger shutdown"));
+    writerThread = thread;
+  }
+
+  // write anything still in the queue before the JVM exits
+  private static void stopWriterThread() {
+    writerRunning = false;  // don't interrupt the writer; that would close the FileChannel in the middle of a write
     try {
-      PrintStream printStream = getOrCreate(datalogName);
+      writerThread.join(SHUTDOWN_TIMEOUT_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // --------- everything below here is only used by the writer thread
+
+  private static void runWriter() {
+    List<Sample> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    long nextFlushTimeMS = System.currentTimeMillis() + FLUSH_INTERVAL_MS;
+    while (writerRunning || !queue.isEmpty()) {
+      try {
+        long waitMS = Math.max(1, nextFlushTimeMS - System.currentTimeMillis());
+        Sample first = queue.poll(Math.min(waitMS, FLUSH_INTERVAL_MS), TimeUnit.MILLISECONDS);
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        }
+      } catch (InterruptedException e) {
+        // ignore; writerRunning decides when to stop
+      }
+      for (Sample sample : batch) {
+        write(sample);
+      }
+      batch.clear();
+
+      long nowMS = System.currentTimeMillis();
+      if (nowMS >= nextFlushTimeMS) {
+        flushAll(nowMS);
+        reportDroppedSamples();
+        nextFlushTimeMS = nowMS + FLUSH_INTERVAL_MS;
+      }
+    }
+    flushAll(System.currentTimeMillis());
+    for (OutputFile outputFile : outputFiles.values()) {
+      outputFile.close();
+    }
+  }
+
+  private static void write(Sample sample) {
+    if (sample.text != null) {
+      OutputFile outputFile = outputFiles.computeIfAbsent(sample.datalogName + TEXT_EXTENSION,
+              k -> new OutputFile(sample.datalogName, TEXT_EXTENSION, null));
+      long timeMS = sample.timeNS / NS_PER_MS;
+      byte [] line = (timeMS + ", " + sample.text + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+      if (!outputFile.append(ByteBuffer.wrap(line))) countDropped(sample.datalogName);
+    } else {
+      BinarySeries series = binarySeries.computeIfAbsent(sample.datalogName,
+              k -> new BinarySeries(sample.datalogName, sample.values.length));
+      if (!series.add(sample)) countDropped(sample.datalogName);
+    }
+  }
+
+  private static void flushAll(long nowMS) {
+    for (BinarySeries series : binarySeries.values()) {
+      series.writeBlock();
+    }
+    for (OutputFile outputFile : outputFiles.values()) {
+      outputFile.flush();
+      outputFile.rotateIfTooOld(nowMS);
+    }
+  }
 
-      final long ROUNDING_FACTOR = 1000L * 1000L; // to nearest ms
-      long timeNow = System.nanoTime() / ROUNDING_FACTOR;
-      if (timeZero == 0) timeZero = timeNow;
-      timeNow -= timeZero;
-      printStream.println(timeNow + ", " + valueToLog);
+  private static void reportDroppedSamples() {
+    long droppedTotal = droppedSamplesTotal.sum();
+    if (droppedTotal != lastReportedDroppedTotal) {
+      LOGGER.warn("DataLogger dropped {} samples (queue full or write failed); {} dropped in total",
+              droppedTotal - lastReportedDroppedTotal, droppedTotal);
+      lastReportedDroppedTotal = droppedTotal;
+    }
+  }
 
-    } catch (FileNotFoundException fnfe) {  // fail silently
-      return;
+  /**
+   * One datalog file, written through a buffer.  Starts a new file (rotating the old ones) when the current file gets too
+   *   big or too old.
+   * If the file can't be written, the error is logged once and all further writes to it fail.
+   */
+  private static class OutputFile {
+    /** @param header written at the start of every new file; may be null */
+    OutputFile(String datalogName, String extension, @Nullable byte [] header) {
+      this.datalogName = datalogName;
+      this.extension = extension;
+      this.header = (header == null) ? new byte[0] : header;
+      startNewFile(System.currentTimeMillis());
     }
+
+    /** @return false if the bytes couldn't be written */
+    boolean append(ByteBuffer bytes) {
+      if (channel == null) return false;
+      if (bytesInFile > header.length && bytesInFile + bytes.remaining() > maxFileBytes) {
+        flush();
+        startNewFile(System.currentTimeMillis());
+        if (channel == null) return false;
+      }
+      bytesInFile += bytes.remaining();
+      if (bytes.remaining() > buffer.remaining()) {
+        flush();
+        if (channel == null) return false;
+      }
+      if (bytes.remaining() > buffer.capacity()) {
+        writeFully(bytes);
+      } else {
+        buffer.put(bytes);
+      }
+      return channel != null;
+    }
+
+    void flush() {
+      if (channel == null || buffer.position() == 0) return;
+      buffer.flip();
+      writeFully(buffer);
+      buffer.clear();
+    }
+
+    void rotateIfTooOld(long nowMS) {
+      if (channel == null || nowMS - fileStartTimeMS < maxFileAgeMS || bytesInFile <= header.length) return;
+      startNewFile(nowMS);
+    }
+
+    void close() {
+      if (channel == null) return;
+      flush();
+      try {
+        channel.close();
+      } catch (IOException ioe) {
+        // nothing useful we can do
+      }
+      channel = null;
+    }
+
+    private void writeFully(ByteBuffer bytes) {
+      try {
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+      } catch (IOException ioe) {
+        fail(ioe);
+      }
+    }
+
+    private void startNewFile(long nowMS) {
+      close();
+      try {
+        Path directory = FMLPaths.GAMEDIR.get();
+        rotateOldFiles(directory);
+        channel = FileChannel.open(directory.resolve(datalogName + extension),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      } catch (IOException ioe) {
+        fail(ioe);
+        return;
+      }
+      fileStartTimeMS = nowMS;
+      bytesInFile = header.length;
+      buffer.put(header);
+    }
+
+    // name.txt --> name.1.txt --> name.2.txt etc, deleting the oldest
+    private void rotateOldFiles(Path directory) throws IOException {
+      int keep = maxRotatedFiles;
+      Path current = directory.resolve(datalogName + extension);
+      if (keep == 0 || !Files.exists(current)) return;
+      Files.deleteIfExists(rotatedFile(directory, keep));
+      for (int i = keep - 1; i >= 1; --i) {
+        Path older = rotatedFile(directory, i);
+        if (Files.exists(older)) Files.move(older, rotatedFile(directory, i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+      Files.move(current, rotatedFile(directory, 1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotatedFile(Path directory, int index) {
+      return directory.resolve(datalogName + "." + index + extension);
+    }
+
+    private void fail(IOException ioe) {
+      LOGGER.error("DataLogger couldn't write {}{}: {}", datalogName, extension, ioe.toString());
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException closeException) {
+          // already failed
+        }
+      }
+      channel = null;
+    }
+
+    private final String datalogName;
+    private final String extension;
+    private final byte [] header;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private @Nullable FileChannel channel;
+    private long bytesInFile;
+    private long fileStartTimeMS;
   }
 
-  static private PrintStream getOrCreate(String datalogName) throws FileNotFoundException {
-    if (!dataLogs.containsKey(datalogName)) {
-      MinecraftServer minecraftServer = LogicalSidedProvider.INSTANCE.get(LogicalSide.SERVER);
-      File dataDirectory = minecraftServer.getDataDirectory();
+  /**
+   * Collects the samples of a numeric series into columns, and writes them as a block once BLOCK_ROWS samples have been
+   *   collected (or when flushAll is called).
+   */
+  private static class BinarySeries {
+    BinarySeries(String datalogName, int numberOfColumns) {
+      this.numberOfColumns = numberOfColumns;
+      columns = new double[numberOfColumns][BLOCK_ROWS];
+      blockBuffer = ByteBuffer.allocate(4 + BLOCK_ROWS * 8 * (1 + numberOfColumns)).order(ByteOrder.LITTLE_ENDIAN);
+      ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC).putShort(BINARY_VERSION).putShort((short)numberOfColumns);
+      outputFile = new OutputFile(datalogName, BINARY_EXTENSION, header.array());
+      outputFiles.put(datalogName + BINARY_EXTENSION, outputFile);  // so that it is flushed, rotated and closed with the others
+    }
+
+    /** @return false if the sample has the wrong number of values, or the file can't be written */
+    boolean add(Sample sample) {
+      if (sample.values.length != numberOfColumns || outputFile.channel == null) return false;
+      timesNS[rows] = sample.timeNS;
+      for (int i = 0; i < numberOfColumns; ++i) {
+        columns[i][rows] = sample.values[i];
+      }
+      if (++rows == BLOCK_ROWS) writeBlock();
+      return true;
+    }
+
+    void writeBlock() {
+      if (rows == 0) return;
+      blockBuffer.clear();
+      blockBuffer.putInt(rows);
+      for (int row = 0; row < rows; ++row) {
+        blockBuffer.putLong(timesNS[row]);
+      }
+      for (double [] column : columns) {
+        for (int row = 0; row < rows; ++row) {
+          blockBuffer.putDouble(column[row]);
+        }
+      }
+      blockBuffer.flip();
+      outputFile.append(blockBuffer);
+      rows = 0;
+    }
+
+    private final int numberOfColumns;
+    private final long [] timesNS = new long[BLOCK_ROWS];
+    private final double [][] columns;
+    private int rows = 0;
+    private final ByteBuffer blockBuffer;
+    private final OutputFile outputFile;
+  }
 
-      File newDataLog = new File(dataDirectory, datalogName + ".txt");
-      final boolean AUTOFLUSH = true;
-      PrintStream stream = new PrintStream(new FileOutputStream(newDataLog), AUTOFLUSH);
-      dataLogs.put(datalogName, stream);
+  private static class Sample {
+    Sample(String datalogName, long timeNS, @Nullable String text, @Nullable double [] values) {
+      this.datalogName = datalogName;
+      this.timeNS = timeNS;
+      this.text = text;
+      this.values = values;
     }
-    return dataLogs.get(datalogName);
+
+    final String datalogName;
+    final long timeNS;
+    final @Nullable String text;      // for text datalogs
+    final @Nullable double [] values; // for binary datalogs
   }
 
-  private static HashMap<String, PrintStream> dataLogs = new HashMap<String, PrintStream>();
-  private static long timeZero = 0;
+  private static final Logger LOGGER = LogManager.getLogger();
+
+  private static final int QUEUE_CAPACITY = 1 << 16;
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final long FLUSH_INTERVAL_MS = 1000;
+  private static final long SHUTDOWN_TIMEOUT_MS = 2000;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int BLOCK_ROWS = 1024;
+  private static final long NS_PER_MS = 1000L * 1000L;
+
+  private static final String TEXT_EXTENSION = ".txt";
+  private static final String BINARY_EXTENSION = ".bin";
+  private static final int MAGIC = 0x4D424544;  // 'MBED'
+  private static final short BINARY_VERSION = 1;
+
+  private static volatile long maxFileBytes = 64L * 1024 * 1024;
+  private static volatile long maxFileAgeMS = 60L * 60 * 1000;
+  private static volatile int maxRotatedFiles = 4;
+
+  private static final long timeZeroNS = System.nanoTime();
+  private static final BlockingQueue<Sample> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private static final LongAdder droppedSamplesTotal = new LongAdder();
+  private static final Map<String, LongAdder> droppedSamples = new ConcurrentHashMap<>();
+  private static volatile @Nullable Thread writerThread = null;
+  private static volatile boolean writerRunning = true;
 
+  // only used by the writer thread
+  private static final Map<String, OutputFile> outputFiles = new HashMap<>();  // key is the file name, eg "mydata.txt"
+  private static final Map<String, BinarySeries> binarySeries = new HashMap<>();
+  private static long lastReportedDroppedTotal = 0;
 }
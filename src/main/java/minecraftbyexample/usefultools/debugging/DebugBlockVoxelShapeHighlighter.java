@@ -2,6 +2,7 @@ package minecraftbyexample.usefultools.debugging;
 
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.renderer.*;
 import net.minecraft.util.math.BlockPos;
@@ -17,26 +18,38 @@ import net.minecraftforge.fml.common.ObfuscationReflectionHelper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nullable;
 import java.awt.*;
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Created by TGG on 27/06/2019.
+ *
+ * Draws the outline of the VoxelShapes of the block the player is looking at (see usefultools/README.md).
+ * This is called every frame, so:
+ * 1) the private WorldRenderer.world field is resolved once, into a MethodHandle
+ * 2) the outline edges of each shape are cached, per BlockState and kind of shape.  The shape is still fetched from the
+ *    block every frame (usually a cached VoxelShape anyway), and the edges are only recalculated if it's a different
+ *    VoxelShape object from last time, so blocks whose shape depends on their position or neighbours are still drawn
+ *    correctly.
  */
 public class DebugBlockVoxelShapeHighlighter {
   @SubscribeEvent
   public static void onDrawBlockHighlightEvent(DrawHighlightEvent.HighlightBlock event) {
+    boolean showshape = DebugSettings.getDebugParameter("showshape").isPresent();
+    boolean showrendershapeshape = DebugSettings.getDebugParameter("showrendershape").isPresent();
+    boolean showcollisionshape = DebugSettings.getDebugParameter("showcollisionshape").isPresent();
+    boolean showraytraceshape = DebugSettings.getDebugParameter("showraytraceshape").isPresent();
+
+    if (!(showshape || showrendershapeshape || showcollisionshape || showraytraceshape)) return;
+
     RayTraceResult rayTraceResult = event.getTarget();
     if (rayTraceResult.getType() != RayTraceResult.Type.BLOCK) return;
-    World world;
-
-    try {
-      world = getPrivateWorldFromWorldRenderer(event.getContext());
-    } catch (IllegalAccessException | ObfuscationReflectionHelper.UnableToFindFieldException e) {
-      if (!loggedReflectionError) LOGGER.error("Could not find WorldRenderer.world");
-      loggedReflectionError = true;
-      return;
-    }
+    World world = getPrivateWorldFromWorldRenderer(event.getContext());
+    if (world == null) return;
 
     BlockPos blockpos = ((BlockRayTraceResult) rayTraceResult).getPos();
     BlockState blockstate = world.getBlockState(blockpos);
@@ -47,32 +60,29 @@ public class DebugBlockVoxelShapeHighlighter {
     final Color COLLISIONSHAPE_COLOR = Color.GREEN;
     final Color RAYTRACESHAPE_COLOR = Color.MAGENTA;
 
-    boolean showshape = DebugSettings.getDebugParameter("showshape").isPresent();
-    boolean showrendershapeshape = DebugSettings.getDebugParameter("showrendershape").isPresent();
-    boolean showcollisionshape = DebugSettings.getDebugParameter("showcollisionshape").isPresent();
-    boolean showraytraceshape = DebugSettings.getDebugParameter("showraytraceshape").isPresent();
-
-    if (!(showshape || showrendershapeshape || showcollisionshape || showraytraceshape)) return;
-
     ActiveRenderInfo activeRenderInfo = event.getInfo();
     ISelectionContext iSelectionContext = ISelectionContext.forEntity(activeRenderInfo.getRenderViewEntity());
     IRenderTypeBuffer renderTypeBuffers = event.getBuffers();
     MatrixStack matrixStack = event.getMatrix();
     if (showshape) {
       VoxelShape shape = blockstate.getShape(world, blockpos, iSelectionContext);
-      drawSelectionBox(event.getContext(), renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, shape, SHAPE_COLOR);
+      double [] edges = getOutlineEdges(ShapeType.SHAPE, blockstate, shape);
+      drawSelectionBox(renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, edges, SHAPE_COLOR);
     }
     if (showrendershapeshape) {
       VoxelShape shape = blockstate.getRenderShape(world, blockpos);
-      drawSelectionBox(event.getContext(), renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, shape, RENDERSHAPE_COLOR);
+      double [] edges = getOutlineEdges(ShapeType.RENDER_SHAPE, blockstate, shape);
+      drawSelectionBox(renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, edges, RENDERSHAPE_COLOR);
     }
     if (showcollisionshape) {
       VoxelShape shape = blockstate.getCollisionShape(world, blockpos, iSelectionContext);
-      drawSelectionBox(event.getContext(), renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, shape, COLLISIONSHAPE_COLOR);
+      double [] edges = getOutlineEdges(ShapeType.COLLISION_SHAPE, blockstate, shape);
+      drawSelectionBox(renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, edges, COLLISIONSHAPE_COLOR);
     }
     if (showraytraceshape) {
       VoxelShape shape = blockstate.getRaytraceShape(world, blockpos, iSelectionContext);
-      drawSelectionBox(event.getContext(), renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, shape, RAYTRACESHAPE_COLOR);
+      double [] edges = getOutlineEdges(ShapeType.RAYTRACE_SHAPE, blockstate, shape);
+      drawSelectionBox(renderTypeBuffers, matrixStack, blockpos, activeRenderInfo, edges, RAYTRACESHAPE_COLOR);
     }
     event.setCanceled(true);
   }
@@ -80,24 +90,83 @@ public class DebugBlockVoxelShapeHighlighter {
   // The world field is private so we need a trick to get access to it
   // we need to use the srg name for it to work robustly:
   // see here:   https://mcp.thiakil.com/#/search
-  //   and here: https://jamieswhiteshirt.github.io/resources/know-your-tools/  
-  private static World getPrivateWorldFromWorldRenderer(WorldRenderer worldRenderer) throws IllegalAccessException, ObfuscationReflectionHelper.UnableToFindFieldException {
-    if (worldField == null) {
-      worldField = ObfuscationReflectionHelper.findField(WorldRenderer.class, "field_72769_h");
+  //   and here: https://jamieswhiteshirt.github.io/resources/know-your-tools/
+  // The field is looked up once, when this class is loaded, and turned into a MethodHandle which is much faster than
+  //   Field.get() once the JIT has compiled it.
+  @Nullable
+  private static World getPrivateWorldFromWorldRenderer(WorldRenderer worldRenderer) {
+    if (WORLD_GETTER == null) return null;
+    try {
+      return (World)WORLD_GETTER.invokeExact(worldRenderer);
+    } catch (Throwable throwable) {
+      if (!loggedReflectionError) LOGGER.error("Could not read WorldRenderer.world", throwable);
+      loggedReflectionError = true;
+      return null;
+    }
+  }
+
+  @Nullable
+  private static MethodHandle findWorldGetter() {
+    try {
+      MethodHandle getter = MethodHandles.lookup().unreflectGetter(
+              ObfuscationReflectionHelper.findField(WorldRenderer.class, "field_72769_h"));
+      return getter.asType(getter.type().changeReturnType(World.class));  // the field is a ClientWorld
+    } catch (IllegalAccessException | ObfuscationReflectionHelper.UnableToFindFieldException e) {
+      LOGGER.error("Could not find WorldRenderer.world");
+      return null;
     }
-    return (World)worldField.get(worldRenderer);
   }
 
-  private static Field worldField;
+  private static final MethodHandle WORLD_GETTER = findWorldGetter();
   private static boolean loggedReflectionError = false;
 
+  private enum ShapeType {SHAPE, RENDER_SHAPE, COLLISION_SHAPE, RAYTRACE_SHAPE}
+
+  /**
+   * Get the edges of the shape, from the cache if possible
+   * @return x0, y0, z0, x1, y1, z1 for each edge, relative to the block origin
+   */
+  private static double [] getOutlineEdges(ShapeType shapeType, BlockState blockState, VoxelShape shape) {
+    Map<BlockState, CachedOutline> cache = outlineCaches[shapeType.ordinal()];
+    CachedOutline cachedOutline = cache.get(blockState);
+    if (cachedOutline == null || cachedOutline.shape != shape) {
+      cachedOutline = new CachedOutline(shape);
+      cache.put(blockState, cachedOutline);
+    }
+    return cachedOutline.edges;
+  }
+
+  private static class CachedOutline {
+    CachedOutline(VoxelShape shape) {
+      this.shape = shape;
+      DoubleArrayList edgeList = new DoubleArrayList();
+      shape.forEachEdge((x0, y0, z0, x1, y1, z1) -> {
+        edgeList.add(x0); edgeList.add(y0); edgeList.add(z0);
+        edgeList.add(x1); edgeList.add(y1); edgeList.add(z1);
+      });
+      this.edges = edgeList.toDoubleArray();
+    }
+
+    final VoxelShape shape;
+    final double [] edges;
+  }
+
+  // only used on the client render thread.  BlockStates are never created after startup, so the caches can't grow forever
+  @SuppressWarnings("unchecked")
+  private static final Map<BlockState, CachedOutline> [] outlineCaches = new Map[ShapeType.values().length];
+  static {
+    for (int i = 0; i < outlineCaches.length; ++i) {
+      outlineCaches[i] = new IdentityHashMap<>();
+    }
+  }
+
   /**
    * copied from WorldRenderer; starting from the code marked with iprofiler.endStartSection("outline");
    *
    * @param activeRenderInfo
    */
-  private static void drawSelectionBox(WorldRenderer worldRenderer, IRenderTypeBuffer renderTypeBuffers, MatrixStack matrixStack,
-                                      BlockPos blockPos, ActiveRenderInfo activeRenderInfo, VoxelShape shape, Color color) {
+  private static void drawSelectionBox(IRenderTypeBuffer renderTypeBuffers, MatrixStack matrixStack,
+                                      BlockPos blockPos, ActiveRenderInfo activeRenderInfo, double [] edges, Color color) {
     RenderType renderType = RenderType.getLines();
     IVertexBuilder vertexBuilder = renderTypeBuffers.getBuffer(renderType);
 
@@ -105,7 +174,7 @@ public class DebugBlockVoxelShapeHighlighter {
     double eyeY = activeRenderInfo.getProjectedView().getY();
     double eyeZ = activeRenderInfo.getProjectedView().getZ();
     final float ALPHA = 0.5f;
-    drawShapeOutline(matrixStack, vertexBuilder, shape,
+    drawShapeOutline(matrixStack, vertexBuilder, edges,
             blockPos.getX() - eyeX, blockPos.getY() - eyeY, blockPos.getZ() - eyeZ,
             color.getRed() / 255f, color.getGreen() / 255f, color.getBlue() / 255f, ALPHA);
 
@@ -113,15 +182,15 @@ public class DebugBlockVoxelShapeHighlighter {
 
   private static void drawShapeOutline(MatrixStack matrixStack,
                                        IVertexBuilder vertexBuilder,
-                                       VoxelShape voxelShape,
+                                       double [] edges,
                                        double originX, double originY, double originZ,
                                        float red, float green, float blue, float alpha) {
 
     Matrix4f matrix4f = matrixStack.getLast().getMatrix();
-    voxelShape.forEachEdge((x0, y0, z0, x1, y1, z1) -> {
-      vertexBuilder.pos(matrix4f, (float)(x0 + originX), (float)(y0 + originY), (float)(z0 + originZ)).color(red, green, blue, alpha).endVertex();
-      vertexBuilder.pos(matrix4f, (float)(x1 + originX), (float)(y1 + originY), (float)(z1 + originZ)).color(red, green, blue, alpha).endVertex();
-    });
+    for (int i = 0; i < edges.length; i += 6) {
+      vertexBuilder.pos(matrix4f, (float)(edges[i] + originX), (float)(edges[i + 1] + originY), (float)(edges[i + 2] + originZ)).color(red, green, blue, alpha).endVertex();
+      vertexBuilder.pos(matrix4f, (float)(edges[i + 3] + originX), (float)(edges[i + 4] + originY), (float)(edges[i + 5] + originZ)).color(red, green, blue, alpha).endVertex();
+    }
   }
   private static final Logger LOGGER = LogManager.getLogger();
 }
@@ -0,0 +1,91 @@
+package minecraftbyexample.usefultools.debugging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cheap, thread-safe histogram of durations (in nanoseconds).
+ * The durations are sorted into power-of-two buckets (bucket n holds durations from 2^(n-1) up to 2^n - 1 ns), so recording
+ *   a value is just a couple of atomic increments and no objects are created.
+ * The percentiles are approximate: they return the upper limit of the bucket that the percentile falls into.
+ *
+ * Typical usage:
+ *   long startTime = System.nanoTime();
+ *   doSomething();
+ *   histogram.record(System.nanoTime() - startTime);
+ *   ...
+ *   String summary = histogram.toString();  // eg count=2003 mean=5.2us p50<=4.1us p99<=65.5us max<=262.1us
+ */
+public class LatencyHistogram {
+
+  public void record(long durationNS) {
+    if (durationNS < 0) durationNS = 0;
+    int bucket = NUMBER_OF_BUCKETS - Long.numberOfLeadingZeros(durationNS);  // 0 for 0, 1 for 1, 2 for 2-3, 3 for 4-7, etc
+    buckets.incrementAndGet(bucket);
+    count.incrementAndGet();
+    totalNS.addAndGet(durationNS);
+  }
+
+  public long getCount() {return count.get();}
+  public long getTotalNS() {return totalNS.get();}
+
+  public double getMeanNS() {
+    long n = count.get();
+    return (n == 0) ? 0 : totalNS.get() / (double)n;
+  }
+
+  /**
+   * @param percentile 0 - 100
+   * @return the approximate duration (upper limit of the bucket) below which the given percentage of the durations lie
+   */
+  public long getPercentileNS(double percentile) {
+    long n = count.get();
+    if (n == 0) return 0;
+    long threshold = (long)Math.ceil(n * percentile / 100.0);
+    long cumulative = 0;
+    for (int i = 0; i < NUMBER_OF_BUCKETS + 1; ++i) {
+      cumulative += buckets.get(i);
+      if (cumulative >= threshold) return getBucketUpperLimitNS(i);
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /** the upper limit of the highest bucket which has any entries */
+  public long getMaxNS() {
+    for (int i = NUMBER_OF_BUCKETS; i >= 0; --i) {
+      if (buckets.get(i) != 0) return getBucketUpperLimitNS(i);
+    }
+    return 0;
+  }
+
+  public void reset() {
+    for (int i = 0; i < NUMBER_OF_BUCKETS + 1; ++i) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    totalNS.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d mean=%s p50<=%s p99<=%s max<=%s",
+            getCount(), formatNS(getMeanNS()), formatNS(getPercentileNS(50)), formatNS(getPercentileNS(99)), formatNS(getMaxNS()));
+  }
+
+  public static String formatNS(double nanoseconds) {
+    if (nanoseconds < 1000) return String.format("%.0fns", nanoseconds);
+    if (nanoseconds < 1000 * 1000) return String.format("%.1fus", nanoseconds / 1000.0);
+    return String.format("%.1fms", nanoseconds / (1000.0 * 1000.0));
+  }
+
+  private static long getBucketUpperLimitNS(int bucket) {
+    if (bucket == 0) return 0;
+    if (bucket >= NUMBER_OF_BUCKETS) return Long.MAX_VALUE;
+    return (1L << bucket) - 1;
+  }
+
+  private static final int NUMBER_OF_BUCKETS = 64;
+  private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS + 1);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNS = new AtomicLong();
+}
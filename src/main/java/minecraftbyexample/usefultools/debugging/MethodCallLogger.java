@@ -4,8 +4,14 @@ import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.common.thread.EffectiveSide;
 
 import java.io.PrintStream;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * MethodCallLogger is used to produce a log of method calls, useful for debugging where a breakpoint would
@@ -21,6 +27,19 @@ import java.util.concurrent.ConcurrentHashMap;
  *  If you use mismatched enterMethod and exitMethod, the logger will detect it and turn off logging for that methodName.
  *  The class is not explicitly designed to handle stop/start of logging while running the methods.  It may work, but may
  *    also produce strange output.
+ *  The indent level and re-entry flags are kept separately for each thread, so methods called from several threads (eg the
+ *    network threads) don't corrupt each other's output.
+ *
+ *  Asynchronous output (setAsynchronousOutput(true)):
+ *    Formatting and printing the log on the calling thread is slow enough to change the timing of the code being traced.
+ *    In asynchronous mode, enterMethod() and exitMethod() only copy a small record (method ID, timestamp, indent level, and
+ *    a reference to the parameters) into a preallocated lock-free ring buffer for that side.  A background thread formats
+ *    the records and writes them to the PrintStream, with a timestamp.  If the ring buffer fills up, new records are dropped
+ *    and counted; the background thread prints the number dropped.
+ *    For the lowest overhead, look up the method ID once with getMethodID() and use the enterMethod(int, Object) versions,
+ *    and pass the parameters as an Object which is only converted to a String (String.valueOf) by the background thread -
+ *    so don't pass objects which will change before they are printed.
+ *    Call setAsynchronousOutput(false) to write out the remaining records and stop the background thread.
  * User: The Grey Ghost
  * Date: 6/01/2015
  */
@@ -32,9 +51,33 @@ public class MethodCallLogger
   }
 
   public MethodCallLogger(PrintStream stream)
+  {
+    this(stream, DEFAULT_RING_BUFFER_CAPACITY);
+  }
+
+  /**
+   * @param ringBufferCapacity the number of records which can be waiting to be written, for each side (asynchronous mode only)
+   */
+  public MethodCallLogger(PrintStream stream, int ringBufferCapacity)
   {
     printStream = stream;
+    clientRecords = new RecordRing(ringBufferCapacity);
+    serverRecords = new RecordRing(ringBufferCapacity);
   }
+
+  /**
+   * Get the ID for the given method name, for use with enterMethod(int, Object) and exitMethod(int, Object)
+   */
+  public int getMethodID(String methodName)
+  {
+    return methodIDs.computeIfAbsent(methodName, name -> {
+      synchronized (methods) {
+        methods.add(new MethodInfo(name, shouldLogMap.getOrDefault(name, true)));
+        return methods.size() - 1;
+      }
+    });
+  }
+
   /**
    * Log the entry into this method
    * @param methodName the name of the method eg myMethodToBeLogged
@@ -42,23 +85,42 @@ public class MethodCallLogger
    */
   public void enterMethod(String methodName, String parameters)
   {
-    if (!shouldLog(methodName)) return;
-    LogicalSide side = (forcedSideForTesting != null) ? forcedSideForTesting : EffectiveSide.get();
-    HashMap<String, Boolean> reentryFlagsSide = (side == LogicalSide.CLIENT) ? reentryFlagsClient : reentryFlagsServer;
-    final int indentLevel = (side == LogicalSide.CLIENT) ? indentLevelClient : indentLevelServer;
-    if (reentryFlagsSide.containsKey(methodName) && reentryFlagsSide.get(methodName) ) {  // reentry: disable logging for this method
-      String errorMessage = "!! Re-entry into " + methodName + "(" + parameters + ")";
-      addIndentedOutputLine(side, indentLevel, errorMessage, false);
-      errorMessage = "!!Further logging of " + methodName + " disabled!!";
-      if (side == LogicalSide.CLIENT) --indentLevelClient; else --indentLevelServer;
-      addIndentedOutputLine(side, indentLevel, errorMessage, indentLevel == 0 || immediateOutput);
-      setShouldLog(methodName, false);
+    enterMethod(getMethodID(methodName), parameters);
+  }
+
+  /**
+   * Log the entry into this method
+   * @param methodID the ID of the method (see getMethodID)
+   * @param parameters the parameters; converted to a String using String.valueOf()
+   */
+  public void enterMethod(int methodID, Object parameters)
+  {
+    LogicalSide side = getSide();
+    MethodInfo method = methods.get(methodID);
+    if (!shouldLog(side, method)) return;
+    SideState state = getSideState(side);
+    final int indentLevel = state.indentLevel;
+    if (state.enteredMethods.get(methodID)) {  // reentry: disable logging for this method
+      --state.indentLevel;
+      if (asynchronousOutput) {
+        postRecord(side, RECORD_REENTRY, methodID, indentLevel, parameters);
+      } else {
+        String errorMessage = "!! Re-entry into " + method.name + "(" + parameters + ")";
+        addIndentedOutputLine(side, indentLevel, errorMessage, false);
+        errorMessage = "!!Further logging of " + method.name + " disabled!!";
+        addIndentedOutputLine(side, indentLevel, errorMessage, indentLevel == 0 || immediateOutput);
+      }
+      setShouldLog(method.name, false);
       return;
     }
 
-    reentryFlagsSide.put(methodName, true);
-    addIndentedOutputLine(side, indentLevel, methodName + "(" + parameters + ") {", immediateOutput);
-    if (side == LogicalSide.CLIENT) ++indentLevelClient; else ++indentLevelServer;
+    state.enteredMethods.set(methodID);
+    if (asynchronousOutput) {
+      postRecord(side, RECORD_ENTER, methodID, indentLevel, parameters);
+    } else {
+      addIndentedOutputLine(side, indentLevel, method.name + "(" + parameters + ") {", immediateOutput);
+    }
+    ++state.indentLevel;
   }
 
   /**
@@ -68,24 +130,34 @@ public class MethodCallLogger
    */
   public void exitMethod(String methodName, String returnValue)
   {
-    if (!shouldLog(methodName)) return;
-    LogicalSide side = (forcedSideForTesting != null) ? forcedSideForTesting : EffectiveSide.get();
-    HashMap<String, Boolean> reentryFlagsSide = (side == LogicalSide.CLIENT) ? reentryFlagsClient : reentryFlagsServer;
-    final int indentLevel = (side == LogicalSide.CLIENT) ? indentLevelClient : indentLevelServer;
+    exitMethod(getMethodID(methodName), returnValue);
+  }
+
+  /**
+   * Log the exit from this method
+   * @param methodID the ID of the method (see getMethodID)
+   * @param returnValue the return value; converted to a String using String.valueOf()
+   */
+  public void exitMethod(int methodID, Object returnValue)
+  {
+    LogicalSide side = getSide();
+    MethodInfo method = methods.get(methodID);
+    if (!shouldLog(side, method)) return;
+    SideState state = getSideState(side);
+    final int indentLevel = state.indentLevel;
 
-    if (!reentryFlagsSide.containsKey(methodName) || !reentryFlagsSide.get(methodName) ) {  // never entered: ignore call
+    if (!state.enteredMethods.get(methodID)) {  // never entered: ignore call
       return;
     }
 
-    reentryFlagsSide.put(methodName, false);
-    if (side == LogicalSide.CLIENT) {
-      --indentLevelClient;
-      if (indentLevelClient < 0) indentLevelClient = 0;  // should never happen.
+    state.enteredMethods.clear(methodID);
+    --state.indentLevel;
+    if (state.indentLevel < 0) state.indentLevel = 0;  // should never happen.
+    if (asynchronousOutput) {
+      postRecord(side, RECORD_EXIT, methodID, indentLevel - 1, returnValue);
     } else {
-      --indentLevelServer;
-      if (indentLevelServer < 0) indentLevelServer = 0;  // should never happen.
+      addIndentedOutputLine(side, indentLevel - 1, "} " + method.name + " return=" + returnValue, indentLevel <= 1 || immediateOutput);
     }
-    addIndentedOutputLine(side, indentLevel-1, "} " + methodName + " return=" + returnValue, indentLevel <= 1 || immediateOutput);
   }
 
   /**
@@ -96,6 +168,7 @@ public class MethodCallLogger
   public void setShouldLog(String methodName, boolean shouldLog)
   {
     shouldLogMap.put(methodName, shouldLog);
+    methods.get(getMethodID(methodName)).shouldLog = shouldLog;
   }
 
   /**
@@ -122,20 +195,54 @@ public class MethodCallLogger
     immediateOutput = outputIsImmediate;
   }
 
+  /**
+   * Start or stop the asynchronous output (see the class description).  When stopping, the records which are still waiting
+   *   are written out before this method returns.
+   */
+  public synchronized void setAsynchronousOutput(boolean newAsynchronousOutput)
+  {
+    if (newAsynchronousOutput == asynchronousOutput) return;
+    if (newAsynchronousOutput) {
+      writerThreadShouldRun = true;
+      writerThread = new Thread(this::runWriterThread, "MethodCallLogger writer");
+      writerThread.setDaemon(true);
+      asynchronousOutput = true;
+      writerThread.start();
+    } else {
+      asynchronousOutput = false;
+      writerThreadShouldRun = false;
+      LockSupport.unpark(writerThread);
+      try {
+        writerThread.join(WRITER_THREAD_STOP_TIMEOUT_MS);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+      writerThread = null;
+    }
+  }
+
+  /** The number of records dropped so far because the ring buffer for that side was full (asynchronous mode) */
+  public long getDroppedRecordCount(LogicalSide side)
+  {
+    return (side == LogicalSide.CLIENT) ? clientRecords.dropped.get() : serverRecords.dropped.get();
+  }
+
   /**
    * Is logging enabled for this method?
    * @param methodName the name of the method.
    * @return true if should log, false if not.  defaults to true.
    */
   public boolean shouldLog(String methodName) {
-    LogicalSide side = (forcedSideForTesting != null) ? forcedSideForTesting : EffectiveSide.get();
+    return shouldLog(getSide(), methods.get(getMethodID(methodName)));
+  }
+
+  private boolean shouldLog(LogicalSide side, MethodInfo method) {
     if (side == LogicalSide.SERVER) {
       if (!shouldLogServer) return false;
     } else if (side == LogicalSide.CLIENT) {
       if (!shouldLogClient) return false;
     }
-    if (!shouldLogMap.containsKey(methodName)) return true;  // default to true if user hasn't explicitly enabled logging
-    return shouldLogMap.get(methodName);
+    return method.shouldLog;
   }
 
   /**
@@ -145,7 +252,11 @@ public class MethodCallLogger
    */
   public void addOutputLine(LogicalSide side, String outputToAdd, boolean flushImmediately)
   {
-    StringBuilder outputBuffer = (side == LogicalSide.CLIENT) ? outputBufferClient : outputBufferServer;
+    if (asynchronousOutput) {
+      postRecord(side, RECORD_TEXT, NO_METHOD, 0, outputToAdd);
+      return;
+    }
+    StringBuilder outputBuffer = getSideState(side).outputBuffer;
     outputBuffer.append(outputToAdd);
     outputBuffer.append(CRLF);
     if (flushImmediately) {
@@ -163,34 +274,241 @@ public class MethodCallLogger
    */
   private void addIndentedOutputLine(LogicalSide side, int indentLevel, String outputToAdd, boolean flushImmediately)
   {
-    StringBuilder outputBuffer = (side == LogicalSide.CLIENT) ? outputBufferClient : outputBufferServer;
+    StringBuilder outputBuffer = getSideState(side).outputBuffer;
+    appendIndent(outputBuffer, side, indentLevel);
+    addOutputLine(side, outputToAdd, flushImmediately);
+  }
+
+  private static void appendIndent(StringBuilder outputBuffer, LogicalSide side, int indentLevel)
+  {
     String sideSymbol = (side == LogicalSide.CLIENT) ? "C: " : "S: ";
     outputBuffer.append((sideSymbol));
     int endIndex = indentLevel * SPACES_PER_INDENT;
     if (endIndex < 0) endIndex = 0;
     if (endIndex > INDENT_STRING.length()) endIndex = INDENT_STRING.length();
-    outputBuffer.append(INDENT_STRING.substring(0, endIndex));
-    addOutputLine(side, outputToAdd, flushImmediately);
+    outputBuffer.append(INDENT_STRING, 0, endIndex);
+  }
+
+  private LogicalSide getSide()
+  {
+    return (forcedSideForTesting != null) ? forcedSideForTesting : EffectiveSide.get();
+  }
+
+  private SideState getSideState(LogicalSide side)
+  {
+    SideState [] states = threadStates.get();
+    return (side == LogicalSide.CLIENT) ? states[0] : states[1];
+  }
+
+  private void postRecord(LogicalSide side, int recordType, int methodID, int indentLevel, Object argument)
+  {
+    RecordRing records = (side == LogicalSide.CLIENT) ? clientRecords : serverRecords;
+    records.offer(recordType, methodID, indentLevel, System.nanoTime() - startTimeNS, argument);
+  }
+
+  // -------- background writer thread (asynchronous mode) --------
+
+  private void runWriterThread()
+  {
+    StringBuilder outputBuffer = new StringBuilder(INITIAL_STRING_CAPACITY);
+    Record record = new Record();
+    long reportedDroppedClient = 0;
+    long reportedDroppedServer = 0;
+    while (true) {
+      boolean shouldRun = writerThreadShouldRun;  // read before draining, so that nothing posted before the stop is missed
+      int count = drainRecords(clientRecords, LogicalSide.CLIENT, record, outputBuffer)
+                + drainRecords(serverRecords, LogicalSide.SERVER, record, outputBuffer);
+      long droppedClient = clientRecords.dropped.get();
+      long droppedServer = serverRecords.dropped.get();
+      if (droppedClient != reportedDroppedClient || droppedServer != reportedDroppedServer) {
+        outputBuffer.append("!! MethodCallLogger ring buffer full: dropped ")
+                    .append(droppedClient - reportedDroppedClient).append(" client and ")
+                    .append(droppedServer - reportedDroppedServer).append(" server records").append(CRLF);
+        reportedDroppedClient = droppedClient;
+        reportedDroppedServer = droppedServer;
+      }
+      if (outputBuffer.length() > 0) {
+        printStream.print(outputBuffer);
+        printStream.flush();
+        outputBuffer.setLength(0);
+      }
+      if (!shouldRun) return;
+      if (count == 0) LockSupport.parkNanos(WRITER_IDLE_PARK_NS);
+    }
   }
 
-  private ConcurrentHashMap<String, Boolean> shouldLogMap = new ConcurrentHashMap<String, Boolean>();
-  private boolean immediateOutput = false;
-  private boolean shouldLogClient = true;
-  private boolean shouldLogServer = true;
-  private HashMap<String, Boolean> reentryFlagsClient = new HashMap<String, Boolean>();
-  private HashMap<String, Boolean> reentryFlagsServer = new HashMap<String, Boolean>();
-  private int indentLevelClient = 0;
-  private int indentLevelServer = 0;
+  private int drainRecords(RecordRing records, LogicalSide side, Record record, StringBuilder outputBuffer)
+  {
+    int count = 0;
+    while (records.poll(record)) {
+      ++count;
+      if (record.type == RECORD_TEXT) {
+        outputBuffer.append(record.argument).append(CRLF);
+        continue;
+      }
+      String methodName = methods.get(record.methodID).name;
+      String timeStamp = String.format("%10.3fms ", record.timeNS / (double)TimeUnit.MILLISECONDS.toNanos(1));
+      appendIndent(outputBuffer, side, 0);
+      outputBuffer.append(timeStamp);
+      int indentEnd = Math.max(0, Math.min(record.indentLevel * SPACES_PER_INDENT, INDENT_STRING.length()));
+      outputBuffer.append(INDENT_STRING, 0, indentEnd);
+      switch (record.type) {
+        case RECORD_ENTER: {
+          outputBuffer.append(methodName).append('(').append(record.argument).append(") {").append(CRLF);
+          break;
+        }
+        case RECORD_EXIT: {
+          outputBuffer.append("} ").append(methodName).append(" return=").append(record.argument).append(CRLF);
+          break;
+        }
+        case RECORD_REENTRY: {
+          outputBuffer.append("!! Re-entry into ").append(methodName).append('(').append(record.argument).append(')').append(CRLF);
+          appendIndent(outputBuffer, side, 0);
+          outputBuffer.append(timeStamp).append(INDENT_STRING, 0, indentEnd);
+          outputBuffer.append("!!Further logging of ").append(methodName).append(" disabled!!").append(CRLF);
+          break;
+        }
+        default: break;
+      }
+    }
+    return count;
+  }
+
+  private static class MethodInfo
+  {
+    MethodInfo(String name, boolean shouldLog) {
+      this.name = name;
+      this.shouldLog = shouldLog;
+    }
+    final String name;
+    volatile boolean shouldLog;
+  }
 
-  private PrintStream printStream;
+  // the state for one side on one thread; only ever used by that thread
+  private static class SideState
+  {
+    final BitSet enteredMethods = new BitSet();  // the re-entry flags, indexed by method ID
+    int indentLevel = 0;
+    final StringBuilder outputBuffer = new StringBuilder(INITIAL_STRING_CAPACITY);
+  }
+
+  // used by the writer thread to receive each record from the ring buffer
+  private static class Record
+  {
+    int type;
+    int methodID;
+    int indentLevel;
+    long timeNS;
+    Object argument;
+  }
+
+  /**
+   * A bounded lock-free ring buffer of records, for any number of threads adding records and one thread (the writer) taking
+   *   them out.  The records are stored in preallocated parallel arrays; each slot has a sequence number which says whether
+   *   it is ready to be written (sequence == position) or ready to be read (sequence == position + 1).
+   * If the buffer is full, offer() doesn't wait; it drops the record and counts it.
+   */
+  private static class RecordRing
+  {
+    RecordRing(int requestedCapacity) {
+      int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) * 2 - 1);  // round up to a power of two
+      mask = capacity - 1;
+      sequences = new AtomicLongArray(capacity);
+      for (int i = 0; i < capacity; ++i) {
+        sequences.set(i, i);
+      }
+      types = new int[capacity];
+      methodIDs = new int[capacity];
+      indentLevels = new int[capacity];
+      timesNS = new long[capacity];
+      arguments = new Object[capacity];
+    }
+
+    boolean offer(int type, int methodID, int indentLevel, long timeNS, Object argument) {
+      long position = head.get();
+      while (true) {
+        int index = (int)(position & mask);
+        long difference = sequences.get(index) - position;
+        if (difference == 0) {
+          if (head.compareAndSet(position, position + 1)) {
+            types[index] = type;
+            methodIDs[index] = methodID;
+            indentLevels[index] = indentLevel;
+            timesNS[index] = timeNS;
+            arguments[index] = argument;
+            sequences.lazySet(index, position + 1);  // publish the record to the writer thread
+            return true;
+          }
+          position = head.get();
+        } else if (difference < 0) {  // the writer hasn't taken the record from this slot yet, i.e. the buffer is full
+          dropped.incrementAndGet();
+          return false;
+        } else {  // another thread has claimed this slot already
+          position = head.get();
+        }
+      }
+    }
+
+    // only ever called by the writer thread
+    boolean poll(Record record) {
+      int index = (int)(tail & mask);
+      if (sequences.get(index) != tail + 1) return false;
+      record.type = types[index];
+      record.methodID = methodIDs[index];
+      record.indentLevel = indentLevels[index];
+      record.timeNS = timesNS[index];
+      record.argument = arguments[index];
+      arguments[index] = null;
+      sequences.lazySet(index, tail + mask + 1);  // free the slot for the next lap around the ring
+      ++tail;
+      return true;
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final int [] types;
+    private final int [] methodIDs;
+    private final int [] indentLevels;
+    private final long [] timesNS;
+    private final Object [] arguments;
+    private final AtomicLong head = new AtomicLong();
+    private long tail = 0;
+    final AtomicLong dropped = new AtomicLong();
+  }
+
+  private final Map<String, Boolean> shouldLogMap = new ConcurrentHashMap<String, Boolean>();
+  private final Map<String, Integer> methodIDs = new ConcurrentHashMap<String, Integer>();
+  private final CopyOnWriteArrayList<MethodInfo> methods = new CopyOnWriteArrayList<MethodInfo>();
+  private volatile boolean immediateOutput = false;
+  private volatile boolean shouldLogClient = true;
+  private volatile boolean shouldLogServer = true;
+  private final ThreadLocal<SideState []> threadStates =
+          ThreadLocal.withInitial(() -> new SideState[] {new SideState(), new SideState()});  // [0] = client, [1] = server
+
+  private volatile boolean asynchronousOutput = false;
+  private volatile boolean writerThreadShouldRun = false;
+  private Thread writerThread = null;
+  private final RecordRing clientRecords;
+  private final RecordRing serverRecords;
+  private final long startTimeNS = System.nanoTime();
+
+  private static final int RECORD_ENTER = 0;
+  private static final int RECORD_EXIT = 1;
+  private static final int RECORD_REENTRY = 2;
+  private static final int RECORD_TEXT = 3;
+  private static final int NO_METHOD = -1;
+  private static final int DEFAULT_RING_BUFFER_CAPACITY = 1 << 16;
+  private static final long WRITER_IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long WRITER_THREAD_STOP_TIMEOUT_MS = 5000;
+
+  private final PrintStream printStream;
   private static final int INITIAL_STRING_CAPACITY = 1000;
-  private StringBuilder outputBufferClient = new StringBuilder(INITIAL_STRING_CAPACITY);
-  private StringBuilder outputBufferServer = new StringBuilder(INITIAL_STRING_CAPACITY);
   private static final String CRLF = System.getProperty("line.separator");
   private static final String INDENT_STRING = "                                                            ";  // maximum indent 60 spaces
   private static final int SPACES_PER_INDENT = 2;
   private LogicalSide forcedSideForTesting = null;
 
+
   /**
    * For testing purposes
    */
@@ -319,6 +637,25 @@ public class MethodCallLogger
     logger.forcedSideForTesting = LogicalSide.CLIENT;
     logger.exitMethod(NAME1, "retval1");
 
+    logger = new MethodCallLogger(System.out, 4);
+    System.out.println("Test7");      // asynchronous output: as per test4, with timestamps, then a report of dropped records
+    logger.forcedSideForTesting = LogicalSide.CLIENT;
+    logger.setAsynchronousOutput(true);
+    final int ID1 = logger.getMethodID(NAME1);
+    final int ID2 = logger.getMethodID(NAME2);
+    final int ID3 = logger.getMethodID(NAME3);
+    logger.enterMethod(ID1, "param1");
+      logger.enterMethod(ID2, "param2");
+                           logger.enterMethod(ID2, "param2");
+      logger.enterMethod(ID3, "param3");
+      logger.exitMethod(ID3, "retval3");
+    logger.exitMethod(ID1, "retval1");
+    for (int i = 0; i < 100; ++i) {  // some of these will probably be dropped, depending on how quickly the writer thread runs
+      logger.enterMethod(ID3, i);
+      logger.exitMethod(ID3, i);
+    }
+    logger.setAsynchronousOutput(false);
+
     System.out.println("MethodCallLogger test complete");
   }
 
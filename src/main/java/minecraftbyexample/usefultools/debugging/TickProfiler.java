@@ -0,0 +1,200 @@
+package minecraftbyexample.usefultools.debugging;
+
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.common.thread.EffectiveSide;
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how much time is spent in selected methods (eg the tick() of a TileEntity or Entity, event handlers, renderers), so
+ *   that the expensive parts of the mod can be found on a running server without attaching an external profiler.
+ * Usage:
+ * 1) Create a Section for each method you want to measure, as a static final field:
+ *      private static final TickProfiler.Section TICK_PROFILE = TickProfiler.section(MyTileEntity.class, "tick");
+ * 2) Time the method:
+ *      long profileStartTime = TICK_PROFILE.start();
+ *      try {
+ *        doTick();
+ *      } finally {
+ *        TICK_PROFILE.stop(profileStartTime);
+ *      }
+ * 3) Use the /mbedebug profile command (see MBEdebugCommand) to start and stop profiling, to show the most expensive sections,
+ *    or to export all of them to a CSV file in the game directory.
+ *
+ * Overhead:
+ * When profiling is off (the default), start() and stop() only check a flag.
+ * When it's on, every call is counted, but only one call in every sampleInterval is actually timed and added to the
+ *   LatencyHistogram.  The total time spent in the section is estimated as (number of calls) * (mean time of the timed calls).
+ * The client and server times are kept separately, depending on which thread calls stop().
+ * Thread safe.
+ */
+public class TickProfiler {
+
+  /** Get the Section for the given method, creating it if necessary */
+  public static Section section(Class<?> owner, String methodName) {
+    return sections.computeIfAbsent(owner.getSimpleName() + "." + methodName, Section::new);
+  }
+
+  public static boolean isEnabled() {return enabled;}
+
+  public static void setEnabled(boolean newEnabled) {
+    if (newEnabled && !enabled) {
+      enabledTimeNS = System.nanoTime();
+    } else if (!newEnabled && enabled) {
+      previouslyEnabledNS += System.nanoTime() - enabledTimeNS;
+    }
+    enabled = newEnabled;
+  }
+
+  /** Time one call in every sampleInterval calls; 1 = time every call */
+  public static void setSampleInterval(int newSampleInterval) {
+    sampleInterval = Math.max(1, newSampleInterval);
+  }
+
+  public static int getSampleInterval() {return sampleInterval;}
+
+  public static void reset() {
+    for (Section section : sections.values()) {
+      section.clientStats.reset();
+      section.serverStats.reset();
+    }
+    previouslyEnabledNS = 0;
+    enabledTimeNS = System.nanoTime();
+  }
+
+  /**
+   * A summary of the most expensive sections, one line for each section and side which has been called
+   * @param maxLines the maximum number of sections to include
+   */
+  public static List<String> getSummary(int maxLines) {
+    List<String> summary = new ArrayList<>();
+    long profiledNS = getProfiledTimeNS();
+    summary.add(String.format("Profiling %s for %s, sampling 1 in %d calls", enabled ? "on" : "off",
+            LatencyHistogram.formatNS(profiledNS), sampleInterval));
+    List<SideStats> allStats = getAllStatsMostExpensiveFirst();
+    for (int i = 0; i < allStats.size() && i < maxLines; ++i) {
+      SideStats stats = allStats.get(i);
+      double fractionOfTime = (profiledNS == 0) ? 0 : stats.getEstimatedTotalNS() / profiledNS;
+      summary.add(String.format("%s %s calls=%d total~%s (%.2f%%) %s", stats.side, stats.name, stats.calls.sum(),
+              LatencyHistogram.formatNS(stats.getEstimatedTotalNS()), 100.0 * fractionOfTime, stats.histogram));
+    }
+    if (allStats.isEmpty()) summary.add("No sections have been called yet");
+    return summary;
+  }
+
+  /**
+   * Write all the sections to a new CSV file in the game directory:
+   *   side, section, calls, timedcalls, estimatedtotalNS, meanNS, p50NS, p99NS, maxNS
+   * @return the file which was written
+   */
+  public static File exportCSV() throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines.add("side, section, calls, timedcalls, estimatedtotalNS, meanNS, p50NS, p99NS, maxNS");
+    for (SideStats stats : getAllStatsMostExpensiveFirst()) {
+      LatencyHistogram histogram = stats.histogram;
+      lines.add(String.format("%s, %s, %d, %d, %.0f, %.0f, %d, %d, %d", stats.side, stats.name, stats.calls.sum(),
+              histogram.getCount(), stats.getEstimatedTotalNS(), histogram.getMeanNS(),
+              histogram.getPercentileNS(50), histogram.getPercentileNS(99), histogram.getMaxNS()));
+    }
+    String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+    File file = FMLPaths.GAMEDIR.get().resolve("mbe_tickprofile_" + timeStamp + ".csv").toFile();
+    Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  public static class Section {
+    private Section(String name) {
+      this.name = name;
+      clientStats = new SideStats(name, LogicalSide.CLIENT);
+      serverStats = new SideStats(name, LogicalSide.SERVER);
+    }
+
+    /** @return the start time, to be passed to stop() */
+    public long start() {
+      if (!enabled) return NOT_PROFILED;
+      // the counter isn't synchronised; an occasional lost increment just shifts the sampling slightly
+      if (sampleInterval > 1 && ++callCounter % sampleInterval != 0) return NOT_TIMED;
+      return System.nanoTime();
+    }
+
+    /** @param startTime the value returned by start() */
+    public void stop(long startTime) {
+      if (startTime == NOT_PROFILED) return;
+      SideStats stats = (EffectiveSide.get() == LogicalSide.SERVER) ? serverStats : clientStats;
+      stats.calls.increment();
+      if (startTime != NOT_TIMED) stats.histogram.record(System.nanoTime() - startTime);
+    }
+
+    public String getName() {return name;}
+
+    /** The number of calls which have been timed on the given side so far; use the difference between two calls to measure a period */
+    public long getTimedCount(LogicalSide side) {
+      return ((side == LogicalSide.SERVER) ? serverStats : clientStats).histogram.getCount();
+    }
+
+    /** The total time of the calls which have been timed on the given side so far */
+    public long getTimedTotalNS(LogicalSide side) {
+      return ((side == LogicalSide.SERVER) ? serverStats : clientStats).histogram.getTotalNS();
+    }
+
+    private final String name;
+    private final SideStats clientStats;
+    private final SideStats serverStats;
+    private int callCounter = 0;
+  }
+
+  private static class SideStats {
+    SideStats(String name, LogicalSide side) {
+      this.name = name;
+      this.side = side;
+    }
+
+    double getEstimatedTotalNS() {return calls.sum() * histogram.getMeanNS();}
+
+    void reset() {
+      calls.reset();
+      histogram.reset();
+    }
+
+    final String name;
+    final LogicalSide side;
+    final LongAdder calls = new LongAdder();
+    final LatencyHistogram histogram = new LatencyHistogram();
+  }
+
+  private static List<SideStats> getAllStatsMostExpensiveFirst() {
+    List<SideStats> allStats = new ArrayList<>();
+    for (Section section : sections.values()) {
+      if (section.clientStats.calls.sum() > 0) allStats.add(section.clientStats);
+      if (section.serverStats.calls.sum() > 0) allStats.add(section.serverStats);
+    }
+    allStats.sort(Comparator.comparingDouble(SideStats::getEstimatedTotalNS).reversed());
+    return allStats;
+  }
+
+  private static long getProfiledTimeNS() {
+    return previouslyEnabledNS + (enabled ? System.nanoTime() - enabledTimeNS : 0);
+  }
+
+  // System.nanoTime() can return any value, but these two are vanishingly unlikely
+  private static final long NOT_PROFILED = Long.MIN_VALUE;
+  private static final long NOT_TIMED = Long.MIN_VALUE + 1;
+
+  private static volatile boolean enabled = false;
+  private static volatile int sampleInterval = 1;
+  private static long enabledTimeNS = 0;
+  private static long previouslyEnabledNS = 0;
+  private static final Map<String, Section> sections = new ConcurrentHashMap<>();
+}
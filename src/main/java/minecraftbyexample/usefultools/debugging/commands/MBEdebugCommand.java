@@ -9,15 +9,20 @@ import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import minecraftbyexample.mbe45_commands.MBEquoteCommand;
 import minecraftbyexample.mbe45_commands.MBEsayCommand;
 import minecraftbyexample.usefultools.debugging.DebugSettings;
+import minecraftbyexample.usefultools.debugging.TickProfiler;
 import net.minecraft.command.CommandSource;
 import net.minecraft.command.Commands;
 import net.minecraft.command.ISuggestionProvider;
 import net.minecraft.command.arguments.MessageArgument;
 import net.minecraft.command.arguments.Vec3Argument;
+import net.minecraft.util.text.StringTextComponent;
 import net.minecraftforge.registries.ForgeRegistries;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Created by TGG on 11/02/2020.
@@ -41,6 +46,12 @@ import java.util.Arrays;
  *      /mbedebug test 34
  *    which a subsequent code can check for
  *      int testNumber = Debugsettings.getDebugTest(); if (test != 0) runTest(testNumber);
+ * 5) mbedebug profile start | stop | reset | show [lines] | export | sampleinterval <interval>
+ *    controls the TickProfiler, eg
+ *      /mbedebug profile start
+ *      /mbedebug profile show 10     -- show the ten most expensive sections
+ *      /mbedebug profile export      -- write all the sections to a CSV file in the game directory
+ *    Only available to ops (permission level 2)
  *
  * Must be registered in FMLServerStartingEvent;
  *
@@ -94,7 +105,66 @@ public class MBEdebugCommand {
                         .then(Commands.argument("testnumber", IntegerArgumentType.integer())
                           .executes(context -> { DebugSettings.setDebugTest(
                                   IntegerArgumentType.getInteger(context, "testnumber")); return 1;}))
+            )
+            .then(Commands.literal("profile")
+                    .requires((commandSource) -> commandSource.hasPermissionLevel(2))
+                    .then(Commands.literal("start")
+                            .executes(context -> {
+                              TickProfiler.setEnabled(true);
+                              context.getSource().sendFeedback(new StringTextComponent("Profiling started"), true);
+                              return 1;
+                            })
+                    )
+                    .then(Commands.literal("stop")
+                            .executes(context -> {
+                              TickProfiler.setEnabled(false);
+                              context.getSource().sendFeedback(new StringTextComponent("Profiling stopped"), true);
+                              return 1;
+                            })
+                    )
+                    .then(Commands.literal("reset")
+                            .executes(context -> {
+                              TickProfiler.reset();
+                              context.getSource().sendFeedback(new StringTextComponent("Profile reset"), true);
+                              return 1;
+                            })
+                    )
+                    .then(Commands.literal("show")
+                            .executes(context -> showProfile(context.getSource(), DEFAULT_PROFILE_LINES))
+                            .then(Commands.argument("lines", IntegerArgumentType.integer(1))
+                                    .executes(context -> showProfile(context.getSource(),
+                                            IntegerArgumentType.getInteger(context, "lines"))))
+                    )
+                    .then(Commands.literal("export")
+                            .executes(context -> {
+                              try {
+                                File file = TickProfiler.exportCSV();
+                                context.getSource().sendFeedback(new StringTextComponent("Profile written to " + file), true);
+                                return 1;
+                              } catch (IOException ioe) {
+                                context.getSource().sendErrorMessage(new StringTextComponent("Couldn't write profile: " + ioe));
+                                return 0;
+                              }
+                            })
+                    )
+                    .then(Commands.literal("sampleinterval")
+                            .then(Commands.argument("interval", IntegerArgumentType.integer(1))
+                                    .executes(context -> {
+                                      TickProfiler.setSampleInterval(IntegerArgumentType.getInteger(context, "interval"));
+                                      return 1;
+                                    }))
+                    )
             );
     dispatcher.register(mbedebugCommand);
   }
+
+  private static int showProfile(CommandSource commandSource, int maxLines) {
+    List<String> summary = TickProfiler.getSummary(maxLines);
+    for (String line : summary) {
+      commandSource.sendFeedback(new StringTextComponent(line), false);
+    }
+    return summary.size();
+  }
+
+  private static final int DEFAULT_PROFILE_LINES = 20;
 }
@@ -0,0 +1,50 @@
+package minecraftbyexample.mbe50_particle;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trip and encoded size of FlameParticleData, as sent from the server to the client
+ */
+public class FlameParticleDataTest {
+
+  @Test
+  public void roundTrip() {
+    Color [] tints = {Color.RED, new Color(1, 128, 254), Color.BLACK};
+    double [] diameters = {0.05, 0.2, 0.35, 1.0};
+    final double DIAMETER_TOLERANCE = 1.0 / 65535;
+    for (Color tint : tints) {
+      for (double diameter : diameters) {
+        FlameParticleData result = roundTrip(new FlameParticleData(tint, diameter));
+        assertEquals(tint.getRGB(), result.getTint().getRGB());
+        assertEquals(diameter, result.getDiameter(), DIAMETER_TOLERANCE);
+      }
+    }
+  }
+
+  @Test
+  public void size() {
+    PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+    new FlameParticleData(Color.ORANGE, 0.3).write(buf);
+    assertEquals(3 + 2, buf.readableBytes());  // colour + diameter
+  }
+
+  @Test
+  public void diameterIsKeptInRange() {
+    assertEquals(1.0, roundTrip(new FlameParticleData(Color.WHITE, 100.0)).getDiameter(), 1E-6);
+    assertEquals(0.05, roundTrip(new FlameParticleData(Color.WHITE, -1.0)).getDiameter(), 1E-6);
+  }
+
+  private static FlameParticleData roundTrip(FlameParticleData data) {
+    PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+    data.write(buf);
+    FlameParticleData result = FlameParticleData.DESERIALIZER.read(StartupCommon.flameParticleType, buf);
+    assertEquals(0, buf.readableBytes());
+    return result;
+  }
+}
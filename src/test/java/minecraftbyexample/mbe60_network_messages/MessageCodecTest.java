@@ -0,0 +1,100 @@
+package minecraftbyexample.mbe60_network_messages;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.util.registry.Bootstrap;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trip and encoded size of each network message, through the CODEC which StartupCommon registers.
+ */
+public class MessageCodecTest {
+
+  // AirstrikeMessageToServer.Projectile refers to the vanilla EntityTypes, which need the registries to be set up
+  @BeforeAll
+  public static void bootstrapRegistries() {
+    Bootstrap.register();
+  }
+
+  @Test
+  public void airstrikeRoundTrip() {
+    for (AirstrikeMessageToServer.Projectile projectile : AirstrikeMessageToServer.Projectile.values()) {
+      Vector3d target = new Vector3d(-1234.5, 70.0, 987.25);
+      AirstrikeMessageToServer message = new AirstrikeMessageToServer(projectile, target);
+      PacketBuffer buf = encode(AirstrikeMessageToServer.CODEC, message);
+      AirstrikeMessageToServer result = AirstrikeMessageToServer.CODEC.decode(buf);
+
+      assertTrue(result.isMessageValid());
+      assertEquals(projectile, result.getProjectile());
+      assertPositionsClose(target, result.getTargetCoordinates());
+      assertEquals(0, buf.readableBytes());
+    }
+  }
+
+  @Test
+  public void airstrikeSize() {
+    AirstrikeMessageToServer message =
+            new AirstrikeMessageToServer(AirstrikeMessageToServer.Projectile.PIG, new Vector3d(100.5, 64.25, -200.75));
+    assertEquals(1 + 9, encode(AirstrikeMessageToServer.CODEC, message).readableBytes());  // projectile + position
+  }
+
+  @Test
+  public void airstrikeTruncatedIsInvalid() {
+    AirstrikeMessageToServer message =
+            new AirstrikeMessageToServer(AirstrikeMessageToServer.Projectile.TNT, new Vector3d(1, 2, 3));
+    PacketBuffer buf = encode(AirstrikeMessageToServer.CODEC, message);
+    PacketBuffer truncated = new PacketBuffer(buf.readBytes(buf.readableBytes() - 1));
+    assertFalse(AirstrikeMessageToServer.CODEC.decode(truncated).isMessageValid());
+  }
+
+  @Test
+  public void targetEffectRoundTrip() {
+    List<Vector3d> targets = new ArrayList<>();
+    for (int i = 0; i < TargetEffectMessageToClient.MAX_TARGETS_PER_MESSAGE; ++i) {
+      targets.add(new Vector3d(i * 17.3 - 500, 60 + i * 0.5, 300 - i * 11.1));
+    }
+    TargetEffectMessageToClient message = new TargetEffectMessageToClient(targets);
+    PacketBuffer buf = encode(TargetEffectMessageToClient.CODEC, message);
+    TargetEffectMessageToClient result = TargetEffectMessageToClient.CODEC.decode(buf);
+
+    assertTrue(result.isMessageValid());
+    assertEquals(targets.size(), result.getTargetCoordinates().size());
+    for (int i = 0; i < targets.size(); ++i) {
+      assertPositionsClose(targets.get(i), result.getTargetCoordinates().get(i));
+    }
+    assertEquals(0, buf.readableBytes());
+  }
+
+  @Test
+  public void targetEffectSize() {
+    TargetEffectMessageToClient message = new TargetEffectMessageToClient(new Vector3d(100.5, 64.25, -200.75));
+    assertEquals(1 + 9, encode(TargetEffectMessageToClient.CODEC, message).readableBytes());  // count + position
+  }
+
+  @Test
+  public void targetEffectTooManyTargetsIsInvalid() {
+    PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+    buf.writeVarInt(TargetEffectMessageToClient.MAX_TARGETS_PER_MESSAGE + 1);
+    assertFalse(TargetEffectMessageToClient.CODEC.decode(buf).isMessageValid());
+  }
+
+  private static <MSG> PacketBuffer encode(MessageCodec<MSG> codec, MSG message) {
+    PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+    codec.encode(message, buf);
+    return buf;
+  }
+
+  private static void assertPositionsClose(Vector3d expected, Vector3d actual) {
+    final double TOLERANCE = 1.0 / 256;
+    assertEquals(expected.x, actual.x, TOLERANCE);
+    assertEquals(expected.y, actual.y, TOLERANCE);
+    assertEquals(expected.z, actual.z, TOLERANCE);
+  }
+}
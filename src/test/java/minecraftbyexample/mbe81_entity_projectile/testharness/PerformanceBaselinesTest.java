@@ -0,0 +1,48 @@
+package minecraftbyexample.mbe81_entity_projectile.testharness;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the performance baselines survive being written and read again, even in a locale which uses a decimal comma.
+ */
+public class PerformanceBaselinesTest {
+
+  @Test
+  public void baselineRoundTrip() throws IOException {
+    PerformanceBaselines readBack = roundTrip(1234.56);
+    assertEquals(1234.6, readBack.getBaseline("1.serverTickMedianNS"), 1e-9);
+    assertEquals(0.3, readBack.getTolerance(), 1e-9);
+    assertTrue(Double.isNaN(readBack.getBaseline("1.notMeasured")));
+  }
+
+  @Test
+  public void baselineRoundTripWithDecimalComma() throws IOException {
+    Locale defaultLocale = Locale.getDefault();
+    try {
+      Locale.setDefault(Locale.GERMANY);
+      PerformanceBaselines readBack = roundTrip(1234.56);
+      assertEquals(1234.6, readBack.getBaseline("1.serverTickMedianNS"), 1e-9);
+      assertEquals(0.3, readBack.getTolerance(), 1e-9);
+    } finally {
+      Locale.setDefault(defaultLocale);
+    }
+  }
+
+  private static PerformanceBaselines roundTrip(double value) throws IOException {
+    PerformanceBaselines baselines = new PerformanceBaselines();
+    baselines.setBaseline("1.serverTickMedianNS", value);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    baselines.store(outputStream);
+
+    PerformanceBaselines readBack = new PerformanceBaselines();
+    readBack.load(new ByteArrayInputStream(outputStream.toByteArray()));
+    return readBack;
+  }
+}
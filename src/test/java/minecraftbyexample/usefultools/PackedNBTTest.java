@@ -0,0 +1,104 @@
+package minecraftbyexample.usefultools;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.DoubleNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.LongArrayNBT;
+import net.minecraft.util.math.vector.Vector3d;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that each packed format round-trips, that the legacy formats are still read, and that a length read from NBT is
+ *   not blindly trusted.
+ */
+public class PackedNBTTest {
+
+  @Test
+  public void doubleArrayRoundTrip() {
+    double [] values = {61.1, -62.2, 0.0, Double.MAX_VALUE, Double.NaN};
+    assertArrayEquals(values, PackedNBT.readDoubleArray(PackedNBT.writeDoubleArray(values)));
+    assertArrayEquals(new double[0], PackedNBT.readDoubleArray(PackedNBT.writeDoubleArray(new double[0])));
+  }
+
+  @Test
+  public void legacyDoubleArray() {
+    assertArrayEquals(new double[] {61.1, 62.2}, PackedNBT.readDoubleArray(legacyDoubleList(61.1, 62.2)));
+  }
+
+  @Test
+  public void vec3dRoundTrip() {
+    Vector3d vec3d = new Vector3d(1.5, -64.25, 1e9);
+    assertEquals(vec3d, PackedNBT.readVec3d(PackedNBT.writeVec3d(vec3d)));
+  }
+
+  @Test
+  public void legacyVec3d() {
+    assertEquals(new Vector3d(1.5, -64.25, 1e9), PackedNBT.readVec3d(legacyDoubleList(1.5, -64.25, 1e9)));
+    assertNull(PackedNBT.readVec3d(legacyDoubleList(1.5, -64.25)));
+  }
+
+  @Test
+  public void wrongKindIsRejected() {
+    assertNull(PackedNBT.readVec3d(PackedNBT.writeDoubleArray(new double[] {1.0, 2.0, 3.0})));
+    assertNull(PackedNBT.readDoubleArray(PackedNBT.writeVec3d(new Vector3d(1.0, 2.0, 3.0))));
+  }
+
+  @Test
+  public void packedLengthAboveMaximumIsRejected() {
+    final long FORMAT_VERSION = 1;
+    final long KIND_DOUBLE_ARRAY = 1;
+    final long KIND_SPARSE_DOUBLE_ARRAY = 2;
+    final long MAX_LENGTH = 1 << 24;
+    long tooLong = MAX_LENGTH + 1;
+    assertNull(PackedNBT.readDoubleArray(
+            new LongArrayNBT(new long[] {FORMAT_VERSION | (KIND_DOUBLE_ARRAY << 8) | (tooLong << 32)})));
+    assertNull(PackedNBT.readSparseDoubleArray(
+            new LongArrayNBT(new long[] {FORMAT_VERSION | (KIND_SPARSE_DOUBLE_ARRAY << 8) | (tooLong << 32)})));
+    long negativeLength = 0xffffffffL;
+    assertNull(PackedNBT.readDoubleArray(
+            new LongArrayNBT(new long[] {FORMAT_VERSION | (KIND_DOUBLE_ARRAY << 8) | (negativeLength << 32)})));
+  }
+
+  @Test
+  public void sparseDoubleArrayRoundTrip() {
+    Double [] values = {61.1, 62.2, null, 64.4, 65.5};
+    assertArrayEquals(values, PackedNBT.readSparseDoubleArray(PackedNBT.writeSparseDoubleArray(values)));
+  }
+
+  @Test
+  public void legacySparseDoubleArray() {
+    ListNBT listNBT = new ListNBT();
+    listNBT.add(legacyEntry(1, 61.1));
+    listNBT.add(legacyEntry(3, 63.3));
+    assertArrayEquals(new Double[] {61.1, null, 63.3}, PackedNBT.readSparseDoubleArray(listNBT));
+  }
+
+  @Test
+  public void legacySparseDoubleArrayWithHugeIndexIsRejected() {
+    ListNBT listNBT = new ListNBT();
+    listNBT.add(legacyEntry(Integer.MAX_VALUE, 1.0));
+    assertNull(PackedNBT.readSparseDoubleArray(listNBT));
+
+    listNBT = new ListNBT();
+    listNBT.add(legacyEntry(1, 1.0));
+    listNBT.add(legacyEntry(1000, 2.0));   // far too sparse for two entries
+    assertNull(PackedNBT.readSparseDoubleArray(listNBT));
+  }
+
+  private static ListNBT legacyDoubleList(double ... values) {
+    ListNBT listNBT = new ListNBT();
+    for (double value : values) {
+      listNBT.add(DoubleNBT.valueOf(value));
+    }
+    return listNBT;
+  }
+
+  private static CompoundNBT legacyEntry(int indexPlus1, double value) {
+    CompoundNBT entry = new CompoundNBT();
+    entry.putInt("i", indexPlus1);
+    entry.putDouble("v", value);
+    return entry;
+  }
+}
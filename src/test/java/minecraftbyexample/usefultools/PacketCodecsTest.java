@@ -0,0 +1,130 @@
+package minecraftbyexample.usefultools;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.vector.Vector3d;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that each PacketCodecs read gives back what was written, and that the encodings are as small as claimed.
+ */
+public class PacketCodecsTest {
+
+  @Test
+  public void signedVarIntRoundTrip() {
+    int [] values = {0, 1, -1, 63, -64, 64, -65, 1000, -1000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    for (int value : values) {
+      PacketBuffer buf = newBuffer();
+      PacketCodecs.writeSignedVarInt(buf, value);
+      assertEquals(value, PacketCodecs.readSignedVarInt(buf));
+      assertEquals(0, buf.readableBytes());
+    }
+  }
+
+  @Test
+  public void signedVarIntSize() {
+    assertEquals(1, signedVarIntSize(0));
+    assertEquals(1, signedVarIntSize(63));
+    assertEquals(1, signedVarIntSize(-64));   // small negative numbers are as short as small positive numbers
+    assertEquals(2, signedVarIntSize(64));
+    assertEquals(2, signedVarIntSize(-65));
+    assertEquals(5, signedVarIntSize(Integer.MIN_VALUE));
+  }
+
+  @Test
+  public void quantisedPositionRoundTrip() {
+    Vector3d [] positions = {new Vector3d(0, 0, 0), new Vector3d(100.5, 64.25, -200.75),
+                             new Vector3d(-0.0001, 255.9, 15.9999), new Vector3d(-29999999.3, -64, 29999999.7)};
+    final double HORIZONTAL_TOLERANCE = 1.0 / PacketCodecs.HORIZONTAL_STEPS_PER_BLOCK;
+    final double VERTICAL_TOLERANCE = 0.5 / PacketCodecs.VERTICAL_STEPS_PER_BLOCK;
+    for (Vector3d position : positions) {
+      PacketBuffer buf = newBuffer();
+      PacketCodecs.writeQuantisedPosition(buf, position);
+      Vector3d result = PacketCodecs.readQuantisedPosition(buf);
+      assertEquals(position.x, result.x, HORIZONTAL_TOLERANCE, position.toString());
+      assertEquals(position.y, result.y, VERTICAL_TOLERANCE, position.toString());
+      assertEquals(position.z, result.z, HORIZONTAL_TOLERANCE, position.toString());
+      assertEquals(0, buf.readableBytes());
+    }
+  }
+
+  @Test
+  public void quantisedPositionSize() {
+    PacketBuffer buf = newBuffer();
+    PacketCodecs.writeQuantisedPosition(buf, new Vector3d(100.5, 64.25, -200.75));
+    assertEquals(9, buf.readableBytes());  // 1 + 1 (chunk x, z) + 2 + 2 (offsets) + 3 (y)
+
+    final int THREE_DOUBLES = 24;
+    buf = newBuffer();
+    PacketCodecs.writeQuantisedPosition(buf, new Vector3d(-29999999.3, 255.9, 29999999.7));
+    assertTrue(buf.readableBytes() < THREE_DOUBLES);
+  }
+
+  private enum TestEnum {FIRST, SECOND, THIRD}
+
+  @Test
+  public void enumOrdinalRoundTripAndSize() {
+    for (TestEnum value : TestEnum.values()) {
+      PacketBuffer buf = newBuffer();
+      PacketCodecs.writeEnumOrdinal(buf, value);
+      assertEquals(1, buf.readableBytes());
+      assertEquals(value, PacketCodecs.readEnumOrdinal(buf, TestEnum.values()));
+    }
+  }
+
+  @Test
+  public void enumOrdinalRejectsInvalidOrdinal() {
+    PacketBuffer buf = newBuffer();
+    buf.writeByte(TestEnum.values().length);
+    assertThrows(IllegalArgumentException.class, () -> PacketCodecs.readEnumOrdinal(buf, TestEnum.values()));
+  }
+
+  @Test
+  public void quantisedDoubleRoundTripAndSize() {
+    final double MIN = -2.0;
+    final double MAX = 3.0;
+    final double TOLERANCE = (MAX - MIN) / 65535 / 2;
+    double [] values = {MIN, MAX, 0.0, 1.2345, -1.9999};
+    for (double value : values) {
+      PacketBuffer buf = newBuffer();
+      PacketCodecs.writeQuantisedDouble(buf, value, MIN, MAX);
+      assertEquals(2, buf.readableBytes());
+      assertEquals(value, PacketCodecs.readQuantisedDouble(buf, MIN, MAX), TOLERANCE);
+    }
+  }
+
+  @Test
+  public void quantisedDoubleIsClipped() {
+    PacketBuffer buf = newBuffer();
+    PacketCodecs.writeQuantisedDouble(buf, 100.0, 0.0, 1.0);
+    PacketCodecs.writeQuantisedDouble(buf, -100.0, 0.0, 1.0);
+    assertEquals(1.0, PacketCodecs.readQuantisedDouble(buf, 0.0, 1.0));
+    assertEquals(0.0, PacketCodecs.readQuantisedDouble(buf, 0.0, 1.0));
+  }
+
+  @Test
+  public void rgbRoundTripAndSize() {
+    Color [] colours = {Color.BLACK, Color.WHITE, new Color(12, 200, 77), new Color(1, 2, 3, 4)};
+    for (Color colour : colours) {
+      PacketBuffer buf = newBuffer();
+      PacketCodecs.writeRGB(buf, colour);
+      assertEquals(3, buf.readableBytes());
+      Color result = PacketCodecs.readRGB(buf);
+      assertEquals(colour.getRGB() & 0xffffff, result.getRGB() & 0xffffff);
+    }
+  }
+
+  private static int signedVarIntSize(int value) {
+    PacketBuffer buf = newBuffer();
+    PacketCodecs.writeSignedVarInt(buf, value);
+    return buf.readableBytes();
+  }
+
+  private static PacketBuffer newBuffer() {
+    return new PacketBuffer(Unpooled.buffer());
+  }
+}